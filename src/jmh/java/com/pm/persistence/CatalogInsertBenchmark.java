@@ -0,0 +1,126 @@
+package com.pm.persistence;
+
+import com.pm.domain.SelectionCriterion;
+import com.pm.domain.catalog.Catalog;
+import com.pm.domain.process.ProcessRecord;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Alta de un catalogo con 1 000, 10 000 y 100 000 procesos contra una base MySQL real, con los
+ * mismos ajustes de Connector/J que el pool de la aplicacion. Cada iteracion guarda un catalogo y
+ * mide ese alta; las filas por segundo son {@code procesos * 1000 / ms}. El catalogo creado se
+ * elimina al terminar la iteracion.
+ *
+ * <p>Requiere una base de prueba, que se crea o completa con {@link DatabaseInitializer}:
+ *
+ * <pre>{@code
+ * java -Dpm.bench.dbUrl=jdbc:mysql://localhost:3306/pm_bench -Dpm.bench.dbUser=pm \
+ *     -Dpm.bench.dbPassword=pm -jar target/benchmarks.jar CatalogInsertBenchmark
+ * }</pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class CatalogInsertBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  public int processes;
+
+  @Param({"1000"})
+  public int chunkSize;
+
+  private HikariDataSource dataSource;
+  private CatalogRepository repository;
+  private Catalog catalog;
+  private final List<Long> created = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    String url = System.getProperty("pm.bench.dbUrl");
+    if (url == null || url.isBlank()) {
+      throw new IllegalStateException("Falta -Dpm.bench.dbUrl con una base MySQL de prueba");
+    }
+    HikariConfig config = new HikariConfig();
+    config.setJdbcUrl(url);
+    config.setUsername(System.getProperty("pm.bench.dbUser", "root"));
+    config.setPassword(System.getProperty("pm.bench.dbPassword", ""));
+    config.setMaximumPoolSize(2);
+    config.setAutoCommit(false);
+    config.addDataSourceProperty("rewriteBatchedStatements", "true");
+    config.addDataSourceProperty("cachePrepStmts", "true");
+    config.addDataSourceProperty("prepStmtCacheSize", "250");
+    config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+    dataSource = new HikariDataSource(config);
+    new DatabaseInitializer(dataSource).initialize();
+    repository = new CatalogRepository(dataSource, chunkSize);
+
+    SplittableRandom random = new SplittableRandom(42);
+    List<ProcessRecord> records = new ArrayList<>(processes);
+    for (int i = 0; i < processes; i++) {
+      records.add(
+          ProcessRecord.builder()
+              .setPid(1000L + i)
+              .setNombre("proc-" + random.nextInt(5000))
+              .setUsuario("user" + random.nextInt(20))
+              .setPrioridad(random.nextInt(1, 6))
+              .setExpulsivo(random.nextBoolean())
+              .setCpuPct(BigDecimal.valueOf(random.nextInt(10_000), 2))
+              .setMemMb(BigDecimal.valueOf(random.nextInt(1_000_000), 2))
+              .setDescripcion("Proceso capturado para el benchmark " + i)
+              .setFilePath("segment:" + (i + 1))
+              .build());
+    }
+    catalog =
+        Catalog.builder()
+            .setNombre("benchmark-" + processes)
+            .setDescripcion("CatalogInsertBenchmark")
+            .setOrigen(SelectionCriterion.CPU)
+            .setN(processes)
+            .setFechaCreacion(Instant.now())
+            .setProcesos(records)
+            .build();
+  }
+
+  @Benchmark
+  public Catalog saveCatalogWithProcesses() {
+    Catalog saved = repository.saveCatalogWithProcesses(catalog);
+    created.add(saved.getId());
+    return saved;
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteCreated() {
+    for (long id : created) {
+      repository.deleteCatalog(id);
+    }
+    created.clear();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dataSource.close();
+  }
+}
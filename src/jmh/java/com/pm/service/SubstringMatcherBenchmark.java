@@ -0,0 +1,82 @@
+package com.pm.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo por nombre de comprobar los patrones de exclusion: la version anterior (minusculas y {@code
+ * contains} por patron sobre un stream) frente a {@link SubstringMatcher}. Los nombres no
+ * coinciden con ningun patron, que es el caso comun y el peor para la version anterior.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SubstringMatcherBenchmark {
+
+  private static final int NAMES = 1024;
+
+  @Param({"10", "100", "1000"})
+  public int patterns;
+
+  private List<String> patternList;
+  private SubstringMatcher matcher;
+  private String[] names;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SplittableRandom random = new SplittableRandom(42);
+    patternList = new ArrayList<>(patterns);
+    for (int i = 0; i < patterns; i++) {
+      patternList.add("svc" + i + "-" + word(random, 4));
+    }
+    matcher = new SubstringMatcher(patternList);
+    names = new String[NAMES];
+    for (int i = 0; i < NAMES; i++) {
+      names[i] = word(random, 6) + "-Worker_" + random.nextInt(1000);
+    }
+  }
+
+  @Benchmark
+  public boolean streamContains() {
+    String normalized = nextName().toLowerCase(Locale.ROOT);
+    return patternList.stream().anyMatch(normalized::contains);
+  }
+
+  @Benchmark
+  public boolean substringMatcher() {
+    return matcher.matches(nextName());
+  }
+
+  private String nextName() {
+    String name = names[next];
+    next = (next + 1) & (NAMES - 1);
+    return name;
+  }
+
+  private static String word(SplittableRandom random, int length) {
+    StringBuilder word = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      word.append((char) ('a' + random.nextInt(26)));
+    }
+    return word.toString();
+  }
+}
@@ -0,0 +1,126 @@
+package com.pm.service.capture;
+
+import com.pm.domain.SelectionCriterion;
+import com.pm.domain.process.ProcessSnapshot;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tiempo de reloj de una captura Top-N por memoria sobre un arbol de procfs falso, segun el tamano
+ * del pool de captura. El arbol se genera al preparar el estado con {@code stat} y {@code cmdline}
+ * por pid y se lee con {@link DirectoryProcfsSource}; la segunda pasada no espera la ventana de
+ * muestreo, asi que el tiempo es solo el de las lecturas, la agregacion y la seleccion. La cache
+ * de atributos queda caliente despues de la primera invocacion, como en capturas sucesivas.
+ *
+ * <p>El pool no escala mas alla de los nucleos del equipo. Uso: {@code java -jar
+ * target/benchmarks.jar CaptureScalingBenchmark -p parallelism=1,2,4,8}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CaptureScalingBenchmark {
+
+  @Param({"10000", "50000"})
+  public int processes;
+
+  @Param({"1", "2", "4", "8"})
+  public int parallelism;
+
+  private Path root;
+  private ProcessCaptureService service;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    root = Files.createTempDirectory("procfs-scaling");
+    SplittableRandom random = new SplittableRandom(42);
+    for (int pid = 1; pid <= processes; pid++) {
+      Path dir = Files.createDirectory(root.resolve(Integer.toString(pid)));
+      String name = "proc-" + (pid % 500);
+      Files.writeString(dir.resolve("stat"), stat(pid, name, random), StandardCharsets.US_ASCII);
+      Files.writeString(dir.resolve("cmdline"), "/usr/bin/" + name + "\0", StandardCharsets.UTF_8);
+    }
+    service =
+        new ProcessCaptureService(
+            Duration.ZERO,
+            new ProcessMemoryReader(root),
+            null,
+            parallelism,
+            new NoWaitSource(ProcfsSource.directory(root)),
+            256);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    service.close();
+    try (Stream<Path> paths = Files.walk(root)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Benchmark
+  public List<ProcessSnapshot> captureTopN() {
+    return service.captureTopN(SelectionCriterion.MEMORY, 10);
+  }
+
+  /** Linea de {@code stat} con los 52 campos del kernel; solo varian ppid, CPU y RSS. */
+  private static String stat(int pid, String name, SplittableRandom random) {
+    int ppid = pid == 1 ? 0 : 1 + random.nextInt(pid - 1);
+    long utime = random.nextLong(100_000);
+    long stime = random.nextLong(10_000);
+    long rssPages = 1 + random.nextLong(250_000);
+    return pid + " (" + name + ") S " + ppid + " " + pid + " " + pid
+        + " 0 -1 4194560 1200 0 0 0 " + utime + " " + stime + " 0 0 20 0 1 0 " + (1000 + pid)
+        + " " + rssPages * 4096 * 4 + " " + rssPages
+        + " 18446744073709551615 1 1 0 0 0 0 0 0 0 0 0 0 17 0 0 0 0 0 0 0 0 0 0 0 0 0 0\n";
+  }
+
+  /** Fuente sobre el arbol falso cuya segunda pasada no espera la ventana de muestreo. */
+  private record NoWaitSource(ProcfsSource delegate) implements ProcfsSource {
+
+    @Override
+    public ProcfsView current() {
+      return delegate.current();
+    }
+
+    @Override
+    public ProcfsView next(ProcfsView previous, Duration window) {
+      return delegate.current();
+    }
+
+    @Override
+    public boolean isLive() {
+      return false;
+    }
+
+    @Override
+    public int hostCpus() {
+      return delegate.hostCpus();
+    }
+  }
+}
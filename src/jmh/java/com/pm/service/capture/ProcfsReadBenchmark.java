@@ -0,0 +1,133 @@
+package com.pm.service.capture;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Costo por pid de una pasada de captura en Linux: las lecturas de la version con {@link
+ * ProcessHandle.Info} ({@code statm}, {@code stat} y {@code status} como texto y el enlace {@code
+ * exe}) frente a una sola lectura de {@code stat} con {@link LinuxProcfsReader}. Cada invocacion
+ * lee el siguiente de los pids presentes al preparar el estado, asi que el tiempo es por pid.
+ *
+ * <p>Solo corre en Linux. Uso: {@code java -jar target/benchmarks.jar ProcfsReadBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProcfsReadBenchmark {
+
+  private long[] pids;
+  private LinuxProcfsReader reader;
+  private ProcStat stat;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    reader = new LinuxProcfsReader(ProcfsSource.system().current());
+    stat = new ProcStat();
+    pids = reader.listPids();
+    if (pids.length == 0) {
+      throw new IllegalStateException("Sin procesos en /proc; el benchmark requiere Linux");
+    }
+  }
+
+  /** Lecturas por pid de la captura anterior, con las mismas divisiones de texto. */
+  @Benchmark
+  public void processHandleInfo(Blackhole blackhole) {
+    long pid = nextPid();
+    Optional<ProcessHandle> handle = ProcessHandle.of(pid);
+    if (handle.isEmpty()) {
+      return;
+    }
+    ProcessHandle.Info info = handle.get().info();
+    blackhole.consume(info.command().orElse(""));
+    blackhole.consume(info.user().orElse(null));
+    blackhole.consume(info.totalCpuDuration().orElse(Duration.ZERO));
+    blackhole.consume(info.startInstant().orElse(Instant.EPOCH));
+    blackhole.consume(readFields(pid, "statm"));
+    blackhole.consume(readStatFields(pid));
+    blackhole.consume(readUidLine(pid));
+    blackhole.consume(isSbin(pid));
+  }
+
+  /** Una lectura de {@code stat} en el buffer reutilizable del lector. */
+  @Benchmark
+  public long procfsStat() {
+    ProcStat out = stat;
+    return reader.readStat(nextPid(), out)
+        ? out.cpuTicks() + out.rssPages + out.nice + out.startTime
+        : -1;
+  }
+
+  private long nextPid() {
+    long pid = pids[next];
+    next = next + 1 == pids.length ? 0 : next + 1;
+    return pid;
+  }
+
+  private static String[] readFields(long pid, String file) {
+    try {
+      return Files.readString(Path.of("/proc", Long.toString(pid), file)).trim().split("\\s+");
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  private static String[] readStatFields(long pid) {
+    try {
+      String content = Files.readString(Path.of("/proc", Long.toString(pid), "stat"));
+      int closing = content.lastIndexOf(')');
+      return closing < 0 ? null : content.substring(closing + 1).trim().split("\\s+");
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  private static String readUidLine(long pid) {
+    try {
+      List<String> lines = Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"));
+      for (String line : lines) {
+        if (line.startsWith("Uid:")) {
+          return line.substring(4).trim().split("\\s+")[0];
+        }
+      }
+      return null;
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  private static boolean isSbin(long pid) {
+    try {
+      String target =
+          Files.readSymbolicLink(Path.of("/proc", Long.toString(pid), "exe"))
+              .toString()
+              .toLowerCase(Locale.ROOT);
+      return target.startsWith("/usr/sbin") || target.startsWith("/sbin");
+    } catch (IOException ex) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.pm.service.capture;
+
+import com.pm.domain.SelectionCriterion;
+import com.pm.domain.process.ProcessSnapshot;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Seleccion Top-N por CPU sobre fotografias sinteticas: el ordenamiento completo con comparadores
+ * de {@link BigDecimal} que usaba la captura frente a {@link TopNSelector}. Un 5% de los procesos
+ * tiene CPU desconocido para cubrir el caso de metricas nulas. Las claves {@link BigDecimal} de la
+ * version anterior se crean al preparar el estado, como los campos que guardaba cada fotografia,
+ * para que la comparacion no cargue con asignaciones que el codigo viejo no hacia.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopNSelectorBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  public int processes;
+
+  @Param({"10"})
+  public int n;
+
+  private List<ProcessSnapshot> snapshots;
+  private List<Keyed> keyed;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SplittableRandom random = new SplittableRandom(42);
+    snapshots = new ArrayList<>(processes);
+    keyed = new ArrayList<>(processes);
+    for (int i = 0; i < processes; i++) {
+      long cpu = random.nextInt(20) == 0 ? ProcessSnapshot.UNKNOWN : random.nextLong(40_000);
+      snapshots.add(
+          new ProcessSnapshot(
+              i + 1L, "proc-" + i, "user", cpu, random.nextLong(1L << 32), 0, false));
+    }
+    for (ProcessSnapshot snapshot : snapshots) {
+      BigDecimal cpu = snapshot.cpuPct();
+      keyed.add(new Keyed(snapshot, cpu == null ? BigDecimal.ZERO : cpu));
+    }
+  }
+
+  /** Version anterior: ordena todas las fotografias y toma las primeras N. */
+  @Benchmark
+  public List<ProcessSnapshot> streamSort() {
+    Comparator<Keyed> comparator = Comparator.comparing(Keyed::cpu).reversed();
+    return keyed.stream().sorted(comparator).limit(n).map(Keyed::snapshot).toList();
+  }
+
+  /** Seleccion actual: indices del heap acotado y luego las fotografias elegidas. */
+  @Benchmark
+  public List<ProcessSnapshot> topNSelector() {
+    int[] top = TopNSelector.selectIndices(snapshots, SelectionCriterion.CPU, n);
+    ProcessSnapshot[] result = new ProcessSnapshot[top.length];
+    for (int i = 0; i < top.length; i++) {
+      result[i] = snapshots.get(top[i]);
+    }
+    return List.of(result);
+  }
+
+  /** Fotografia con su CPU ya convertido, como la guardaba la version anterior. */
+  private record Keyed(ProcessSnapshot snapshot, BigDecimal cpu) {}
+}
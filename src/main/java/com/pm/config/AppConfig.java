@@ -1,5 +1,7 @@
 package com.pm.config;
 
+import com.pm.domain.DescriptionSegments;
+import com.pm.domain.ThreadDrillDown;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
@@ -77,6 +79,14 @@ public final class AppConfig {
     return parseInt("app.db.pool.size", 5);
   }
 
+  /**
+   * Procesos por sentencia {@code INSERT} de varias filas al guardar un catalogo, hasta 5000 para
+   * no pasar el limite de 65 535 parametros de una sentencia preparada en el servidor.
+   */
+  public int getDbInsertChunkSize() {
+    return Math.min(Math.max(parseInt("app.db.insertChunkSize", 1_000), 1), 5_000);
+  }
+
   public int getRestPort() {
     return parseInt("app.rest.port", 8080);
   }
@@ -91,6 +101,43 @@ public final class AppConfig {
     return resolvePath(readRequired("app.files.baseDir"));
   }
 
+  /** Escritores en segundo plano de archivos de descripcion; 0 los escribe al pedirlos. */
+  public int getFilesWriterThreads() {
+    return Math.max(parseInt("app.files.writerThreads", 2), 0);
+  }
+
+  public int getFilesQueueCapacity() {
+    return Math.max(parseInt("app.files.queueCapacity", 10_000), 1);
+  }
+
+  public boolean isFilesFsync() {
+    return parseBoolean("app.files.fsync", true);
+  }
+
+  /**
+   * Almacen de descripciones en segmentos si {@code app.files.store=segments}; con {@code files}
+   * (por defecto) cada descripcion va en su propio archivo.
+   */
+  public DescriptionSegments getFilesSegments() {
+    String store = Optional.ofNullable(readProperty("app.files.store")).orElse("files").trim();
+    if (store.isEmpty() || store.equalsIgnoreCase("files")) {
+      return DescriptionSegments.disabled();
+    }
+    if (!store.equalsIgnoreCase("segments")) {
+      throw new IllegalStateException("Invalid value for app.files.store: " + store);
+    }
+    long maxBytes = Math.max(parseLong("app.files.segments.maxMb", 64), 1) << 20;
+    double ratio = parseDouble("app.files.segments.compactRatio", 0.5);
+    if (ratio <= 0 || ratio > 1) {
+      throw new IllegalStateException(
+          "Invalid value for app.files.segments.compactRatio: " + ratio);
+    }
+    return new DescriptionSegments(
+        Math.min(maxBytes, DescriptionSegments.MAX_SEGMENT_BYTES),
+        Duration.ofMinutes(Math.max(parseLong("app.files.segments.compactMinutes", 10), 0)),
+        ratio);
+  }
+
   public Path getExportDir() {
     return resolvePath(readRequired("app.export.dir"));
   }
@@ -108,6 +155,71 @@ public final class AppConfig {
     return Duration.ofMillis(millis);
   }
 
+  public int getCaptureParallelism() {
+    return Math.max(parseInt("app.capture.parallelism", 1), 1);
+  }
+
+  public Path getCaptureProcfsRoot() {
+    return Optional.ofNullable(readProperty("app.capture.procfs.root"))
+        .filter(value -> !value.isBlank())
+        .map(Paths::get)
+        .orElse(Paths.get("/proc"));
+  }
+
+  public Optional<Path> getCaptureReplayArchive() {
+    return Optional.ofNullable(readProperty("app.capture.procfs.replay"))
+        .filter(value -> !value.isBlank())
+        .map(this::resolvePath);
+  }
+
+  public boolean isCaptureSamplerEnabled() {
+    return parseBoolean("app.capture.sampler.enabled", false);
+  }
+
+  public Duration getCaptureSamplerTick() {
+    long millis = parseLong("app.capture.sampler.tickMillis", 1000);
+    if (millis < 100) {
+      LOGGER.warn("Configured sampler tick millis too low ({}), using 100ms", millis);
+      millis = 100;
+    }
+    return Duration.ofMillis(millis);
+  }
+
+  public int getCaptureSamplerHistory() {
+    return Math.max(parseInt("app.capture.sampler.history", 4), 2);
+  }
+
+  public int getCaptureSamplerMaxProcesses() {
+    return Math.max(parseInt("app.capture.sampler.maxProcesses", 65536), 1);
+  }
+
+  /** Limites del detalle de hilos: hilos guardados por proceso y presupuesto de cada pasada. */
+  public ThreadDrillDown getCaptureThreadDrillDown() {
+    int maxThreads =
+        Math.min(
+            Math.max(parseInt("app.capture.threads.maxPerProcess", 5), 0),
+            ThreadDrillDown.MAX_THREADS);
+    long budgetMillis = parseLong("app.capture.threads.budgetMillis", 200);
+    if (budgetMillis < 10) {
+      LOGGER.warn("Configured thread budget millis too low ({}), using 10ms", budgetMillis);
+      budgetMillis = 10;
+    }
+    return new ThreadDrillDown(maxThreads, Duration.ofMillis(budgetMillis));
+  }
+
+  /**
+   * Lecturas de smaps_rollup permitidas por captura con las metricas de memoria PSS y USS. Como
+   * cualquier captura puede pedir esas metricas, el presupuesto debe permitir al menos una lectura.
+   */
+  public int getCaptureSmapsBudget() {
+    int budget = parseInt("app.capture.memory.smapsBudget", 256);
+    if (budget < 1) {
+      throw new IllegalStateException(
+          "Invalid value for app.capture.memory.smapsBudget: " + budget + " (minimo 1)");
+    }
+    return budget;
+  }
+
   public List<String> getExpulsiveSystemUsers() {
     return readList("app.capture.expulsivo.systemUsers");
   }
@@ -116,6 +228,13 @@ public final class AppConfig {
     return readList("app.capture.expulsivo.namePatterns");
   }
 
+  /** Archivo de reglas de expulsividad, que se vuelve a leer cuando cambia. */
+  public Optional<Path> getExpulsiveRulesFile() {
+    return Optional.ofNullable(readProperty("app.capture.expulsivo.rulesFile"))
+        .filter(value -> !value.isBlank())
+        .map(this::resolvePath);
+  }
+
   private List<String> readList(String key) {
     String value = readProperty(key);
     if (value == null || value.isBlank()) {
@@ -160,16 +279,66 @@ public final class AppConfig {
     }
   }
 
+  private double parseDouble(String key, double defaultValue) {
+    String value = readProperty(key);
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    try {
+      return Double.parseDouble(value.trim());
+    } catch (NumberFormatException ex) {
+      throw new IllegalStateException("Invalid double value for " + key + ": " + value, ex);
+    }
+  }
+
+  private boolean parseBoolean(String key, boolean defaultValue) {
+    String value = readProperty(key);
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    return Boolean.parseBoolean(value.trim());
+  }
+
   public void logConfiguration() {
     LOGGER.info("REST server: port={}, CORS origin={}", getRestPort(), getAllowedCorsOrigin());
+    LOGGER.info("Database: pool={}, insert chunk={}", getDbPoolSize(), getDbInsertChunkSize());
     LOGGER.info(
         "Directories: files={}, export={}, import={}",
         getFilesBaseDir(),
         getExportDir(),
         getImportDir());
+    DescriptionSegments segments = getFilesSegments();
+    LOGGER.info(
+        "Description files: writers={}, queue={}, fsync={}, store={}",
+        getFilesWriterThreads(),
+        getFilesQueueCapacity(),
+        isFilesFsync(),
+        segments.isEnabled()
+            ? String.format(
+                Locale.ROOT,
+                "segments (max %d MB, compact every %d min at %.2f dead)",
+                segments.maxSegmentBytes() >> 20,
+                segments.compactInterval().toMinutes(),
+                segments.compactRatio())
+            : "files");
+    LOGGER.info(
+        "Capture: sample={} ms, parallelism={}, background sampler={}, procfs={}",
+        getCaptureSampleDuration().toMillis(),
+        getCaptureParallelism(),
+        isCaptureSamplerEnabled(),
+        getCaptureReplayArchive()
+            .map(path -> "replay " + path)
+            .orElse(getCaptureProcfsRoot().toString()));
+    ThreadDrillDown threads = getCaptureThreadDrillDown();
+    LOGGER.info(
+        "Thread drill-down: maxPerProcess={}, budget={} ms",
+        threads.maxThreads(),
+        threads.budget().toMillis());
+    LOGGER.info("Memory: smaps_rollup budget={} reads", getCaptureSmapsBudget());
     LOGGER.info(
-        "Expulsivo heuristics: users={}, namePatterns={}",
+        "Expulsivo heuristics: users={}, namePatterns={}, rules={}",
         getExpulsiveSystemUsers(),
-        getExpulsiveNamePatterns());
+        getExpulsiveNamePatterns(),
+        getExpulsiveRulesFile().map(Path::toString).orElse("none"));
   }
 }
@@ -6,32 +6,66 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import javax.sql.DataSource;
 
-/** Gestiona el ciclo de vida del pool de conexiones HikariCP configurado para la aplicacion. */
+/**
+ * Gestiona el ciclo de vida de los pools de conexiones HikariCP configurados para la aplicacion:
+ * el general y uno chico para recorrer catalogos con un cursor del servidor.
+ */
 public final class DatabaseManager implements AutoCloseable {
 
+  /** Conexiones del pool de recorrido; se abren al pedirlas y se cierran al quedar ociosas. */
+  private static final int STREAMING_POOL_SIZE = 2;
+
   private final HikariDataSource dataSource;
+  private final HikariDataSource streamingDataSource;
 
   public DatabaseManager(AppConfig config) {
+    HikariConfig general = baseConfig(config, "process-management-pool");
+    general.setMaximumPoolSize(config.getDbPoolSize());
+    this.dataSource = new HikariDataSource(general);
+    // useCursorFetch hace que Connector/J use sentencias preparadas del servidor en toda la
+    // conexion, asi que se limita a este pool en lugar de cambiar el comportamiento del general.
+    HikariConfig streaming = baseConfig(config, "process-management-stream");
+    streaming.setMaximumPoolSize(STREAMING_POOL_SIZE);
+    streaming.setMinimumIdle(0);
+    streaming.addDataSourceProperty("useCursorFetch", "true");
+    this.streamingDataSource = new HikariDataSource(streaming);
+  }
+
+  private static HikariConfig baseConfig(AppConfig config, String poolName) {
     HikariConfig hikariConfig = new HikariConfig();
     hikariConfig.setJdbcUrl(config.getDbUrl());
     hikariConfig.setUsername(config.getDbUser());
     hikariConfig.setPassword(config.getDbPassword());
-    hikariConfig.setMaximumPoolSize(config.getDbPoolSize());
-    hikariConfig.setPoolName("process-management-pool");
+    hikariConfig.setPoolName(poolName);
     hikariConfig.setAutoCommit(false);
-    this.dataSource = new HikariDataSource(hikariConfig);
+    // Connector/J une los lotes de INSERT en sentencias de varias filas y reutiliza las
+    // sentencias preparadas de cada conexion.
+    hikariConfig.addDataSourceProperty("rewriteBatchedStatements", "true");
+    hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
+    hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
+    hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+    return hikariConfig;
   }
 
   public DataSource getDataSource() {
     return dataSource;
   }
 
+  /**
+   * Pool con {@code useCursorFetch}: las sentencias con fetch size usan un cursor del servidor en
+   * lugar de traer todo el resultado, lo que permite recorrer catalogos grandes por bloques.
+   */
+  public DataSource getStreamingDataSource() {
+    return streamingDataSource;
+  }
+
   public Connection getConnection() throws SQLException {
     return dataSource.getConnection();
   }
 
   @Override
   public void close() {
+    streamingDataSource.close();
     dataSource.close();
   }
 }
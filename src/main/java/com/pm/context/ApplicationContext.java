@@ -12,6 +12,11 @@ import com.pm.service.JsonCatalogService;
 import com.pm.service.ProcessFileService;
 import com.pm.service.capture.ProcessCaptureService;
 import com.pm.service.capture.ProcessMemoryReader;
+import com.pm.service.capture.ProcessSampler;
+import com.pm.service.capture.ProcfsSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
 
 /** Contenedor liviano que inicializa los servicios principales y gestiona su ciclo de vida. */
 public final class ApplicationContext implements AutoCloseable {
@@ -20,6 +25,7 @@ public final class ApplicationContext implements AutoCloseable {
   private final DirectoryManager directoryManager;
   private final DatabaseManager databaseManager;
   private final CatalogRepository catalogRepository;
+  private final ProcessSampler sampler;
   private final ProcessCaptureService captureService;
   private final ProcessFileService fileService;
   private final ExpulsivoEvaluator expulsivoEvaluator;
@@ -37,15 +43,50 @@ public final class ApplicationContext implements AutoCloseable {
     this.directoryManager.initialize();
     this.databaseManager = new DatabaseManager(config);
     new DatabaseInitializer(databaseManager.getDataSource()).initialize();
-    ProcessMemoryReader memoryReader = new ProcessMemoryReader();
+    ProcessMemoryReader memoryReader = new ProcessMemoryReader(config.getCaptureProcfsRoot());
+    ProcfsSource procfsSource = createProcfsSource(config);
+    this.sampler =
+        config.isCaptureSamplerEnabled() && (procfsSource == null || procfsSource.isLive())
+            ? new ProcessSampler(
+                config.getCaptureSamplerTick(),
+                config.getCaptureSamplerHistory(),
+                config.getCaptureSamplerMaxProcesses())
+            : null;
+    if (sampler != null) {
+      sampler.start();
+    }
     this.captureService =
-        new ProcessCaptureService(config.getCaptureSampleDuration(), memoryReader);
+        new ProcessCaptureService(
+            config.getCaptureSampleDuration(),
+            memoryReader,
+            sampler,
+            config.getCaptureParallelism(),
+            procfsSource,
+            config.getCaptureSmapsBudget());
     this.expulsivoEvaluator =
-        new ExpulsivoEvaluator(config.getExpulsiveSystemUsers(), config.getExpulsiveNamePatterns());
-    this.fileService = new ProcessFileService(directoryManager.getFilesBaseDir());
-    this.catalogRepository = new CatalogRepository(databaseManager.getDataSource());
+        new ExpulsivoEvaluator(
+            config.getExpulsiveSystemUsers(),
+            config.getExpulsiveNamePatterns(),
+            config.getExpulsiveRulesFile().orElse(null));
+    this.fileService =
+        new ProcessFileService(
+            directoryManager.getFilesBaseDir(),
+            config.getFilesWriterThreads(),
+            config.getFilesQueueCapacity(),
+            config.isFilesFsync(),
+            config.getFilesSegments());
+    this.catalogRepository =
+        new CatalogRepository(
+            databaseManager.getDataSource(),
+            config.getDbInsertChunkSize(),
+            databaseManager.getStreamingDataSource());
     this.catalogService =
-        new CatalogService(catalogRepository, captureService, expulsivoEvaluator, fileService);
+        new CatalogService(
+            catalogRepository,
+            captureService,
+            expulsivoEvaluator,
+            fileService,
+            config.getCaptureThreadDrillDown());
     this.jsonCatalogService = new JsonCatalogService(catalogService, directoryManager);
     this.restServer = new RestServer(config, catalogService);
     config.logConfiguration();
@@ -87,9 +128,31 @@ public final class ApplicationContext implements AutoCloseable {
     return jsonCatalogService;
   }
 
+  /**
+   * Devuelve la fuente de procfs configurada, o {@code null} para que la captura use la del sistema
+   * operativo.
+   */
+  private static ProcfsSource createProcfsSource(AppConfig config) {
+    Optional<Path> replay = config.getCaptureReplayArchive();
+    if (replay.isPresent()) {
+      try {
+        return ProcfsSource.replay(replay.get());
+      } catch (IOException ex) {
+        throw new IllegalStateException("Failed to load procfs recording " + replay.get(), ex);
+      }
+    }
+    Path root = config.getCaptureProcfsRoot();
+    return root.equals(Path.of("/proc")) ? null : ProcfsSource.directory(root);
+  }
+
   @Override
   public void close() {
     restServer.close();
+    captureService.close();
+    if (sampler != null) {
+      sampler.close();
+    }
+    fileService.close();
     databaseManager.close();
   }
 }
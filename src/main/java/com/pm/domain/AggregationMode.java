@@ -0,0 +1,28 @@
+package com.pm.domain;
+
+import java.util.Locale;
+
+/** Forma en que se agrupan los procesos capturados antes de elegir los N mayores. */
+public enum AggregationMode {
+  /** Un grupo por nombre de ejecutable. */
+  NAME,
+  /** Un grupo por subarbol de procesos, con raiz en el ancestro de la profundidad indicada. */
+  TREE,
+  /** Un grupo por usuario propietario. */
+  USER,
+  /** Sin agrupar: cada proceso es una fila. */
+  NONE;
+
+  public static AggregationMode fromString(String raw) {
+    if (raw == null || raw.isBlank()) {
+      return NAME;
+    }
+    return switch (raw.trim().toUpperCase(Locale.ROOT)) {
+      case "NAME", "NOMBRE" -> NAME;
+      case "TREE", "ARBOL" -> TREE;
+      case "USER", "USUARIO" -> USER;
+      case "NONE", "NINGUNA", "PROCESO" -> NONE;
+      default -> throw new IllegalArgumentException("agrupacion desconocida: " + raw);
+    };
+  }
+}
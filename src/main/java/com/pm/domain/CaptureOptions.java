@@ -0,0 +1,83 @@
+package com.pm.domain;
+
+/**
+ * Parametros de una captura Top-N. Se arman con {@link #builder(SelectionCriterion, int)}; los
+ * valores que no se indican quedan como en la captura clasica: una muestra de CPU, sin hilos,
+ * memoria RSS, agrupacion por nombre y sin cgroups.
+ *
+ * @param criterion criterio con el que se eligen los N mayores
+ * @param n cantidad de grupos a elegir
+ * @param sampling muestreo de CPU y estadistico con el que se ordena
+ * @param threads limites del detalle de hilos; desactivado no se leen hilos
+ * @param memory metrica de memoria
+ * @param aggregation como se agrupan los procesos antes de elegir
+ * @param cgroups si se eligen tambien los N cgroups v2 de mayor consumo
+ */
+public record CaptureOptions(
+    SelectionCriterion criterion,
+    int n,
+    CpuSampling sampling,
+    ThreadDrillDown threads,
+    MemoryMetric memory,
+    ProcessAggregation aggregation,
+    boolean cgroups) {
+
+  public CaptureOptions {
+    sampling = sampling == null ? CpuSampling.single() : sampling;
+    threads = threads == null ? ThreadDrillDown.disabled() : threads;
+    memory = memory == null ? MemoryMetric.RSS : memory;
+    aggregation = aggregation == null ? ProcessAggregation.byName() : aggregation;
+  }
+
+  public static Builder builder(SelectionCriterion criterion, int n) {
+    return new Builder(criterion, n);
+  }
+
+  public static final class Builder {
+    private final SelectionCriterion criterion;
+    private final int n;
+    private CpuSampling sampling;
+    private ThreadDrillDown threads;
+    private MemoryMetric memory;
+    private ProcessAggregation aggregation;
+    private boolean cgroups;
+
+    private Builder(SelectionCriterion criterion, int n) {
+      this.criterion = criterion;
+      this.n = n;
+    }
+
+    /** {@code null} equivale a una sola muestra. */
+    public Builder setSampling(CpuSampling sampling) {
+      this.sampling = sampling;
+      return this;
+    }
+
+    /** {@code null} equivale a no leer hilos. */
+    public Builder setThreads(ThreadDrillDown threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    /** {@code null} equivale a RSS. */
+    public Builder setMemory(MemoryMetric memory) {
+      this.memory = memory;
+      return this;
+    }
+
+    /** {@code null} equivale a agrupar por nombre. */
+    public Builder setAggregation(ProcessAggregation aggregation) {
+      this.aggregation = aggregation;
+      return this;
+    }
+
+    public Builder setCgroups(boolean cgroups) {
+      this.cgroups = cgroups;
+      return this;
+    }
+
+    public CaptureOptions build() {
+      return new CaptureOptions(criterion, n, sampling, threads, memory, aggregation, cgroups);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.pm.domain;
+
+import java.time.Duration;
+
+/**
+ * Plan de muestreo de CPU de una captura: cuantas muestras se toman repartidas en la ventana y con
+ * que estadistico se resumen para ordenar. Una sola muestra equivale a la ventana clasica.
+ *
+ * @param samples cantidad de muestras (ticks) dentro de la ventana
+ * @param window duracion total; {@code null} usa la ventana configurada para la captura
+ * @param statistic estadistico aplicado a las muestras de cada proceso
+ */
+public record CpuSampling(int samples, Duration window, CpuStatistic statistic) {
+
+  public static final int MAX_SAMPLES = 100;
+
+  /** Resolucion de los contadores de CPU del kernel; un tick mas corto no aporta datos. */
+  public static final Duration MIN_TICK = Duration.ofMillis(10);
+
+  public static final Duration MAX_WINDOW = Duration.ofSeconds(60);
+
+  private static final CpuSampling SINGLE = new CpuSampling(1, null, CpuStatistic.MEAN);
+
+  /** Una sola muestra sobre la ventana configurada. */
+  public static CpuSampling single() {
+    return SINGLE;
+  }
+
+  public boolean isMultiSample() {
+    return samples > 1;
+  }
+
+  /**
+   * Intervalo entre muestras, usando {@code defaultWindow} cuando el plan no fija la ventana. Nunca
+   * es menor que {@link #MIN_TICK}.
+   */
+  public Duration tick(Duration defaultWindow) {
+    Duration effective = window != null ? window : defaultWindow;
+    Duration tick = effective.dividedBy(Math.max(samples, 1));
+    return tick.compareTo(MIN_TICK) < 0 ? MIN_TICK : tick;
+  }
+}
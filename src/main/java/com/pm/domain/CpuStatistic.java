@@ -0,0 +1,22 @@
+package com.pm.domain;
+
+import java.util.Locale;
+
+/** Estadistico con que se resume el CPU de un proceso cuando la captura toma varias muestras. */
+public enum CpuStatistic {
+  MEAN,
+  P95,
+  MAX;
+
+  public static CpuStatistic fromString(String raw) {
+    if (raw == null || raw.isBlank()) {
+      return MEAN;
+    }
+    return switch (raw.trim().toUpperCase(Locale.ROOT)) {
+      case "MEAN", "AVG", "PROMEDIO" -> MEAN;
+      case "P95" -> P95;
+      case "MAX" -> MAX;
+      default -> throw new IllegalArgumentException("estadistico desconocido: " + raw);
+    };
+  }
+}
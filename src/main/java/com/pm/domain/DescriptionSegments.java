@@ -0,0 +1,28 @@
+package com.pm.domain;
+
+import java.time.Duration;
+
+/**
+ * Configuracion del almacen de descripciones en segmentos. Desactivado, cada descripcion va en su
+ * propio archivo.
+ *
+ * @param maxSegmentBytes tamano a partir del cual se abre un segmento nuevo
+ * @param compactInterval cada cuanto se compactan los segmentos; cero no compacta
+ * @param compactRatio proporcion de bytes borrados a partir de la cual se compacta un segmento
+ */
+public record DescriptionSegments(
+    long maxSegmentBytes, Duration compactInterval, double compactRatio) {
+
+  /** Tamano maximo de un segmento: las posiciones dentro de el se guardan en un {@code int}. */
+  public static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+  private static final DescriptionSegments DISABLED = new DescriptionSegments(0, Duration.ZERO, 0);
+
+  public static DescriptionSegments disabled() {
+    return DISABLED;
+  }
+
+  public boolean isEnabled() {
+    return maxSegmentBytes > 0;
+  }
+}
@@ -0,0 +1,32 @@
+package com.pm.domain;
+
+import java.util.Locale;
+
+/**
+ * Metrica con que se mide la memoria de cada proceso. {@code RSS} sale de la misma lectura que el
+ * CPU; {@code PSS} (paginas compartidas repartidas entre quienes las usan) y {@code USS} (solo
+ * paginas privadas) requieren leer {@code /proc/<pid>/smaps_rollup}, que es mucho mas costoso, y
+ * solo se calculan para los candidatos con mayor RSS.
+ */
+public enum MemoryMetric {
+  RSS,
+  PSS,
+  USS;
+
+  public static MemoryMetric fromString(String raw) {
+    if (raw == null || raw.isBlank()) {
+      return RSS;
+    }
+    return switch (raw.trim().toUpperCase(Locale.ROOT)) {
+      case "RSS", "RESIDENTE" -> RSS;
+      case "PSS", "PROPORCIONAL" -> PSS;
+      case "USS", "PRIVADA" -> USS;
+      default -> throw new IllegalArgumentException("metrica de memoria desconocida: " + raw);
+    };
+  }
+
+  /** Indica si la metrica necesita {@code smaps_rollup} ademas del RSS. */
+  public boolean readsSmaps() {
+    return this != RSS;
+  }
+}
@@ -0,0 +1,25 @@
+package com.pm.domain;
+
+import java.util.Locale;
+
+/** Como se calcula el total de filas de una lista paginada. */
+public enum PageCount {
+  /** Total exacto; sin filtros se lee del catalogo, con filtros se cuentan las filas. */
+  EXACT,
+  /** Estimacion del optimizador de la base; exacto cuando el catalogo ya lo tiene guardado. */
+  ESTIMATE,
+  /** Sin total: la pagina no depende de la cantidad de filas que cumplen los filtros. */
+  NONE;
+
+  public static PageCount fromString(String raw) {
+    if (raw == null || raw.isBlank()) {
+      return EXACT;
+    }
+    return switch (raw.trim().toLowerCase(Locale.ROOT)) {
+      case "true", "exact", "exacto" -> EXACT;
+      case "estimate", "estimado" -> ESTIMATE;
+      case "false", "none" -> NONE;
+      default -> throw new IllegalArgumentException("modo de conteo desconocido: " + raw);
+    };
+  }
+}
@@ -0,0 +1,59 @@
+package com.pm.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posicion de la ultima fila de una pagina para pedir la siguiente sin {@code OFFSET}: el valor de
+ * la columna de orden y la clave primaria que desempata. Se entrega al cliente como un texto opaco
+ * que incluye el orden con que se armo, para rechazarlo si se usa con otro.
+ *
+ * @param sort nombre del orden de la pagina
+ * @param value valor de la columna de orden en la ultima fila, como texto; {@code null} si era nulo
+ * @param id clave primaria de la ultima fila
+ */
+public record PageCursor(String sort, String value, long id) {
+
+  private static final char SEPARATOR = '\n';
+
+  /** Codifica el cursor como texto opaco apto para una URL. */
+  public String encode() {
+    String raw = sort + SEPARATOR + id + SEPARATOR + (value == null ? "-" : "+" + value);
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Interpreta un cursor entregado por {@link #encode()}.
+   *
+   * @throws IllegalArgumentException si el texto no es un cursor valido
+   */
+  public static PageCursor decode(String token) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+      int first = raw.indexOf(SEPARATOR);
+      int second = raw.indexOf(SEPARATOR, first + 1);
+      if (first <= 0 || second < 0 || second + 1 >= raw.length()) {
+        throw new IllegalArgumentException("cursor invalido");
+      }
+      long id = Long.parseLong(raw.substring(first + 1, second));
+      String value = raw.charAt(second + 1) == '-' ? null : raw.substring(second + 2);
+      return new PageCursor(raw.substring(0, first), value, id);
+    } catch (IllegalArgumentException ex) {
+      throw new IllegalArgumentException("cursor invalido", ex);
+    }
+  }
+
+  /**
+   * Verifica que el cursor se haya armado con el orden pedido.
+   *
+   * @throws IllegalArgumentException si corresponde a otro orden
+   */
+  public PageCursor requireSort(String expected) {
+    if (!sort.equals(expected)) {
+      throw new IllegalArgumentException("cursor de otro orden: " + sort);
+    }
+    return this;
+  }
+}
@@ -3,8 +3,20 @@ package com.pm.domain;
 import java.util.Collections;
 import java.util.List;
 
-/** Representa una pagina de resultados del dominio con metadatos basicos de paginacion. */
-public record PagedResult<T>(List<T> content, int page, int size, long total) {
+/**
+ * Representa una pagina de resultados del dominio con metadatos basicos de paginacion.
+ *
+ * @param total filas que cumplen los filtros, o {@code -1} si no se contaron
+ * @param nextCursor cursor para pedir la pagina siguiente, o {@code null} si no hay mas filas
+ * @param totalExact {@code false} si el total es una estimacion o no se conto
+ */
+public record PagedResult<T>(
+    List<T> content,
+    int page,
+    int size,
+    long total,
+    PageCursor nextCursor,
+    boolean totalExact) {
 
   public PagedResult {
     content = List.copyOf(content == null ? Collections.emptyList() : content);
@@ -15,4 +27,13 @@ public record PagedResult<T>(List<T> content, int page, int size, long total) {
       throw new IllegalArgumentException("size debe ser > 0");
     }
   }
+
+  public PagedResult(List<T> content, int page, int size, long total) {
+    this(content, page, size, total, null, true);
+  }
+
+  public PagedResult(
+      List<T> content, int page, int size, long total, PageCursor nextCursor) {
+    this(content, page, size, total, nextCursor, true);
+  }
 }
@@ -0,0 +1,25 @@
+package com.pm.domain;
+
+/**
+ * Agrupacion de los procesos de una captura.
+ *
+ * @param mode estrategia de agrupacion
+ * @param treeDepth con {@link AggregationMode#TREE}, profundidad de la raiz de cada grupo: los
+ *     procesos sin padre visible (init, kthreadd) tienen profundidad 0, sus hijos 1, y asi. Cada
+ *     proceso se agrupa con su ancestro de esa profundidad; los menos profundos forman su propio
+ *     grupo. Con 1 cada servicio lanzado por init reune a todos sus descendientes.
+ */
+public record ProcessAggregation(AggregationMode mode, int treeDepth) {
+
+  public static final int DEFAULT_TREE_DEPTH = 1;
+
+  public static final int MAX_TREE_DEPTH = 64;
+
+  private static final ProcessAggregation BY_NAME =
+      new ProcessAggregation(AggregationMode.NAME, DEFAULT_TREE_DEPTH);
+
+  /** Agrupacion por nombre, la de siempre. */
+  public static ProcessAggregation byName() {
+    return BY_NAME;
+  }
+}
@@ -1,18 +1,30 @@
 package com.pm.domain;
 
-/** Criterios de selección para la captura de procesos del sistema, como CPU o uso de memoria. */
+/**
+ * Criterios de selección para la captura de procesos del sistema, como CPU, uso de memoria o de
+ * disco. {@link #WEIGHTED} combina los tres con igual peso.
+ */
 public enum SelectionCriterion {
   CPU,
-  MEMORY;
+  MEMORY,
+  IO,
+  WEIGHTED;
 
   public static SelectionCriterion fromString(String raw) {
     if (raw == null || raw.isBlank()) {
-      throw new IllegalArgumentException("criterio requerido (CPU|MEMORY)");
+      throw new IllegalArgumentException("criterio requerido (CPU|MEMORY|IO|WEIGHTED)");
     }
     return switch (raw.trim().toUpperCase()) {
       case "CPU" -> CPU;
       case "MEM", "MEMORY", "RAM" -> MEMORY;
+      case "IO", "DISK", "DISCO" -> IO;
+      case "WEIGHTED", "PONDERADO", "SCORE" -> WEIGHTED;
       default -> throw new IllegalArgumentException("criterio desconocido: " + raw);
     };
   }
+
+  /** Indica si el criterio necesita las tasas de lectura y escritura de disco. */
+  public boolean usesIo() {
+    return this == IO || this == WEIGHTED;
+  }
 }
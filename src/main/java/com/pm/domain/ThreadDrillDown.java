@@ -0,0 +1,25 @@
+package com.pm.domain;
+
+import java.time.Duration;
+
+/**
+ * Limites del detalle de hilos de los procesos elegidos en una captura: cuantos hilos se guardan
+ * por proceso y cuanto tiempo puede llevar cada pasada de lectura de {@code /proc/<pid>/task}.
+ *
+ * @param maxThreads hilos mas activos que se guardan por proceso; 0 desactiva el detalle
+ * @param budget tiempo maximo de cada pasada; al agotarse se dejan de leer hilos
+ */
+public record ThreadDrillDown(int maxThreads, Duration budget) {
+
+  public static final int MAX_THREADS = 64;
+
+  private static final ThreadDrillDown DISABLED = new ThreadDrillDown(0, Duration.ZERO);
+
+  public static ThreadDrillDown disabled() {
+    return DISABLED;
+  }
+
+  public boolean isEnabled() {
+    return maxThreads > 0 && budget != null && !budget.isZero() && !budget.isNegative();
+  }
+}
@@ -8,7 +8,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
-/** Modelo de dominio que representa un catalogo de procesos capturados o importados. */
+/**
+ * Modelo de dominio que representa un catalogo de procesos capturados o importados. Las capturas
+ * que lo piden guardan ademas los cgroups con mayor consumo en {@code cgroups}.
+ */
 public final class Catalog {
 
   private final Long id;
@@ -18,6 +21,7 @@ public final class Catalog {
   private final int n;
   private final Instant fechaCreacion;
   private final List<ProcessRecord> procesos;
+  private final List<CatalogCgroup> cgroups;
 
   private Catalog(Builder builder) {
     this.id = builder.id;
@@ -27,6 +31,7 @@ public final class Catalog {
     this.n = builder.n;
     this.fechaCreacion = builder.fechaCreacion;
     this.procesos = Collections.unmodifiableList(new ArrayList<>(builder.procesos));
+    this.cgroups = List.copyOf(builder.cgroups);
   }
 
   public Long getId() {
@@ -57,6 +62,10 @@ public final class Catalog {
     return procesos;
   }
 
+  public List<CatalogCgroup> getCgroups() {
+    return cgroups;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -69,7 +78,8 @@ public final class Catalog {
         .setOrigen(origen)
         .setN(n)
         .setFechaCreacion(fechaCreacion)
-        .setProcesos(procesos);
+        .setProcesos(procesos)
+        .setCgroups(cgroups);
   }
 
   public static final class Builder {
@@ -80,6 +90,7 @@ public final class Catalog {
     private int n;
     private Instant fechaCreacion;
     private List<ProcessRecord> procesos = new ArrayList<>();
+    private List<CatalogCgroup> cgroups = List.of();
 
     public Builder setId(Long id) {
       this.id = id;
@@ -116,6 +127,11 @@ public final class Catalog {
       return this;
     }
 
+    public Builder setCgroups(List<CatalogCgroup> cgroups) {
+      this.cgroups = Objects.requireNonNullElseGet(cgroups, List::of);
+      return this;
+    }
+
     public Builder addProceso(ProcessRecord processRecord) {
       this.procesos.add(processRecord);
       return this;
@@ -0,0 +1,14 @@
+package com.pm.domain.catalog;
+
+import java.math.BigDecimal;
+
+/** Cgroup persistido junto a los procesos de un catalogo. */
+public record CatalogCgroup(
+    Long id,
+    String ruta,
+    String nombre,
+    BigDecimal cpuPct,
+    BigDecimal memMb,
+    BigDecimal ioReadKbs,
+    BigDecimal ioWriteKbs,
+    int procesos) {}
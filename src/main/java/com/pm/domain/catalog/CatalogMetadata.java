@@ -3,11 +3,15 @@ package com.pm.domain.catalog;
 import com.pm.domain.SelectionCriterion;
 import java.time.Instant;
 
-/** Proyeccion ligera con los campos principales de un catalogo almacenado. */
+/**
+ * Proyeccion ligera con los campos principales de un catalogo almacenado y los totales de sus
+ * procesos.
+ */
 public record CatalogMetadata(
     long id,
     String nombre,
     String descripcion,
     SelectionCriterion origen,
     int n,
-    Instant fechaCreacion) {}
+    Instant fechaCreacion,
+    CatalogTotals totales) {}
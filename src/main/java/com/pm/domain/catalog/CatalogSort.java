@@ -2,21 +2,34 @@ package com.pm.domain.catalog;
 
 /** Ordenamientos admitidos al listar catalogos y su representacion SQL asociada. */
 public enum CatalogSort {
-  FECHA_CREACION_DESC("fecha_creacion DESC"),
-  FECHA_CREACION_ASC("fecha_creacion ASC"),
-  N_DESC("n DESC"),
-  N_ASC("n ASC"),
-  NOMBRE_ASC("nombre ASC"),
-  NOMBRE_DESC("nombre DESC");
+  FECHA_CREACION_DESC("fecha_creacion", true),
+  FECHA_CREACION_ASC("fecha_creacion", false),
+  N_DESC("n", true),
+  N_ASC("n", false),
+  NOMBRE_ASC("nombre", false),
+  NOMBRE_DESC("nombre", true);
 
-  private final String sql;
+  private final String column;
+  private final boolean descending;
 
-  CatalogSort(String sql) {
-    this.sql = sql;
+  CatalogSort(String column, boolean descending) {
+    this.column = column;
+    this.descending = descending;
   }
 
+  /** Clausula {@code ORDER BY}; la clave primaria desempata para que el orden sea total. */
   public String sql() {
-    return sql;
+    String direction = descending ? " DESC" : " ASC";
+    return column + direction + ", id_catalog" + direction;
+  }
+
+  /** Columna de orden, para armar el cursor de la pagina siguiente. */
+  public String column() {
+    return column;
+  }
+
+  public boolean descending() {
+    return descending;
   }
 
   public static CatalogSort fromRequest(String sort) {
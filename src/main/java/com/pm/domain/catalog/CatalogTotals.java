@@ -0,0 +1,35 @@
+package com.pm.domain.catalog;
+
+import com.pm.domain.process.ProcessRecord;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Totales de los procesos de un catalogo que se guardan en la fila del catalogo y se mantienen al
+ * agregar, modificar o eliminar procesos, para no recorrerlos al listar.
+ *
+ * @param procesos cantidad de procesos
+ * @param cpuPct suma del CPU de los procesos; los que no lo informan no suman
+ * @param memMb suma de la memoria de los procesos
+ * @param expulsivos procesos marcados como expulsivos
+ */
+public record CatalogTotals(int procesos, BigDecimal cpuPct, BigDecimal memMb, int expulsivos) {
+
+  public static CatalogTotals of(List<ProcessRecord> processes) {
+    BigDecimal cpu = BigDecimal.ZERO;
+    BigDecimal mem = BigDecimal.ZERO;
+    int expulsivos = 0;
+    for (ProcessRecord process : processes) {
+      if (process.getCpuPct() != null) {
+        cpu = cpu.add(process.getCpuPct());
+      }
+      if (process.getMemMb() != null) {
+        mem = mem.add(process.getMemMb());
+      }
+      if (process.isExpulsivo()) {
+        expulsivos++;
+      }
+    }
+    return new CatalogTotals(processes.size(), cpu, mem, expulsivos);
+  }
+}
@@ -0,0 +1,38 @@
+package com.pm.domain.process;
+
+import java.math.BigDecimal;
+
+/**
+ * Fotografia en memoria de un cgroup (un contenedor, un servicio de systemd o una sesion) con las
+ * mismas unidades que {@link ProcessSnapshot}. Las metricas salen de los archivos del propio cgroup
+ * y no de sumar sus procesos, asi que incluyen a los que terminaron durante la ventana; solo el
+ * cgroup raiz y los que no tienen esos archivos se miden sumando sus procesos.
+ *
+ * @param ruta ruta del cgroup en la jerarquia v2, por ejemplo {@code /system.slice/x.service}
+ * @param procesos cantidad de procesos capturados que pertenecen al cgroup
+ */
+public record CgroupSnapshot(
+    String ruta,
+    String nombre,
+    long cpuBasisPoints,
+    long memBytes,
+    long ioReadBytesPerSec,
+    long ioWriteBytesPerSec,
+    int procesos) {
+
+  public BigDecimal cpuPct() {
+    return cpuBasisPoints == ProcessSnapshot.UNKNOWN ? null : BigDecimal.valueOf(cpuBasisPoints, 2);
+  }
+
+  public BigDecimal memMb() {
+    return ProcessSnapshot.toMb(memBytes);
+  }
+
+  public BigDecimal ioReadKbs() {
+    return ProcessSnapshot.toKbs(ioReadBytesPerSec);
+  }
+
+  public BigDecimal ioWriteKbs() {
+    return ProcessSnapshot.toKbs(ioWriteBytesPerSec);
+  }
+}
@@ -1,6 +1,7 @@
 package com.pm.domain.process;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /** Representa un proceso declarado en un archivo de importacion de catalogos. */
 public record ProcessImport(
@@ -11,4 +12,7 @@ public record ProcessImport(
     Boolean expulsivo,
     String descripcion,
     BigDecimal cpuPct,
-    BigDecimal memMb) {}
+    BigDecimal memMb,
+    BigDecimal ioReadKbs,
+    BigDecimal ioWriteKbs,
+    List<ProcessThread> hilos) {}
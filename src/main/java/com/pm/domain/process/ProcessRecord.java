@@ -2,6 +2,7 @@ package com.pm.domain.process;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 import java.util.Objects;
 
 /** Entidad inmutable que almacena los datos persistidos de un proceso en un catalogo. */
@@ -16,9 +17,12 @@ public final class ProcessRecord {
   private final boolean expulsivo;
   private final BigDecimal cpuPct;
   private final BigDecimal memMb;
+  private final BigDecimal ioReadKbs;
+  private final BigDecimal ioWriteKbs;
   private final String descripcion;
   private final String filePath;
   private final Instant createdAt;
+  private final List<ProcessThread> hilos;
 
   private ProcessRecord(Builder builder) {
     this.id = builder.id;
@@ -30,9 +34,12 @@ public final class ProcessRecord {
     this.expulsivo = builder.expulsivo;
     this.cpuPct = builder.cpuPct;
     this.memMb = builder.memMb;
+    this.ioReadKbs = builder.ioReadKbs;
+    this.ioWriteKbs = builder.ioWriteKbs;
     this.descripcion = builder.descripcion;
     this.filePath = builder.filePath;
     this.createdAt = builder.createdAt;
+    this.hilos = builder.hilos == null ? List.of() : List.copyOf(builder.hilos);
   }
 
   public Long getId() {
@@ -71,6 +78,16 @@ public final class ProcessRecord {
     return memMb;
   }
 
+  /** Tasa de lectura de disco en KB/s durante la captura, o {@code null} si no se midio. */
+  public BigDecimal getIoReadKbs() {
+    return ioReadKbs;
+  }
+
+  /** Tasa de escritura de disco en KB/s durante la captura, o {@code null} si no se midio. */
+  public BigDecimal getIoWriteKbs() {
+    return ioWriteKbs;
+  }
+
   public String getDescripcion() {
     return descripcion;
   }
@@ -83,6 +100,11 @@ public final class ProcessRecord {
     return createdAt;
   }
 
+  /** Hilos mas activos registrados en la captura; vacio si no se pidio el detalle. */
+  public List<ProcessThread> getHilos() {
+    return hilos;
+  }
+
   public Builder toBuilder() {
     return new Builder()
         .setId(id)
@@ -94,9 +116,12 @@ public final class ProcessRecord {
         .setExpulsivo(expulsivo)
         .setCpuPct(cpuPct)
         .setMemMb(memMb)
+        .setIoReadKbs(ioReadKbs)
+        .setIoWriteKbs(ioWriteKbs)
         .setDescripcion(descripcion)
         .setFilePath(filePath)
-        .setCreatedAt(createdAt);
+        .setCreatedAt(createdAt)
+        .setHilos(hilos);
   }
 
   public static Builder builder() {
@@ -113,9 +138,12 @@ public final class ProcessRecord {
     private boolean expulsivo;
     private BigDecimal cpuPct;
     private BigDecimal memMb;
+    private BigDecimal ioReadKbs;
+    private BigDecimal ioWriteKbs;
     private String descripcion;
     private String filePath;
     private Instant createdAt;
+    private List<ProcessThread> hilos;
 
     public Builder setId(Long id) {
       this.id = id;
@@ -162,6 +190,16 @@ public final class ProcessRecord {
       return this;
     }
 
+    public Builder setIoReadKbs(BigDecimal ioReadKbs) {
+      this.ioReadKbs = ioReadKbs;
+      return this;
+    }
+
+    public Builder setIoWriteKbs(BigDecimal ioWriteKbs) {
+      this.ioWriteKbs = ioWriteKbs;
+      return this;
+    }
+
     public Builder setDescripcion(String descripcion) {
       this.descripcion = descripcion;
       return this;
@@ -177,6 +215,11 @@ public final class ProcessRecord {
       return this;
     }
 
+    public Builder setHilos(List<ProcessThread> hilos) {
+      this.hilos = hilos;
+      return this;
+    }
+
     public ProcessRecord build() {
       Objects.requireNonNull(nombre, "nombre requerido");
       return new ProcessRecord(this);
@@ -1,13 +1,122 @@
 package com.pm.domain.process;
 
 import java.math.BigDecimal;
+import java.util.List;
 
-/** Representa una fotografia en memoria de un proceso antes de persistirlo. */
+/**
+ * Representa una fotografia en memoria de un proceso antes de persistirlo.
+ *
+ * <p>Las metricas se guardan en punto fijo con tipos primitivos para no crear objetos durante la
+ * captura y la agregacion: el CPU en puntos basicos (1/100 de punto porcentual), la memoria en
+ * bytes y el disco en bytes por segundo. {@link #UNKNOWN} indica que la metrica no esta disponible.
+ * Los {@link BigDecimal} se crean solo al cruzar hacia el servicio de catalogos mediante {@link
+ * #cpuPct()}, {@link #memMb()} y los metodos de disco.
+ *
+ * <p>{@code uid} y {@code executable} (ruta del ejecutable) solo se conocen con procfs y quedan en
+ * {@code null} en otro caso; sirven a las reglas de expulsividad que los piden. {@code hilos} solo
+ * se completa cuando la captura pide el detalle de hilos; en otro caso es una lista vacia.
+ */
 public record ProcessSnapshot(
     long pid,
     String nombre,
     String usuario,
-    BigDecimal cpuPct,
-    BigDecimal memMb,
+    long cpuBasisPoints,
+    long memBytes,
+    long ioReadBytesPerSec,
+    long ioWriteBytesPerSec,
     Integer prioridad,
-    boolean systemProcess) {}
+    boolean systemProcess,
+    Integer uid,
+    String executable,
+    List<ThreadSnapshot> hilos) {
+
+  public static final long UNKNOWN = -1L;
+  private static final long BYTES_PER_MB = 1024L * 1024L;
+  private static final long BYTES_PER_KB = 1024L;
+
+  public ProcessSnapshot {
+    hilos = hilos == null ? List.of() : List.copyOf(hilos);
+  }
+
+  /** Fotografia sin tasas de disco, uid, ejecutable ni hilos. */
+  public ProcessSnapshot(
+      long pid,
+      String nombre,
+      String usuario,
+      long cpuBasisPoints,
+      long memBytes,
+      Integer prioridad,
+      boolean systemProcess) {
+    this(
+        pid,
+        nombre,
+        usuario,
+        cpuBasisPoints,
+        memBytes,
+        UNKNOWN,
+        UNKNOWN,
+        prioridad,
+        systemProcess,
+        null,
+        null,
+        List.of());
+  }
+
+  /** Porcentaje de CPU con dos decimales, o {@code null} si no se pudo medir. */
+  public BigDecimal cpuPct() {
+    return cpuBasisPoints == UNKNOWN ? null : BigDecimal.valueOf(cpuBasisPoints, 2);
+  }
+
+  /** Memoria en MB con dos decimales (redondeo half-up), o {@code null} si no se pudo medir. */
+  public BigDecimal memMb() {
+    return toMb(memBytes);
+  }
+
+  /** Copia de la fotografia con el detalle de hilos indicado. */
+  public ProcessSnapshot withHilos(List<ThreadSnapshot> threads) {
+    return new ProcessSnapshot(
+        pid,
+        nombre,
+        usuario,
+        cpuBasisPoints,
+        memBytes,
+        ioReadBytesPerSec,
+        ioWriteBytesPerSec,
+        prioridad,
+        systemProcess,
+        uid,
+        executable,
+        threads);
+  }
+
+  /** Lectura de disco en KB/s con dos decimales, o {@code null} si no se pudo medir. */
+  public BigDecimal ioReadKbs() {
+    return toKbs(ioReadBytesPerSec);
+  }
+
+  /** Escritura de disco en KB/s con dos decimales, o {@code null} si no se pudo medir. */
+  public BigDecimal ioWriteKbs() {
+    return toKbs(ioWriteBytesPerSec);
+  }
+
+  static BigDecimal toMb(long bytes) {
+    if (bytes == UNKNOWN) {
+      return null;
+    }
+    long hundredths = (bytes * 100 + BYTES_PER_MB / 2) / BYTES_PER_MB;
+    return BigDecimal.valueOf(hundredths, 2);
+  }
+
+  static BigDecimal toKbs(long bytesPerSec) {
+    if (bytesPerSec == UNKNOWN) {
+      return null;
+    }
+    long hundredths = (bytesPerSec * 100 + BYTES_PER_KB / 2) / BYTES_PER_KB;
+    return BigDecimal.valueOf(hundredths, 2);
+  }
+
+  /** Convierte un porcentaje de CPU a puntos basicos redondeando half-up. */
+  public static long toBasisPoints(double pct) {
+    return pct < 0 ? UNKNOWN : Math.round(pct * 100.0);
+  }
+}
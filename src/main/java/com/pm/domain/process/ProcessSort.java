@@ -2,25 +2,42 @@ package com.pm.domain.process;
 
 /** Ordenamientos admitidos para paginar procesos dentro de un catalogo. */
 public enum ProcessSort {
-  CPU_DESC("cpu_pct DESC"),
-  CPU_ASC("cpu_pct ASC"),
-  MEM_DESC("mem_mb DESC"),
-  MEM_ASC("mem_mb ASC"),
-  PRIORIDAD_DESC("prioridad DESC"),
-  PRIORIDAD_ASC("prioridad ASC"),
-  NOMBRE_ASC("nombre ASC"),
-  NOMBRE_DESC("nombre DESC"),
-  CREATED_DESC("created_at DESC"),
-  CREATED_ASC("created_at ASC");
+  CPU_DESC("cpu_pct", true),
+  CPU_ASC("cpu_pct", false),
+  MEM_DESC("mem_mb", true),
+  MEM_ASC("mem_mb", false),
+  IO_READ_DESC("io_read_kbs", true),
+  IO_READ_ASC("io_read_kbs", false),
+  IO_WRITE_DESC("io_write_kbs", true),
+  IO_WRITE_ASC("io_write_kbs", false),
+  PRIORIDAD_DESC("prioridad", true),
+  PRIORIDAD_ASC("prioridad", false),
+  NOMBRE_ASC("nombre", false),
+  NOMBRE_DESC("nombre", true),
+  CREATED_DESC("created_at", true),
+  CREATED_ASC("created_at", false);
 
-  private final String sql;
+  private final String column;
+  private final boolean descending;
 
-  ProcessSort(String sql) {
-    this.sql = sql;
+  ProcessSort(String column, boolean descending) {
+    this.column = column;
+    this.descending = descending;
   }
 
+  /** Clausula {@code ORDER BY}; la clave primaria desempata para que el orden sea total. */
   public String sql() {
-    return sql;
+    String direction = descending ? " DESC" : " ASC";
+    return column + direction + ", id_process" + direction;
+  }
+
+  /** Columna de orden, para armar el cursor de la pagina siguiente. */
+  public String column() {
+    return column;
+  }
+
+  public boolean descending() {
+    return descending;
   }
 
   public static ProcessSort fromRequest(String raw) {
@@ -33,6 +50,10 @@ public enum ProcessSort {
       case "cpu_pct,desc" -> CPU_DESC;
       case "mem_mb,asc" -> MEM_ASC;
       case "mem_mb,desc" -> MEM_DESC;
+      case "io_read_kbs,asc" -> IO_READ_ASC;
+      case "io_read_kbs,desc" -> IO_READ_DESC;
+      case "io_write_kbs,asc" -> IO_WRITE_ASC;
+      case "io_write_kbs,desc" -> IO_WRITE_DESC;
       case "prioridad,asc" -> PRIORIDAD_ASC;
       case "prioridad,desc" -> PRIORIDAD_DESC;
       case "nombre,asc" -> NOMBRE_ASC;
@@ -0,0 +1,6 @@
+package com.pm.domain.process;
+
+import java.math.BigDecimal;
+
+/** Hilo persistido dentro de un proceso de un catalogo. */
+public record ProcessThread(long tid, String nombre, BigDecimal cpuPct) {}
@@ -0,0 +1,17 @@
+package com.pm.domain.process;
+
+import java.math.BigDecimal;
+
+/**
+ * Fotografia de un hilo de un proceso capturado. Como en {@link ProcessSnapshot}, el CPU se guarda
+ * en puntos basicos.
+ */
+public record ThreadSnapshot(long tid, String nombre, long cpuBasisPoints) {
+
+  /** Porcentaje de CPU con dos decimales, o {@code null} si no se pudo medir. */
+  public BigDecimal cpuPct() {
+    return cpuBasisPoints == ProcessSnapshot.UNKNOWN
+        ? null
+        : BigDecimal.valueOf(cpuBasisPoints, 2);
+  }
+}
@@ -1,13 +1,18 @@
 package com.pm.persistence;
 
+import com.pm.domain.PageCount;
+import com.pm.domain.PageCursor;
 import com.pm.domain.PagedResult;
 import com.pm.domain.SelectionCriterion;
 import com.pm.domain.catalog.Catalog;
+import com.pm.domain.catalog.CatalogCgroup;
 import com.pm.domain.catalog.CatalogMetadata;
 import com.pm.domain.catalog.CatalogSort;
+import com.pm.domain.catalog.CatalogTotals;
 import com.pm.domain.process.ProcessFilter;
 import com.pm.domain.process.ProcessRecord;
 import com.pm.domain.process.ProcessSort;
+import com.pm.domain.process.ProcessThread;
 import com.pm.domain.process.ProcessUpdate;
 import java.math.BigDecimal;
 import java.sql.Connection;
@@ -18,19 +23,95 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Encapsula el acceso JDBC para persistir catalogos y sus procesos asociados en la base de datos.
  */
 public final class CatalogRepository {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(CatalogRepository.class);
+
+  /** Columnas de orden que admiten nulos; el resto se declaran {@code NOT NULL}. */
+  private static final Set<String> NULLABLE_SORT_COLUMNS =
+      Set.of("cpu_pct", "mem_mb", "io_read_kbs", "io_write_kbs");
+
+  /** {@code ngram_token_size} que se asume si no se puede leer del servidor. */
+  private static final int DEFAULT_NGRAM_TOKEN_SIZE = 2;
+
+  /**
+   * Coincidencias del indice ngram hasta las que el filtro de nombre se resuelve por ids; con mas,
+   * el fragmento es poco selectivo y conviene recorrer el indice del orden hasta llenar la pagina.
+   */
+  static final int NAME_PREFILTER_LIMIT = 1_000;
+
+  private static final String CATALOG_COLUMNS =
+      "id_catalog, nombre, descripcion, origen, n, fecha_creacion,"
+          + " procesos, cpu_total, mem_total, expulsivos";
+
+  /** Procesos por sentencia {@code INSERT} si no se configura otro valor. */
+  public static final int DEFAULT_INSERT_CHUNK_SIZE = 1_000;
+
+  /** {@code max_allowed_packet} que se asume si no se puede leer del servidor. */
+  private static final long DEFAULT_MAX_PACKET_BYTES = 4L << 20;
+
+  /** Cota de bytes de una fila sin contar sus textos: diez valores numericos y separadores. */
+  private static final int INSERT_ROW_OVERHEAD = 320;
+
+  /**
+   * Filas que el cursor del servidor trae por viaje al recorrer un catalogo, y procesos cuyos
+   * hilos se buscan juntos.
+   */
+  static final int STREAM_FETCH_SIZE = 500;
+
+  private static final String CATALOG_PROCESSES_SQL =
+      """
+      SELECT id_process, id_catalog, pid, nombre, usuario, prioridad, expulsivo,
+             cpu_pct, mem_mb, io_read_kbs, io_write_kbs, descripcion, file_path,
+             created_at
+      FROM process
+      WHERE id_catalog = ?
+      ORDER BY created_at DESC, id_process DESC
+      """;
+
   private final DataSource dataSource;
+  private final DataSource streamingDataSource;
+  private final int insertChunkSize;
+  /** Bytes por sentencia de varias filas; se lee de {@code max_allowed_packet} al primer uso. */
+  private volatile long insertChunkBytes;
+  /** Largo de los n-gramas del indice de nombres; se lee de {@code ngram_token_size} una vez. */
+  private volatile int ngramTokenSize;
 
   public CatalogRepository(DataSource dataSource) {
+    this(dataSource, DEFAULT_INSERT_CHUNK_SIZE);
+  }
+
+  /**
+   * @param insertChunkSize procesos por sentencia {@code INSERT} de varias filas
+   */
+  public CatalogRepository(DataSource dataSource, int insertChunkSize) {
+    this(dataSource, insertChunkSize, dataSource);
+  }
+
+  /**
+   * @param streamingDataSource conexiones con {@code useCursorFetch} para {@link #streamCatalog};
+   *     con el mismo pool general el recorrido trae el resultado completo si no lo tiene activado
+   */
+  public CatalogRepository(
+      DataSource dataSource, int insertChunkSize, DataSource streamingDataSource) {
     this.dataSource = dataSource;
+    this.streamingDataSource = streamingDataSource;
+    this.insertChunkSize = Math.max(insertChunkSize, 1);
   }
 
   public Catalog saveCatalogWithProcesses(Catalog catalog) {
@@ -42,14 +123,19 @@ public final class CatalogRepository {
               catalog.getNombre(),
               catalog.getDescripcion(),
               catalog.getOrigen(),
-              catalog.getN());
+              catalog.getN(),
+              CatalogTotals.of(catalog.getProcesos()));
       List<ProcessRecord> storedProcesses =
           insertProcesses(connection, catalogId, catalog.getProcesos());
+      insertThreads(connection, storedProcesses);
+      List<CatalogCgroup> storedCgroups =
+          insertCgroups(connection, catalogId, catalog.getCgroups());
       connection.commit();
 
       return catalog.toBuilder()
           .setId(catalogId)
           .setProcesos(storedProcesses)
+          .setCgroups(storedCgroups)
           .setFechaCreacion(fetchCatalogCreation(connection, catalogId))
           .build();
     } catch (SQLException ex) {
@@ -72,16 +158,29 @@ public final class CatalogRepository {
   }
 
   private long insertCatalog(
-      Connection connection, String nombre, String descripcion, SelectionCriterion origen, int n)
+      Connection connection,
+      String nombre,
+      String descripcion,
+      SelectionCriterion origen,
+      int n,
+      CatalogTotals totals)
       throws SQLException {
     try (PreparedStatement ps =
         connection.prepareStatement(
-            "INSERT INTO catalog(nombre, descripcion, origen, n) VALUES (?, ?, ?, ?)",
+            """
+            INSERT INTO catalog(
+              nombre, descripcion, origen, n, procesos, cpu_total, mem_total, expulsivos)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """,
             Statement.RETURN_GENERATED_KEYS)) {
       ps.setString(1, nombre);
       ps.setString(2, descripcion);
       ps.setString(3, origen.name());
       ps.setInt(4, n);
+      ps.setInt(5, totals.procesos());
+      ps.setBigDecimal(6, totals.cpuPct());
+      ps.setBigDecimal(7, totals.memMb());
+      ps.setInt(8, totals.expulsivos());
       ps.executeUpdate();
       try (ResultSet keys = ps.getGeneratedKeys()) {
         if (keys.next()) {
@@ -92,71 +191,270 @@ public final class CatalogRepository {
     }
   }
 
+  /**
+   * Inserta los procesos con sentencias de varias filas de hasta {@link #insertChunkSize} procesos
+   * cada una y asigna a cada proceso el id generado en el orden de sus filas. MySQL entrega ids
+   * consecutivos a las filas de una misma sentencia, que el driver devuelve como claves generadas.
+   * Un bloque tambien se corta antes de que su tamano estimado supere la mitad de {@code
+   * max_allowed_packet}, para que descripciones largas no hagan fallar la sentencia.
+   */
   private List<ProcessRecord> insertProcesses(
       Connection connection, long catalogId, List<ProcessRecord> processes) throws SQLException {
+    List<ProcessRecord> stored = new ArrayList<>(processes.size());
+    String head =
+        "INSERT INTO process(id_catalog, pid, nombre, usuario, prioridad, expulsivo, cpu_pct,"
+            + " mem_mb, io_read_kbs, io_write_kbs, descripcion, file_path)";
+    long maxBytes = insertChunkBytes(connection);
+    for (int start = 0; start < processes.size(); ) {
+      int end = chunkEnd(processes, start, maxBytes);
+      List<ProcessRecord> chunk = processes.subList(start, end);
+      start = end;
+      try (PreparedStatement ps =
+          connection.prepareStatement(
+              multiRowInsert(head, 12, chunk.size()), Statement.RETURN_GENERATED_KEYS)) {
+        int index = 1;
+        for (ProcessRecord processRecord : chunk) {
+          ps.setLong(index++, catalogId);
+          ps.setLong(index++, processRecord.getPid());
+          ps.setString(index++, processRecord.getNombre());
+          ps.setString(index++, processRecord.getUsuario());
+          ps.setInt(index++, processRecord.getPrioridad());
+          ps.setBoolean(index++, processRecord.isExpulsivo());
+          ps.setObject(index++, processRecord.getCpuPct(), java.sql.Types.DECIMAL);
+          ps.setObject(index++, processRecord.getMemMb(), java.sql.Types.DECIMAL);
+          ps.setObject(index++, processRecord.getIoReadKbs(), java.sql.Types.DECIMAL);
+          ps.setObject(index++, processRecord.getIoWriteKbs(), java.sql.Types.DECIMAL);
+          ps.setString(index++, processRecord.getDescripcion());
+          ps.setString(index++, processRecord.getFilePath());
+        }
+        ps.executeUpdate();
+        Instant createdAt = Instant.now();
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+          for (ProcessRecord original : chunk) {
+            if (!keys.next()) {
+              throw new SQLException("Faltan ids generados para los procesos insertados");
+            }
+            stored.add(
+                original.toBuilder()
+                    .setId(keys.getLong(1))
+                    .setCatalogId(catalogId)
+                    .setCreatedAt(createdAt)
+                    .build());
+          }
+        }
+      }
+    }
+    return stored;
+  }
 
-    List<ProcessRecord> stored = new ArrayList<>();
-    String sql =
-        """
-        INSERT INTO process(
-          id_catalog,
-          pid,
-          nombre,
-          usuario,
-          prioridad,
-          expulsivo,
-          cpu_pct,
-          mem_mb,
-          descripcion,
-          file_path)
-        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
+  /**
+   * Fin del bloque que empieza en {@code start}: hasta {@link #insertChunkSize} filas sin pasar de
+   * {@code maxBytes} estimados. Cada caracter cuenta 3 bytes, que cubre UTF-8 y el escape de
+   * comillas; el bloque lleva al menos una fila.
+   */
+  private int chunkEnd(List<ProcessRecord> processes, int start, long maxBytes) {
+    int limit = Math.min(start + insertChunkSize, processes.size());
+    long bytes = 0;
+    int end = start;
+    while (end < limit) {
+      ProcessRecord processRecord = processes.get(end);
+      bytes +=
+          INSERT_ROW_OVERHEAD
+              + 3L
+                  * (length(processRecord.getNombre())
+                      + length(processRecord.getUsuario())
+                      + length(processRecord.getDescripcion())
+                      + length(processRecord.getFilePath()));
+      if (bytes > maxBytes && end > start) {
+        break;
+      }
+      end++;
+    }
+    return end;
+  }
 
-    try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+  private static int length(String value) {
+    return value == null ? 0 : value.length();
+  }
 
-      ps.setLong(1, catalogId);
+  /** Mitad de {@code max_allowed_packet}, leido una vez por repositorio. */
+  private long insertChunkBytes(Connection connection) {
+    long bytes = insertChunkBytes;
+    if (bytes > 0) {
+      return bytes;
+    }
+    long packet = DEFAULT_MAX_PACKET_BYTES;
+    try (Statement st = connection.createStatement();
+        ResultSet rs = st.executeQuery("SELECT @@max_allowed_packet")) {
+      if (rs.next() && rs.getLong(1) > 0) {
+        packet = rs.getLong(1);
+      }
+    } catch (SQLException ex) {
+      LOGGER.warn("No se pudo leer max_allowed_packet, se asumen {} bytes", packet);
+    }
+    bytes = packet / 2;
+    insertChunkBytes = bytes;
+    return bytes;
+  }
 
-      for (ProcessRecord processRecord : processes) {
-        ps.setLong(2, processRecord.getPid());
-        ps.setString(3, processRecord.getNombre());
-        ps.setString(4, processRecord.getUsuario());
-        ps.setInt(5, processRecord.getPrioridad());
-        ps.setBoolean(6, processRecord.isExpulsivo());
+  /** Arma {@code head VALUES (?, ...), ...} con {@code rows} filas de {@code columns} valores. */
+  private static String multiRowInsert(String head, int columns, int rows) {
+    String row = "(" + "?, ".repeat(columns - 1) + "?)";
+    StringBuilder sql = new StringBuilder(head.length() + 8 + rows * (row.length() + 2));
+    sql.append(head).append(" VALUES ");
+    for (int i = 0; i < rows; i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(row);
+    }
+    return sql.toString();
+  }
 
-        ps.setObject(7, processRecord.getCpuPct(), java.sql.Types.DECIMAL);
-        ps.setObject(8, processRecord.getMemMb(), java.sql.Types.DECIMAL);
+  /**
+   * Guarda los hilos de los procesos ya insertados en lotes; con {@code rewriteBatchedStatements}
+   * el driver los envia como sentencias de varias filas.
+   */
+  private void insertThreads(Connection connection, List<ProcessRecord> processes)
+      throws SQLException {
+    if (processes.stream().allMatch(process -> process.getHilos().isEmpty())) {
+      return;
+    }
+    String sql = "INSERT INTO process_thread(id_process, tid, nombre, cpu_pct) VALUES (?, ?, ?, ?)";
+    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+      int pending = 0;
+      for (ProcessRecord processRecord : processes) {
+        for (ProcessThread thread : processRecord.getHilos()) {
+          ps.setLong(1, processRecord.getId());
+          ps.setLong(2, thread.tid());
+          ps.setString(3, thread.nombre());
+          ps.setObject(4, thread.cpuPct(), java.sql.Types.DECIMAL);
+          ps.addBatch();
+          if (++pending == insertChunkSize) {
+            ps.executeBatch();
+            pending = 0;
+          }
+        }
+      }
+      if (pending > 0) {
+        ps.executeBatch();
+      }
+    }
+  }
 
-        ps.setString(9, processRecord.getDescripcion());
-        ps.setString(10, processRecord.getFilePath());
+  /** Guarda los cgroups del catalogo en un solo lote, en el orden de la captura. */
+  private List<CatalogCgroup> insertCgroups(
+      Connection connection, long catalogId, List<CatalogCgroup> cgroups) throws SQLException {
+    if (cgroups.isEmpty()) {
+      return cgroups;
+    }
+    String sql =
+        """
+        INSERT INTO catalog_cgroup(
+          id_catalog, ruta, nombre, cpu_pct, mem_mb, io_read_kbs, io_write_kbs, procesos)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+    List<CatalogCgroup> stored = new ArrayList<>(cgroups.size());
+    try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+      ps.setLong(1, catalogId);
+      for (CatalogCgroup cgroup : cgroups) {
+        ps.setString(2, cgroup.ruta());
+        ps.setString(3, cgroup.nombre());
+        ps.setObject(4, cgroup.cpuPct(), java.sql.Types.DECIMAL);
+        ps.setObject(5, cgroup.memMb(), java.sql.Types.DECIMAL);
+        ps.setObject(6, cgroup.ioReadKbs(), java.sql.Types.DECIMAL);
+        ps.setObject(7, cgroup.ioWriteKbs(), java.sql.Types.DECIMAL);
+        ps.setInt(8, cgroup.procesos());
         ps.addBatch();
       }
-
       ps.executeBatch();
-
       try (ResultSet keys = ps.getGeneratedKeys()) {
-        int index = 0;
-        while (keys.next() && index < processes.size()) {
-          long id = keys.getLong(1);
-          ProcessRecord original = processes.get(index++);
+        for (CatalogCgroup original : cgroups) {
+          if (!keys.next()) {
+            throw new SQLException("Faltan ids generados para los cgroups insertados");
+          }
           stored.add(
-              original.toBuilder()
-                  .setId(id)
-                  .setCatalogId(catalogId)
-                  .setCreatedAt(Instant.now())
-                  .build());
+              new CatalogCgroup(
+                  keys.getLong(1),
+                  original.ruta(),
+                  original.nombre(),
+                  original.cpuPct(),
+                  original.memMb(),
+                  original.ioReadKbs(),
+                  original.ioWriteKbs(),
+                  original.procesos()));
         }
       }
     }
     return stored;
   }
 
+  /**
+   * Completa los hilos de los procesos con una sola consulta por lista. Los hilos se devuelven en
+   * el orden en que se guardaron, que es de mayor a menor CPU.
+   */
+  private List<ProcessRecord> attachThreads(Connection connection, List<ProcessRecord> processes)
+      throws SQLException {
+    if (processes.isEmpty()) {
+      return processes;
+    }
+    String placeholders = String.join(", ", Collections.nCopies(processes.size(), "?"));
+    String sql =
+        "SELECT id_process, tid, nombre, cpu_pct FROM process_thread WHERE id_process IN ("
+            + placeholders
+            + ") ORDER BY id_thread";
+    Map<Long, List<ProcessThread>> threads = new HashMap<>();
+    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+      int index = 1;
+      for (ProcessRecord processRecord : processes) {
+        ps.setLong(index++, processRecord.getId());
+      }
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          threads
+              .computeIfAbsent(rs.getLong("id_process"), id -> new ArrayList<>())
+              .add(
+                  new ProcessThread(
+                      rs.getLong("tid"), rs.getString("nombre"), rs.getBigDecimal("cpu_pct")));
+        }
+      }
+    }
+    if (threads.isEmpty()) {
+      return processes;
+    }
+    List<ProcessRecord> result = new ArrayList<>(processes.size());
+    for (ProcessRecord processRecord : processes) {
+      List<ProcessThread> own = threads.get(processRecord.getId());
+      result.add(own == null ? processRecord : processRecord.toBuilder().setHilos(own).build());
+    }
+    return result;
+  }
+
   public PagedResult<CatalogMetadata> findCatalogs(
       Optional<String> search,
       Optional<SelectionCriterion> origin,
       CatalogSort sort,
       int page,
       int size) {
-    int offset = (page - 1) * size;
+    return findCatalogs(search, origin, sort, page, size, null, PageCount.EXACT);
+  }
+
+  /**
+   * Lista catalogos desde el cursor si se indica, filtrando por posicion en lugar de saltear filas
+   * con {@code OFFSET}; sin cursor se usa la pagina.
+   *
+   * @param after cursor devuelto con la pagina anterior, o {@code null}
+   * @param count como calcular el total
+   */
+  public PagedResult<CatalogMetadata> findCatalogs(
+      Optional<String> search,
+      Optional<SelectionCriterion> origin,
+      CatalogSort sort,
+      int page,
+      int size,
+      PageCursor after,
+      PageCount count) {
+    int offset = after == null ? (page - 1) * size : 0;
     List<String> conditions = new ArrayList<>();
     List<Object> params = new ArrayList<>();
     search.ifPresent(
@@ -173,38 +471,158 @@ public final class CatalogRepository {
         });
 
     String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
-    String query =
-        "SELECT id_catalog, nombre, descripcion, origen, n, fecha_creacion FROM catalog"
-            + where
-            + " ORDER BY "
-            + sort.sql()
-            + " LIMIT ? OFFSET ?";
-    String countSql = "SELECT COUNT(1) FROM catalog" + where;
+    List<Object> countParams = List.copyOf(params);
+    String pageWhere = where;
+    if (after != null) {
+      conditions.add(
+          seekCondition(
+              sort.name(), sort.column(), "id_catalog", sort.descending(), after, params));
+      pageWhere = " WHERE " + String.join(" AND ", conditions);
+    }
+    String query = catalogPageSql(pageWhere, sort);
 
     try (Connection connection = dataSource.getConnection()) {
       connection.setAutoCommit(false);
-      long total = executeCount(connection, countSql, params);
+      long total = countRows(connection, count, "catalog", where, countParams);
       List<CatalogMetadata> content = new ArrayList<>();
+      String lastValue = null;
+      boolean more = false;
       try (PreparedStatement ps = connection.prepareStatement(query)) {
         int index = 1;
         for (Object param : params) {
           ps.setObject(index++, param);
         }
-        ps.setInt(index++, size);
+        // Una fila de mas indica si hay pagina siguiente.
+        ps.setInt(index++, size + 1);
         ps.setInt(index, offset);
         try (ResultSet rs = ps.executeQuery()) {
           while (rs.next()) {
+            if (content.size() == size) {
+              more = true;
+              break;
+            }
             content.add(mapCatalogMetadata(rs));
+            lastValue = sortValue(rs, sort.column());
           }
         }
       }
       connection.commit();
-      return new PagedResult<>(content, page, size, total);
+      PageCursor next =
+          more ? new PageCursor(sort.name(), lastValue, content.get(size - 1).id()) : null;
+      return new PagedResult<>(content, page, size, total, next, count == PageCount.EXACT);
     } catch (SQLException ex) {
       throw new IllegalStateException("Error al listar catálogos", ex);
     }
   }
 
+  /**
+   * Indica si el fragmento puede buscarse como frase en el indice ngram de nombres: debe tener al
+   * menos un n-grama y solo letras y digitos. Espacios, signos y comodines de {@code LIKE} se dejan
+   * a {@code LIKE}, porque la frase podria descartar nombres que si los contienen.
+   */
+  private static boolean usesNameIndex(String term, int tokenSize) {
+    if (term.length() < tokenSize) {
+      return false;
+    }
+    for (int i = 0; i < term.length(); i++) {
+      if (!Character.isLetterOrDigit(term.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Condicion que deja solo las filas posteriores al cursor en el orden de la pagina: valor mayor
+   * (o menor si el orden es descendente) o el mismo valor con una clave primaria posterior. MySQL
+   * ordena los nulos primero en orden ascendente y al final en descendente; las columnas que
+   * admiten nulos los contemplan igual.
+   */
+  static String seekCondition(
+      String sortName,
+      String column,
+      String key,
+      boolean descending,
+      PageCursor after,
+      List<Object> params) {
+    after.requireSort(sortName);
+    String op = descending ? " < ?" : " > ?";
+    boolean nullable = NULLABLE_SORT_COLUMNS.contains(column);
+    if (after.value() == null) {
+      params.add(after.id());
+      return descending
+          ? "(" + column + " IS NULL AND " + key + op + ")"
+          : "((" + column + " IS NULL AND " + key + op + ") OR " + column + " IS NOT NULL)";
+    }
+    Object value = parseSortValue(column, after.value());
+    params.add(value);
+    params.add(value);
+    params.add(after.id());
+    String seek = column + op + " OR (" + column + " = ? AND " + key + op + ")";
+    return "(" + seek + (descending && nullable ? " OR " + column + " IS NULL" : "") + ")";
+  }
+
+  /** Valor de la columna de orden de la fila actual como texto para el cursor. */
+  private static String sortValue(ResultSet rs, String column) throws SQLException {
+    return switch (column) {
+      case "fecha_creacion", "created_at" -> {
+        Timestamp ts = rs.getTimestamp(column);
+        yield ts == null ? null : ts.toInstant().toString();
+      }
+      case "n", "prioridad" -> String.valueOf(rs.getLong(column));
+      case "nombre" -> rs.getString(column);
+      default -> {
+        BigDecimal value = rs.getBigDecimal(column);
+        yield value == null ? null : value.toPlainString();
+      }
+    };
+  }
+
+  private static Object parseSortValue(String column, String value) {
+    try {
+      return switch (column) {
+        case "fecha_creacion", "created_at" -> Timestamp.from(Instant.parse(value));
+        case "n", "prioridad" -> Long.parseLong(value);
+        case "nombre" -> value;
+        default -> new BigDecimal(value);
+      };
+    } catch (RuntimeException ex) {
+      throw new IllegalArgumentException("cursor invalido", ex);
+    }
+  }
+
+  /**
+   * Total de filas de la tabla que cumplen la condicion: contadas, estimadas con el plan de la
+   * consulta, o {@code -1} si no se piden.
+   */
+  private long countRows(
+      Connection connection, PageCount count, String table, String where, List<Object> params)
+      throws SQLException {
+    return switch (count) {
+      case EXACT -> executeCount(connection, "SELECT COUNT(1) FROM " + table + where, params);
+      case ESTIMATE -> estimateCount(connection, "EXPLAIN SELECT 1 FROM " + table + where, params);
+      case NONE -> -1;
+    };
+  }
+
+  /** Filas examinadas por el filtro que el optimizador preve, corregidas por su selectividad. */
+  private long estimateCount(Connection connection, String sql, List<Object> params)
+      throws SQLException {
+    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+      int index = 1;
+      for (Object param : params) {
+        ps.setObject(index++, param);
+      }
+      try (ResultSet rs = ps.executeQuery()) {
+        if (!rs.next()) {
+          return 0;
+        }
+        double filtered = rs.getDouble("filtered");
+        return Math.round(rs.getLong("rows") * (rs.wasNull() ? 100 : filtered) / 100);
+      }
+    }
+  }
+
   private long executeCount(Connection connection, String sql, List<Object> params)
       throws SQLException {
     try (PreparedStatement ps = connection.prepareStatement(sql)) {
@@ -228,7 +646,12 @@ public final class CatalogRepository {
         rs.getString("descripcion"),
         SelectionCriterion.fromString(rs.getString("origen")),
         rs.getInt("n"),
-        rs.getTimestamp("fecha_creacion").toInstant());
+        rs.getTimestamp("fecha_creacion").toInstant(),
+        new CatalogTotals(
+            rs.getInt("procesos"),
+            rs.getBigDecimal("cpu_total"),
+            rs.getBigDecimal("mem_total"),
+            rs.getInt("expulsivos")));
   }
 
   public Optional<Catalog> findCatalog(long catalogId) {
@@ -240,6 +663,7 @@ public final class CatalogRepository {
         return Optional.empty();
       }
       List<ProcessRecord> processes = findProcessesForCatalog(connection, catalogId);
+      List<CatalogCgroup> cgroups = findCgroupsForCatalog(connection, catalogId);
       connection.commit();
       Catalog catalog =
           Catalog.builder()
@@ -250,6 +674,7 @@ public final class CatalogRepository {
               .setN(metadata.get().n())
               .setFechaCreacion(metadata.get().fechaCreacion())
               .setProcesos(processes)
+              .setCgroups(cgroups)
               .build();
       return Optional.of(catalog);
     } catch (SQLException ex) {
@@ -257,14 +682,66 @@ public final class CatalogRepository {
     }
   }
 
+  /**
+   * Recorre un catalogo sin cargar todos sus procesos en memoria. {@code header} recibe primero los
+   * metadatos, con los totales guardados, y los cgroups; despues cada proceso pasa con sus hilos a
+   * {@code consumer} en el mismo orden que {@link #findCatalog}. Los procesos se leen con un cursor
+   * de solo avance que trae {@link #STREAM_FETCH_SIZE} filas por viaje y los hilos se buscan por
+   * bloques del mismo tamano, de modo que la memoria usada no depende del tamano del catalogo.
+   * Todo se lee en una sola transaccion, asi la cabecera y los procesos son coherentes.
+   *
+   * @return {@code false} si el catalogo no existe, sin llamar a {@code header} ni a {@code
+   *     consumer}
+   */
+  public boolean streamCatalog(
+      long catalogId,
+      BiConsumer<CatalogMetadata, List<CatalogCgroup>> header,
+      Consumer<ProcessRecord> consumer) {
+    try (Connection connection = streamingDataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      Optional<CatalogMetadata> metadata = findCatalogMetadata(connection, catalogId);
+      if (metadata.isEmpty()) {
+        connection.commit();
+        return false;
+      }
+      header.accept(metadata.get(), findCgroupsForCatalog(connection, catalogId));
+      try (PreparedStatement ps =
+          connection.prepareStatement(
+              CATALOG_PROCESSES_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+        ps.setFetchSize(STREAM_FETCH_SIZE);
+        ps.setLong(1, catalogId);
+        try (ResultSet rs = ps.executeQuery()) {
+          List<ProcessRecord> block = new ArrayList<>(STREAM_FETCH_SIZE);
+          while (rs.next()) {
+            block.add(mapProcess(rs));
+            if (block.size() == STREAM_FETCH_SIZE) {
+              emitBlock(connection, block, consumer);
+            }
+          }
+          emitBlock(connection, block, consumer);
+        }
+      }
+      connection.commit();
+      return true;
+    } catch (SQLException ex) {
+      throw new IllegalStateException("Error al recorrer catálogo", ex);
+    }
+  }
+
+  private void emitBlock(
+      Connection connection, List<ProcessRecord> block, Consumer<ProcessRecord> consumer)
+      throws SQLException {
+    for (ProcessRecord processRecord : attachThreads(connection, block)) {
+      consumer.accept(processRecord);
+    }
+    block.clear();
+  }
+
   private Optional<CatalogMetadata> findCatalogMetadata(Connection connection, long catalogId)
       throws SQLException {
     try (PreparedStatement ps =
         connection.prepareStatement(
-            """
-            SELECT id_catalog, nombre, descripcion, origen, n, fecha_creacion
-            FROM catalog WHERE id_catalog = ?
-            """)) {
+            "SELECT " + CATALOG_COLUMNS + " FROM catalog WHERE id_catalog = ?")) {
       ps.setLong(1, catalogId);
       try (ResultSet rs = ps.executeQuery()) {
         if (rs.next()) {
@@ -275,28 +752,59 @@ public final class CatalogRepository {
     }
   }
 
-  private List<ProcessRecord> findProcessesForCatalog(Connection connection, long catalogId)
+  /** Devuelve los cgroups del catalogo en el orden en que se capturaron. */
+  public List<CatalogCgroup> findCgroups(long catalogId) {
+    try (Connection connection = dataSource.getConnection()) {
+      return findCgroupsForCatalog(connection, catalogId);
+    } catch (SQLException ex) {
+      throw new IllegalStateException("Error al obtener cgroups", ex);
+    }
+  }
+
+  private List<CatalogCgroup> findCgroupsForCatalog(Connection connection, long catalogId)
       throws SQLException {
-    List<ProcessRecord> list = new ArrayList<>();
+    List<CatalogCgroup> list = new ArrayList<>();
     try (PreparedStatement ps =
         connection.prepareStatement(
             """
-            SELECT id_process, id_catalog, pid, nombre, usuario, prioridad, expulsivo,
-                   cpu_pct, mem_mb, descripcion, file_path, created_at
-            FROM process
+            SELECT id_cgroup, ruta, nombre, cpu_pct, mem_mb, io_read_kbs, io_write_kbs, procesos
+            FROM catalog_cgroup
             WHERE id_catalog = ?
-            ORDER BY created_at DESC
+            ORDER BY id_cgroup
             """)) {
       ps.setLong(1, catalogId);
       try (ResultSet rs = ps.executeQuery()) {
         while (rs.next()) {
-          list.add(mapProcess(rs));
+          list.add(
+              new CatalogCgroup(
+                  rs.getLong("id_cgroup"),
+                  rs.getString("ruta"),
+                  rs.getString("nombre"),
+                  rs.getBigDecimal("cpu_pct"),
+                  rs.getBigDecimal("mem_mb"),
+                  rs.getBigDecimal("io_read_kbs"),
+                  rs.getBigDecimal("io_write_kbs"),
+                  rs.getInt("procesos")));
         }
       }
     }
     return list;
   }
 
+  private List<ProcessRecord> findProcessesForCatalog(Connection connection, long catalogId)
+      throws SQLException {
+    List<ProcessRecord> list = new ArrayList<>();
+    try (PreparedStatement ps = connection.prepareStatement(CATALOG_PROCESSES_SQL)) {
+      ps.setLong(1, catalogId);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          list.add(mapProcess(rs));
+        }
+      }
+    }
+    return attachThreads(connection, list);
+  }
+
   private ProcessRecord mapProcess(ResultSet rs) throws SQLException {
     BigDecimal cpu = rs.getBigDecimal("cpu_pct");
     BigDecimal mem = rs.getBigDecimal("mem_mb");
@@ -311,6 +819,8 @@ public final class CatalogRepository {
         .setExpulsivo(rs.getBoolean("expulsivo"))
         .setCpuPct(cpu)
         .setMemMb(mem)
+        .setIoReadKbs(rs.getBigDecimal("io_read_kbs"))
+        .setIoWriteKbs(rs.getBigDecimal("io_write_kbs"))
         .setDescripcion(rs.getString("descripcion"))
         .setFilePath(rs.getString("file_path"))
         .setCreatedAt(createdTs == null ? null : createdTs.toInstant())
@@ -319,7 +829,26 @@ public final class CatalogRepository {
 
   public PagedResult<ProcessRecord> findProcesses(
       long catalogId, ProcessFilter filter, ProcessSort sort, int page, int size) {
-    int offset = (page - 1) * size;
+    return findProcesses(catalogId, filter, sort, page, size, null, PageCount.EXACT);
+  }
+
+  /**
+   * Lista procesos desde el cursor si se indica, igual que {@link #findCatalogs(Optional,
+   * Optional, CatalogSort, int, int, PageCursor, PageCount)}. Sin filtros el total es la cantidad
+   * de procesos guardada en el catalogo y no se cuentan filas.
+   *
+   * @param after cursor devuelto con la pagina anterior, o {@code null}
+   * @param count como calcular el total cuando hay filtros
+   */
+  public PagedResult<ProcessRecord> findProcesses(
+      long catalogId,
+      ProcessFilter filter,
+      ProcessSort sort,
+      int page,
+      int size,
+      PageCursor after,
+      PageCount count) {
+    int offset = after == null ? (page - 1) * size : 0;
     List<String> conditions = new ArrayList<>();
     List<Object> params = new ArrayList<>();
     conditions.add("id_catalog = ?");
@@ -328,7 +857,7 @@ public final class CatalogRepository {
         .usuario()
         .ifPresent(
             value -> {
-              conditions.add("LOWER(usuario) = ?");
+              conditions.add("usuario_lc = ?");
               params.add(value.toLowerCase());
             });
     filter
@@ -338,13 +867,20 @@ public final class CatalogRepository {
               conditions.add("expulsivo = ?");
               params.add(value);
             });
-    filter
-        .nombreLike()
-        .ifPresent(
-            value -> {
-              conditions.add("LOWER(nombre) LIKE ?");
-              params.add("%" + value.toLowerCase() + "%");
-            });
+    Optional<String> nombre = filter.nombreLike().map(String::toLowerCase);
+    if (nombre.isPresent()) {
+      String term = nombre.get();
+      // El indice ngram da los ids candidatos solo si son pocos; LIKE confirma el fragmento exacto.
+      // Sin coincidencias se sigue con LIKE, que tambien encuentra lo que el indice no tokenizo.
+      List<Long> ids = matchNameIds(catalogId, term);
+      if (ids != null && !ids.isEmpty()) {
+        conditions.add(
+            "id_process IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")");
+        params.addAll(ids);
+      }
+      conditions.add("nombre_lc LIKE ?");
+      params.add("%" + term + "%");
+    }
     filter
         .pid()
         .ifPresent(
@@ -353,58 +889,157 @@ public final class CatalogRepository {
               params.add(value);
             });
 
+    boolean filtered = conditions.size() > 1;
     String where = " WHERE " + String.join(" AND ", conditions);
-    String sql =
-        "SELECT id_process, id_catalog, pid, nombre, usuario, prioridad, expulsivo, cpu_pct,"
-            + " mem_mb, descripcion, file_path, created_at FROM process "
-            + where
-            + " ORDER BY "
-            + sort.sql()
-            + " LIMIT ? OFFSET ?";
-    String count = "SELECT COUNT(1) FROM process" + where;
+    List<Object> countParams = List.copyOf(params);
+    String pageWhere = where;
+    if (after != null) {
+      conditions.add(
+          seekCondition(
+              sort.name(), sort.column(), "id_process", sort.descending(), after, params));
+      pageWhere = " WHERE " + String.join(" AND ", conditions);
+    }
+    String sql = processPageSql(pageWhere, sort);
 
     try (Connection connection = dataSource.getConnection()) {
       connection.setAutoCommit(false);
-      long total = executeCount(connection, count, params);
+      long total =
+          filtered || count == PageCount.NONE
+              ? countRows(connection, count, "process", where, countParams)
+              : executeCount(
+                  connection, "SELECT procesos FROM catalog WHERE id_catalog = ?", countParams);
       List<ProcessRecord> content = new ArrayList<>();
+      String lastValue = null;
+      boolean more = false;
       try (PreparedStatement ps = connection.prepareStatement(sql)) {
         int index = 1;
         for (Object param : params) {
           ps.setObject(index++, param);
         }
-        ps.setInt(index++, size);
+        ps.setInt(index++, size + 1);
         ps.setInt(index, offset);
         try (ResultSet rs = ps.executeQuery()) {
           while (rs.next()) {
+            if (content.size() == size) {
+              more = true;
+              break;
+            }
             content.add(mapProcess(rs));
+            lastValue = sortValue(rs, sort.column());
           }
         }
       }
+      content = attachThreads(connection, content);
       connection.commit();
-      return new PagedResult<>(content, page, size, total);
+      PageCursor next =
+          more ? new PageCursor(sort.name(), lastValue, content.get(size - 1).getId()) : null;
+      boolean exact = count == PageCount.EXACT || (!filtered && count == PageCount.ESTIMATE);
+      return new PagedResult<>(content, page, size, total, next, exact);
     } catch (SQLException ex) {
       throw new IllegalStateException("Error al listar procesos", ex);
     }
   }
 
+  /**
+   * Busca en el indice ngram los procesos del catalogo cuyo nombre contiene el fragmento. Con
+   * {@code MATCH} en la consulta de la pagina MySQL la guia desde el indice FULLTEXT y vuelve a
+   * ordenar en memoria; como filtro previo de ids solo se usa cuando las coincidencias son pocas.
+   *
+   * @return los ids, o {@code null} si el fragmento no se busca en el indice o las coincidencias
+   *     superan {@link #NAME_PREFILTER_LIMIT}
+   */
+  private List<Long> matchNameIds(long catalogId, String term) {
+    try (Connection connection = dataSource.getConnection()) {
+      if (!usesNameIndex(term, ngramTokenSize(connection))) {
+        return null;
+      }
+      List<Long> ids = new ArrayList<>();
+      try (PreparedStatement ps =
+          connection.prepareStatement(
+              """
+              SELECT id_process FROM process
+              WHERE MATCH(nombre) AGAINST (? IN BOOLEAN MODE) AND id_catalog = ?
+              LIMIT ?
+              """)) {
+        ps.setString(1, '"' + term + '"');
+        ps.setLong(2, catalogId);
+        ps.setInt(3, NAME_PREFILTER_LIMIT + 1);
+        try (ResultSet rs = ps.executeQuery()) {
+          while (rs.next()) {
+            ids.add(rs.getLong(1));
+          }
+        }
+      }
+      connection.commit();
+      return ids.size() > NAME_PREFILTER_LIMIT ? null : ids;
+    } catch (SQLException ex) {
+      throw new IllegalStateException("Error al buscar procesos por nombre", ex);
+    }
+  }
+
+  /** {@code ngram_token_size} del servidor, leido una vez por repositorio. */
+  private int ngramTokenSize(Connection connection) {
+    int size = ngramTokenSize;
+    if (size > 0) {
+      return size;
+    }
+    size = DEFAULT_NGRAM_TOKEN_SIZE;
+    try (Statement st = connection.createStatement();
+        ResultSet rs = st.executeQuery("SELECT @@ngram_token_size")) {
+      if (rs.next() && rs.getInt(1) > 0) {
+        size = rs.getInt(1);
+      }
+    } catch (SQLException ex) {
+      LOGGER.warn("No se pudo leer ngram_token_size, se asume {}", size);
+    }
+    ngramTokenSize = size;
+    return size;
+  }
+
+  /** Pagina de catalogos; recibe {@code LIMIT} y {@code OFFSET} despues de las condiciones. */
+  static String catalogPageSql(String pageWhere, CatalogSort sort) {
+    return "SELECT "
+        + CATALOG_COLUMNS
+        + " FROM catalog"
+        + pageWhere
+        + " ORDER BY "
+        + sort.sql()
+        + " LIMIT ? OFFSET ?";
+  }
+
+  /** Pagina de procesos; recibe {@code LIMIT} y {@code OFFSET} despues de las condiciones. */
+  static String processPageSql(String pageWhere, ProcessSort sort) {
+    return "SELECT id_process, id_catalog, pid, nombre, usuario, prioridad, expulsivo, cpu_pct,"
+        + " mem_mb, io_read_kbs, io_write_kbs, descripcion, file_path, created_at"
+        + " FROM process "
+        + pageWhere
+        + " ORDER BY "
+        + sort.sql()
+        + " LIMIT ? OFFSET ?";
+  }
+
   public Optional<ProcessRecord> findProcess(long catalogId, long processId) {
     try (Connection connection = dataSource.getConnection();
         PreparedStatement ps =
             connection.prepareStatement(
                 """
                 SELECT id_process, id_catalog, pid, nombre, usuario, prioridad, expulsivo,
-                       cpu_pct, mem_mb, descripcion, file_path, created_at
+                       cpu_pct, mem_mb, io_read_kbs, io_write_kbs, descripcion, file_path,
+                       created_at
                 FROM process
                 WHERE id_catalog = ? AND id_process = ?
                 """)) {
       ps.setLong(1, catalogId);
       ps.setLong(2, processId);
+      ProcessRecord found = null;
       try (ResultSet rs = ps.executeQuery()) {
         if (rs.next()) {
-          return Optional.of(mapProcess(rs));
+          found = mapProcess(rs);
         }
       }
-      return Optional.empty();
+      return found == null
+          ? Optional.empty()
+          : Optional.of(attachThreads(connection, List.of(found)).get(0));
     } catch (SQLException ex) {
       throw new IllegalStateException("Error al obtener proceso", ex);
     }
@@ -442,28 +1077,109 @@ public final class CatalogRepository {
     sql.append(" WHERE id_catalog = ? AND id_process = ?");
     params.add(catalogId);
     params.add(processId);
-    try (Connection connection = dataSource.getConnection();
-        PreparedStatement ps = connection.prepareStatement(sql.toString())) {
-      int index = 1;
-      for (Object param : params) {
-        ps.setObject(index++, param);
+    try (Connection connection = dataSource.getConnection()) {
+      if (update.expulsivo().isPresent()) {
+        adjustExpulsivos(connection, catalogId, processId, update.expulsivo().get());
+      }
+      try (PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+        int index = 1;
+        for (Object param : params) {
+          ps.setObject(index++, param);
+        }
+        ps.executeUpdate();
       }
-      ps.executeUpdate();
       connection.commit();
     } catch (SQLException ex) {
       throw new IllegalStateException("Error al actualizar proceso", ex);
     }
   }
 
-  public void deleteProcess(long catalogId, long processId) {
-    try (Connection connection = dataSource.getConnection();
-        PreparedStatement ps =
-            connection.prepareStatement(
-                "DELETE FROM process WHERE id_catalog = ? AND id_process = ?")) {
+  /**
+   * Ajusta la cantidad de expulsivos del catalogo si el proceso cambia de valor. La fila del
+   * proceso queda bloqueada hasta el commit para que dos cambios simultaneos no cuenten dos veces.
+   */
+  private void adjustExpulsivos(
+      Connection connection, long catalogId, long processId, boolean expulsivo)
+      throws SQLException {
+    try (PreparedStatement ps =
+        connection.prepareStatement(
+            "SELECT expulsivo FROM process WHERE id_catalog = ? AND id_process = ? FOR UPDATE")) {
       ps.setLong(1, catalogId);
       ps.setLong(2, processId);
+      try (ResultSet rs = ps.executeQuery()) {
+        if (!rs.next() || rs.getBoolean(1) == expulsivo) {
+          return;
+        }
+      }
+    }
+    try (PreparedStatement ps =
+        connection.prepareStatement(
+            "UPDATE catalog SET expulsivos = expulsivos + ? WHERE id_catalog = ?")) {
+      ps.setInt(1, expulsivo ? 1 : -1);
+      ps.setLong(2, catalogId);
       ps.executeUpdate();
+    }
+  }
+
+  /**
+   * Elimina el proceso y descuenta sus valores de los totales del catalogo.
+   *
+   * @return el {@code file_path} del proceso eliminado, leido en la misma transaccion
+   */
+  public List<String> deleteProcess(long catalogId, long processId) {
+    try (Connection connection = dataSource.getConnection()) {
+      List<String> filePaths = new ArrayList<>();
+      CatalogTotals removed;
+      try (PreparedStatement ps =
+          connection.prepareStatement(
+              """
+              SELECT file_path, cpu_pct, mem_mb, expulsivo
+              FROM process WHERE id_catalog = ? AND id_process = ? FOR UPDATE
+              """)) {
+        ps.setLong(1, catalogId);
+        ps.setLong(2, processId);
+        try (ResultSet rs = ps.executeQuery()) {
+          if (!rs.next()) {
+            connection.commit();
+            return filePaths;
+          }
+          if (rs.getString(1) != null) {
+            filePaths.add(rs.getString(1));
+          }
+          BigDecimal cpu = rs.getBigDecimal(2);
+          BigDecimal mem = rs.getBigDecimal(3);
+          removed =
+              new CatalogTotals(
+                  1,
+                  cpu == null ? BigDecimal.ZERO : cpu,
+                  mem == null ? BigDecimal.ZERO : mem,
+                  rs.getBoolean(4) ? 1 : 0);
+        }
+      }
+      try (PreparedStatement ps =
+          connection.prepareStatement(
+              "DELETE FROM process WHERE id_catalog = ? AND id_process = ?")) {
+        ps.setLong(1, catalogId);
+        ps.setLong(2, processId);
+        ps.executeUpdate();
+      }
+      try (PreparedStatement ps =
+          connection.prepareStatement(
+              """
+              UPDATE catalog
+              SET procesos = procesos - ?, cpu_total = cpu_total - ?,
+                  mem_total = mem_total - ?, expulsivos = expulsivos - ?
+              WHERE id_catalog = ?
+              """)) {
+        ps.setInt(1, removed.procesos());
+        ps.setBigDecimal(2, removed.cpuPct());
+        ps.setBigDecimal(3, removed.memMb());
+        ps.setInt(4, removed.expulsivos());
+        ps.setLong(5, catalogId);
+        ps.executeUpdate();
+      }
       connection.commit();
+      return filePaths;
     } catch (SQLException ex) {
       throw new IllegalStateException("Error al eliminar proceso", ex);
     }
@@ -484,15 +1200,74 @@ public final class CatalogRepository {
     }
   }
 
-  public void deleteCatalog(long catalogId) {
-    try (Connection connection = dataSource.getConnection();
-        PreparedStatement ps =
-            connection.prepareStatement("DELETE FROM catalog WHERE id_catalog = ?")) {
-      ps.setLong(1, catalogId);
-      ps.executeUpdate();
+  /**
+   * Elimina el catalogo junto con sus procesos.
+   *
+   * @return los {@code file_path} de los procesos eliminados, leidos en la misma transaccion
+   */
+  public List<String> deleteCatalog(long catalogId) {
+    try (Connection connection = dataSource.getConnection()) {
+      List<String> filePaths = selectFilePaths(connection, catalogId);
+      try (PreparedStatement ps =
+          connection.prepareStatement("DELETE FROM catalog WHERE id_catalog = ?")) {
+        ps.setLong(1, catalogId);
+        ps.executeUpdate();
+      }
       connection.commit();
+      return filePaths;
     } catch (SQLException ex) {
       throw new IllegalStateException("Error al eliminar catálogo", ex);
     }
   }
+
+  /**
+   * Deja en {@code NULL} el {@code file_path} de los procesos que apuntan a descripciones que no
+   * se pudieron escribir. {@code file_path} no tiene indice, asi que cada bloque recorre la tabla;
+   * se usa solo ante fallas de escritura, que son raras.
+   *
+   * @return procesos actualizados
+   */
+  public int clearFilePaths(List<String> filePaths) {
+    if (filePaths.isEmpty()) {
+      return 0;
+    }
+    int updated = 0;
+    try (Connection connection = dataSource.getConnection()) {
+      for (int from = 0; from < filePaths.size(); from += insertChunkSize) {
+        List<String> chunk =
+            filePaths.subList(from, Math.min(from + insertChunkSize, filePaths.size()));
+        String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+        try (PreparedStatement ps =
+            connection.prepareStatement(
+                "UPDATE process SET file_path = NULL WHERE file_path IN (" + placeholders + ")")) {
+          for (int i = 0; i < chunk.size(); i++) {
+            ps.setString(i + 1, chunk.get(i));
+          }
+          updated += ps.executeUpdate();
+        }
+      }
+      connection.commit();
+      return updated;
+    } catch (SQLException ex) {
+      throw new IllegalStateException("Error al limpiar archivos de procesos", ex);
+    }
+  }
+
+  private List<String> selectFilePaths(Connection connection, long catalogId)
+      throws SQLException {
+    List<String> filePaths = new ArrayList<>();
+    try (PreparedStatement ps =
+        connection.prepareStatement("SELECT file_path FROM process WHERE id_catalog = ?")) {
+      ps.setLong(1, catalogId);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          String filePath = rs.getString(1);
+          if (filePath != null) {
+            filePaths.add(filePath);
+          }
+        }
+      }
+    }
+    return filePaths;
+  }
 }
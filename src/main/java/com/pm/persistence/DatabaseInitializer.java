@@ -1,10 +1,14 @@
 package com.pm.persistence;
 
+import com.pm.domain.catalog.CatalogSort;
+import com.pm.domain.process.ProcessSort;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,7 +36,11 @@ public final class DatabaseInitializer {
               descripcion    VARCHAR(5000),
               origen         VARCHAR(8) NOT NULL,
               n              INT NOT NULL,
-              fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+              fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+              procesos       INT NOT NULL DEFAULT 0,
+              cpu_total      DECIMAL(14,2) NOT NULL DEFAULT 0,
+              mem_total      DECIMAL(16,2) NOT NULL DEFAULT 0,
+              expulsivos     INT NOT NULL DEFAULT 0
             )
             """);
         st.execute(
@@ -47,21 +55,68 @@ public final class DatabaseInitializer {
               expulsivo    BOOLEAN NOT NULL DEFAULT TRUE,
               cpu_pct      DECIMAL(6,2),
               mem_mb       DECIMAL(12,2),
+              io_read_kbs  DECIMAL(14,2),
+              io_write_kbs DECIMAL(14,2),
               descripcion  VARCHAR(5000),
               file_path    VARCHAR(300),
               created_at   TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+              usuario_lc   VARCHAR(80) AS (LOWER(usuario)) VIRTUAL,
+              nombre_lc    VARCHAR(120) AS (LOWER(nombre)) VIRTUAL,
               CONSTRAINT fk_process_catalog FOREIGN KEY (id_catalog)
                 REFERENCES catalog(id_catalog) ON DELETE CASCADE
             )
             """);
+        st.execute(
+            """
+            CREATE TABLE IF NOT EXISTS process_thread (
+              id_thread    BIGINT PRIMARY KEY AUTO_INCREMENT,
+              id_process   BIGINT NOT NULL,
+              tid          BIGINT NOT NULL,
+              nombre       VARCHAR(64),
+              cpu_pct      DECIMAL(6,2),
+              CONSTRAINT fk_thread_process FOREIGN KEY (id_process)
+                REFERENCES process(id_process) ON DELETE CASCADE
+            )
+            """);
+        st.execute(
+            """
+            CREATE TABLE IF NOT EXISTS catalog_cgroup (
+              id_cgroup    BIGINT PRIMARY KEY AUTO_INCREMENT,
+              id_catalog   BIGINT NOT NULL,
+              ruta         VARCHAR(512) NOT NULL,
+              nombre       VARCHAR(120) NOT NULL,
+              cpu_pct      DECIMAL(6,2),
+              mem_mb       DECIMAL(12,2),
+              io_read_kbs  DECIMAL(14,2),
+              io_write_kbs DECIMAL(14,2),
+              procesos     INT NOT NULL DEFAULT 0,
+              CONSTRAINT fk_cgroup_catalog FOREIGN KEY (id_catalog)
+                REFERENCES catalog(id_catalog) ON DELETE CASCADE
+            )
+            """);
+      }
+      // Tablas creadas antes de medir disco.
+      ensureColumn(connection, "process", "io_read_kbs", "DECIMAL(14,2) AFTER mem_mb");
+      ensureColumn(connection, "process", "io_write_kbs", "DECIMAL(14,2) AFTER io_read_kbs");
+      // Catalogos creados antes de guardar totales: se calculan al agregar las columnas.
+      boolean totalsAdded =
+          ensureColumn(connection, "catalog", "procesos", "INT NOT NULL DEFAULT 0");
+      totalsAdded |=
+          ensureColumn(connection, "catalog", "cpu_total", "DECIMAL(14,2) NOT NULL DEFAULT 0");
+      totalsAdded |=
+          ensureColumn(connection, "catalog", "mem_total", "DECIMAL(16,2) NOT NULL DEFAULT 0");
+      totalsAdded |= ensureColumn(connection, "catalog", "expulsivos", "INT NOT NULL DEFAULT 0");
+      if (totalsAdded) {
+        backfillCatalogTotals(connection);
       }
-      ensureIndex(
-          connection,
-          "process",
-          "idx_process_catalog",
-          "CREATE INDEX idx_process_catalog ON process(id_catalog)");
       ensureIndex(
           connection, "process", "idx_process_pid", "CREATE INDEX idx_process_pid ON process(pid)");
+      ensureCatalogListingIndexes(connection);
+      ensureProcessListingIndexes(connection);
+      // Bases creadas antes de los indices compuestos: cualquiera de ellos sirve a la clave foranea,
+      // y los del filtro de usuario empiezan por (id_catalog, usuario_lc).
+      dropIndex(connection, "process", "idx_process_catalog");
+      dropIndex(connection, "process", "idx_process_catalog_usuario_lc");
       connection.commit();
       LOGGER.info("Database schema verified");
     } catch (SQLException ex) {
@@ -80,6 +135,140 @@ public final class DatabaseInitializer {
     }
   }
 
+  private void dropIndex(Connection connection, String tableName, String indexName)
+      throws SQLException {
+    if (!indexExists(connection, tableName, indexName)) {
+      return;
+    }
+    try (Statement st = connection.createStatement()) {
+      st.execute("DROP INDEX " + indexName + " ON " + tableName);
+    }
+  }
+
+  /**
+   * Indices para listar catalogos sin ordenar en memoria: uno {@code (columna, id_catalog)} por
+   * cada columna de {@link CatalogSort}, que coincide con su {@code ORDER BY} y con la condicion
+   * del cursor.
+   */
+  private void ensureCatalogListingIndexes(Connection connection) throws SQLException {
+    Set<String> columns = new LinkedHashSet<>();
+    for (CatalogSort sort : CatalogSort.values()) {
+      columns.add(sort.column());
+    }
+    for (String column : columns) {
+      String name = "idx_catalog_" + column;
+      ensureIndex(
+          connection,
+          "catalog",
+          name,
+          "CREATE INDEX " + name + " ON catalog(" + column + ", id_catalog)");
+    }
+  }
+
+  /**
+   * Indices para listar los procesos de un catalogo sin ordenar en memoria: uno compuesto {@code
+   * (id_catalog, columna, id_process)} por cada columna de {@link ProcessSort}, que coincide con su
+   * {@code ORDER BY} y con la condicion del cursor, y otro {@code (id_catalog, usuario_lc, columna,
+   * id_process)} para el filtro de usuario, que es una igualdad. Las columnas generadas en
+   * minusculas permiten filtrar por usuario y nombre sin aplicar {@code LOWER} a cada fila. La busqueda de nombres por
+   * fragmento usa un indice FULLTEXT con el analizador ngram; se crea sin palabras vacias porque el
+   * analizador descarta los n-gramas que las contienen.
+   */
+  private void ensureProcessListingIndexes(Connection connection) throws SQLException {
+    ensureColumn(connection, "process", "usuario_lc", "VARCHAR(80) AS (LOWER(usuario)) VIRTUAL");
+    ensureColumn(connection, "process", "nombre_lc", "VARCHAR(120) AS (LOWER(nombre)) VIRTUAL");
+    Set<String> columns = new LinkedHashSet<>();
+    for (ProcessSort sort : ProcessSort.values()) {
+      columns.add(sort.column());
+    }
+    for (String column : columns) {
+      String name = "idx_process_catalog_" + column;
+      ensureIndex(
+          connection,
+          "process",
+          name,
+          "CREATE INDEX " + name + " ON process(id_catalog, " + column + ", id_process)");
+      String userName = "idx_process_usuario_" + column;
+      ensureIndex(
+          connection,
+          "process",
+          userName,
+          "CREATE INDEX "
+              + userName
+              + " ON process(id_catalog, usuario_lc, "
+              + column
+              + ", id_process)");
+    }
+    if (!indexExists(connection, "process", "ft_process_nombre")) {
+      try (Statement st = connection.createStatement()) {
+        st.execute("SET SESSION innodb_ft_enable_stopword = OFF");
+        try {
+          st.execute(
+              "CREATE FULLTEXT INDEX ft_process_nombre ON process(nombre) WITH PARSER ngram");
+        } finally {
+          // La conexion vuelve al pool: no debe llevar el ajuste de sesion a otros usos.
+          st.execute("SET SESSION innodb_ft_enable_stopword = DEFAULT");
+        }
+      }
+    }
+  }
+
+  /**
+   * @return {@code true} si la columna no existia y se agrego
+   */
+  private boolean ensureColumn(
+      Connection connection, String tableName, String columnName, String definition)
+      throws SQLException {
+    if (columnExists(connection, tableName, columnName)) {
+      return false;
+    }
+    try (Statement st = connection.createStatement()) {
+      st.execute("ALTER TABLE " + tableName + " ADD COLUMN " + columnName + " " + definition);
+    }
+    return true;
+  }
+
+  private void backfillCatalogTotals(Connection connection) throws SQLException {
+    try (Statement st = connection.createStatement()) {
+      int updated =
+          st.executeUpdate(
+              """
+              UPDATE catalog c
+              JOIN (
+                SELECT id_catalog,
+                       COUNT(1) AS procesos,
+                       COALESCE(SUM(cpu_pct), 0) AS cpu_total,
+                       COALESCE(SUM(mem_mb), 0) AS mem_total,
+                       SUM(expulsivo) AS expulsivos
+                FROM process
+                GROUP BY id_catalog
+              ) t ON t.id_catalog = c.id_catalog
+              SET c.procesos = t.procesos,
+                  c.cpu_total = t.cpu_total,
+                  c.mem_total = t.mem_total,
+                  c.expulsivos = t.expulsivos
+              """);
+      LOGGER.info("Catalog totals backfilled for {} catalogs", updated);
+    }
+  }
+
+  private boolean columnExists(Connection connection, String tableName, String columnName)
+      throws SQLException {
+    String sql =
+        """
+        SELECT COUNT(1)
+        FROM information_schema.columns
+        WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?
+        """;
+    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+      ps.setString(1, tableName);
+      ps.setString(2, columnName);
+      try (ResultSet rs = ps.executeQuery()) {
+        return rs.next() && rs.getInt(1) > 0;
+      }
+    }
+  }
+
   private boolean indexExists(Connection connection, String tableName, String indexName)
       throws SQLException {
     String sql =
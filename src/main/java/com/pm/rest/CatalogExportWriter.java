@@ -0,0 +1,94 @@
+package com.pm.rest;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pm.domain.catalog.CatalogCgroup;
+import com.pm.domain.catalog.CatalogMetadata;
+import com.pm.rest.dto.CatalogExportResponse;
+import com.pm.service.CatalogService;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Escribe la exportacion JSON de un catalogo a medida que se leen sus procesos, con el mismo
+ * formato que {@link CatalogExportResponse}. Solo se mantiene en memoria el bloque de procesos que
+ * trae la base y el DTO que se esta escribiendo, no la lista completa.
+ */
+public final class CatalogExportWriter {
+
+  private final ObjectMapper mapper;
+  private final ObjectWriter writer;
+
+  public CatalogExportWriter(ObjectMapper mapper) {
+    this.mapper = mapper;
+    this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+  }
+
+  /**
+   * Escribe el catalogo en {@code out}, que queda abierto. Si el catalogo no existe no se escribe
+   * nada; si la lectura falla a mitad de camino el JSON queda incompleto.
+   *
+   * @param pretty indenta la salida
+   * @return los metadatos del catalogo exportado
+   * @throws com.pm.domain.ResourceNotFoundException si el catalogo no existe
+   */
+  public CatalogMetadata write(
+      CatalogService catalogService, long catalogId, OutputStream out, boolean pretty)
+      throws IOException {
+    List<CatalogMetadata> exported = new ArrayList<>(1);
+    List<CatalogCgroup> cgroups = new ArrayList<>();
+    try (JsonGenerator json = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+      // Un error a mitad de camino no debe cerrar los objetos abiertos y dejar un JSON valido.
+      json.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+      json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      if (pretty) {
+        json.useDefaultPrettyPrinter();
+      }
+      catalogService.streamCatalog(
+          catalogId,
+          (metadata, catalogCgroups) -> {
+            exported.add(metadata);
+            cgroups.addAll(catalogCgroups);
+            unchecked(
+                () -> {
+                  json.writeStartObject();
+                  json.writeFieldName("catalogo");
+                  writer.writeValue(json, RestMapper.toCatalogDetail(metadata));
+                  json.writeArrayFieldStart("procesos");
+                });
+          },
+          processRecord ->
+              unchecked(
+                  () -> writer.writeValue(json, RestMapper.toProcessResponse(processRecord))));
+      json.writeEndArray();
+      json.writeArrayFieldStart("cgroups");
+      for (CatalogCgroup cgroup : cgroups) {
+        writer.writeValue(json, RestMapper.toCgroupResponse(cgroup));
+      }
+      json.writeEndArray();
+      json.writeEndObject();
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+    return exported.get(0);
+  }
+
+  private static void unchecked(JsonWrite write) {
+    try {
+      write.run();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  @FunctionalInterface
+  private interface JsonWrite {
+    void run() throws IOException;
+  }
+}
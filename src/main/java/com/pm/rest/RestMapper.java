@@ -1,18 +1,29 @@
 package com.pm.rest;
 
+import com.pm.domain.AggregationMode;
+import com.pm.domain.CpuSampling;
+import com.pm.domain.CpuStatistic;
 import com.pm.domain.PagedResult;
+import com.pm.domain.ProcessAggregation;
 import com.pm.domain.SelectionCriterion;
 import com.pm.domain.catalog.Catalog;
+import com.pm.domain.catalog.CatalogCgroup;
 import com.pm.domain.catalog.CatalogImportPayload;
 import com.pm.domain.catalog.CatalogMetadata;
+import com.pm.domain.catalog.CatalogTotals;
 import com.pm.domain.process.ProcessImport;
 import com.pm.domain.process.ProcessRecord;
+import com.pm.domain.process.ProcessThread;
+import com.pm.rest.dto.CatalogCreateRequest;
 import com.pm.rest.dto.CatalogDetailResponse;
 import com.pm.rest.dto.CatalogExportResponse;
 import com.pm.rest.dto.CatalogImportRequest;
 import com.pm.rest.dto.CatalogResponse;
+import com.pm.rest.dto.CgroupResponse;
 import com.pm.rest.dto.PagedResponse;
 import com.pm.rest.dto.ProcessResponse;
+import com.pm.rest.dto.ThreadResponse;
+import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
@@ -32,36 +43,50 @@ public final class RestMapper {
         catalog.getOrigen().name(),
         catalog.getN(),
         catalog.getFechaCreacion(),
-        catalog.getProcesos().size());
+        catalog.getProcesos().size(),
+        catalog.getCgroups().size());
   }
 
   public static CatalogDetailResponse toCatalogDetail(Catalog catalog) {
+    CatalogTotals totals = CatalogTotals.of(catalog.getProcesos());
     return new CatalogDetailResponse(
         catalog.getId(),
         catalog.getNombre(),
         catalog.getDescripcion(),
         catalog.getOrigen().name(),
         catalog.getN(),
-        catalog.getFechaCreacion());
+        catalog.getFechaCreacion(),
+        totals.procesos(),
+        totals.cpuPct(),
+        totals.memMb(),
+        totals.expulsivos());
   }
 
   public static CatalogDetailResponse toCatalogDetail(CatalogMetadata metadata) {
+    CatalogTotals totals = metadata.totales();
     return new CatalogDetailResponse(
         metadata.id(),
         metadata.nombre(),
         metadata.descripcion(),
         metadata.origen().name(),
         metadata.n(),
-        metadata.fechaCreacion());
+        metadata.fechaCreacion(),
+        totals.procesos(),
+        totals.cpuPct(),
+        totals.memMb(),
+        totals.expulsivos());
   }
 
-  public static CatalogExportResponse toExportResponse(Catalog catalog) {
-    CatalogDetailResponse detail = toCatalogDetail(catalog);
-    List<ProcessResponse> processes =
-        catalog.getProcesos().stream()
-            .map(RestMapper::toProcessResponse)
-            .collect(Collectors.toList());
-    return new CatalogExportResponse(detail, processes);
+  public static CgroupResponse toCgroupResponse(CatalogCgroup cgroup) {
+    return new CgroupResponse(
+        cgroup.id() == null ? 0 : cgroup.id(),
+        cgroup.ruta(),
+        cgroup.nombre(),
+        cgroup.cpuPct(),
+        cgroup.memMb(),
+        cgroup.ioReadKbs(),
+        cgroup.ioWriteKbs(),
+        cgroup.procesos());
   }
 
   public static ProcessResponse toProcessResponse(ProcessRecord processRecord) {
@@ -74,15 +99,43 @@ public final class RestMapper {
         processRecord.isExpulsivo(),
         processRecord.getCpuPct(),
         processRecord.getMemMb(),
+        processRecord.getIoReadKbs(),
+        processRecord.getIoWriteKbs(),
         processRecord.getDescripcion(),
         processRecord.getFilePath(),
-        processRecord.getCreatedAt());
+        processRecord.getCreatedAt(),
+        processRecord.getHilos().stream()
+            .map(thread -> new ThreadResponse(thread.tid(), thread.nombre(), thread.cpuPct()))
+            .collect(Collectors.toList()));
   }
 
   public static <T, R> PagedResponse<R> toPagedResponse(
       PagedResult<T> paged, Function<T, R> mapper) {
     List<R> content = paged.content().stream().map(mapper).collect(Collectors.toList());
-    return new PagedResponse<>(content, paged.page(), paged.size(), paged.total());
+    String nextCursor = paged.nextCursor() == null ? null : paged.nextCursor().encode();
+    return new PagedResponse<>(
+        content, paged.page(), paged.size(), paged.total(), nextCursor, paged.totalExact());
+  }
+
+  /** Arma el plan de muestreo de CPU; sin campos de muestreo se usa una sola muestra. */
+  public static CpuSampling toCpuSampling(CatalogCreateRequest request) {
+    if (request.muestras() == null
+        && request.ventanaMillis() == null
+        && request.estadistico() == null) {
+      return CpuSampling.single();
+    }
+    return new CpuSampling(
+        request.muestras() == null ? 1 : request.muestras(),
+        request.ventanaMillis() == null ? null : Duration.ofMillis(request.ventanaMillis()),
+        CpuStatistic.fromString(request.estadistico()));
+  }
+
+  public static ProcessAggregation toAggregation(CatalogCreateRequest request) {
+    return new ProcessAggregation(
+        AggregationMode.fromString(request.agrupacion()),
+        request.profundidad() == null
+            ? ProcessAggregation.DEFAULT_TREE_DEPTH
+            : request.profundidad());
   }
 
   public static CatalogImportPayload toImportPayload(CatalogImportRequest request) {
@@ -103,7 +156,14 @@ public final class RestMapper {
                             dto.expulsivo(),
                             dto.descripcion(),
                             dto.cpuPct(),
-                            dto.memMb()))
+                            dto.memMb(),
+                            dto.ioReadKbs(),
+                            dto.ioWriteKbs(),
+                            toThreads(
+                                dto.hilos(),
+                                thread ->
+                                    new ProcessThread(
+                                        thread.tid(), thread.nombre(), thread.cpuPct()))))
                 .collect(Collectors.toList());
     return new CatalogImportPayload(
         request.nombre(), request.descripcion(), origin, request.n(), processes);
@@ -128,7 +188,14 @@ public final class RestMapper {
                             dto.expulsivo(),
                             dto.descripcion(),
                             dto.cpu_pct(),
-                            dto.mem_mb()))
+                            dto.mem_mb(),
+                            dto.io_read_kbs(),
+                            dto.io_write_kbs(),
+                            toThreads(
+                                dto.hilos(),
+                                thread ->
+                                    new ProcessThread(
+                                        thread.tid(), thread.nombre(), thread.cpu_pct()))))
                 .collect(Collectors.toList());
     return new CatalogImportPayload(
         detail == null ? null : detail.nombre(),
@@ -137,4 +204,12 @@ public final class RestMapper {
         detail == null ? 0 : detail.n(),
         processes);
   }
+
+  private static <T> List<ProcessThread> toThreads(
+      List<T> threads, Function<T, ProcessThread> mapper) {
+    if (threads == null) {
+      return List.of();
+    }
+    return threads.stream().filter(Objects::nonNull).map(mapper).collect(Collectors.toList());
+  }
 }
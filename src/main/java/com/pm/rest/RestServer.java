@@ -4,9 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.pm.config.AppConfig;
+import com.pm.domain.CaptureOptions;
+import com.pm.domain.MemoryMetric;
+import com.pm.domain.PageCount;
+import com.pm.domain.PageCursor;
 import com.pm.domain.PagedResult;
 import com.pm.domain.ResourceNotFoundException;
 import com.pm.domain.SelectionCriterion;
+import com.pm.domain.ThreadDrillDown;
 import com.pm.domain.ValidationException;
 import com.pm.domain.catalog.Catalog;
 import com.pm.domain.catalog.CatalogMetadata;
@@ -15,7 +20,6 @@ import com.pm.domain.process.ProcessFilter;
 import com.pm.domain.process.ProcessSort;
 import com.pm.domain.process.ProcessUpdate;
 import com.pm.rest.dto.CatalogCreateRequest;
-import com.pm.rest.dto.CatalogExportResponse;
 import com.pm.rest.dto.CatalogImportRequest;
 import com.pm.rest.dto.CatalogResponse;
 import com.pm.rest.dto.ErrorResponse;
@@ -26,6 +30,7 @@ import com.pm.service.CatalogService;
 import io.javalin.Javalin;
 import io.javalin.http.Context;
 import io.javalin.json.JavalinJackson;
+import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +51,7 @@ public final class RestServer implements AutoCloseable {
 
   private final Javalin app;
   private final CatalogService catalogService;
+  private final CatalogExportWriter exportWriter;
   private final int port;
 
   public RestServer(AppConfig config, CatalogService catalogService) {
@@ -54,6 +60,7 @@ public final class RestServer implements AutoCloseable {
     ObjectMapper mapper = new ObjectMapper();
     mapper.registerModule(new JavaTimeModule());
     mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    this.exportWriter = new CatalogExportWriter(mapper);
     this.app =
         Javalin.create(
             configuration -> {
@@ -84,6 +91,7 @@ public final class RestServer implements AutoCloseable {
     app.delete(CAT_PATH + "/{id}", this::handleDeleteCatalog);
 
     app.get(CAT_PATH + "/{id}/procesos", this::handleListProcesses);
+    app.get(CAT_PATH + "/{id}/cgroups", this::handleListCgroups);
 
     app.get(CAT_PROCESS_PATH, this::handleGetProcess);
     app.patch(CAT_PROCESS_PATH, this::handleUpdateProcess);
@@ -124,8 +132,10 @@ public final class RestServer implements AutoCloseable {
     Optional<String> search = optionalQuery(ctx, "search");
     Optional<SelectionCriterion> origin =
         optionalQuery(ctx, "criterio").map(SelectionCriterion::fromString);
+    PageCursor after = optionalQuery(ctx, "cursor").map(PageCursor::decode).orElse(null);
+    PageCount count = PageCount.fromString(ctx.queryParam("count"));
     PagedResult<CatalogMetadata> paged =
-        catalogService.listCatalogs(search, origin, sort, page, size);
+        catalogService.listCatalogs(search, origin, sort, page, size, after, count);
     PagedResponse<com.pm.rest.dto.CatalogDetailResponse> response =
         RestMapper.toPagedResponse(paged, RestMapper::toCatalogDetail);
     ctx.json(response);
@@ -134,9 +144,19 @@ public final class RestServer implements AutoCloseable {
   private void handleCreateCatalog(Context ctx) {
     CatalogCreateRequest request = ctx.bodyAsClass(CatalogCreateRequest.class);
     SelectionCriterion criterion = SelectionCriterion.fromString(request.criterio());
+    CaptureOptions options =
+        CaptureOptions.builder(criterion, request.n())
+            .setSampling(RestMapper.toCpuSampling(request))
+            .setThreads(
+                Boolean.TRUE.equals(request.hilos())
+                    ? catalogService.getThreadDrillDown()
+                    : ThreadDrillDown.disabled())
+            .setMemory(MemoryMetric.fromString(request.memoria()))
+            .setAggregation(RestMapper.toAggregation(request))
+            .setCgroups(Boolean.TRUE.equals(request.cgroups()))
+            .build();
     Catalog catalog =
-        catalogService.createCatalog(
-            request.nombre(), request.descripcion(), request.n(), criterion);
+        catalogService.createCatalog(request.nombre(), request.descripcion(), options);
     CatalogResponse response = RestMapper.toCatalogResponse(catalog);
     ctx.status(201).json(response);
   }
@@ -164,12 +184,20 @@ public final class RestServer implements AutoCloseable {
             optionalQuery(ctx, "expulsivo").map(Boolean::parseBoolean),
             optionalQuery(ctx, "nombre"),
             optionalQuery(ctx, "pid").map(this::parseLongStrict));
-    var paged = catalogService.listProcesses(catalogId, filter, sort, page, size);
+    PageCursor after = optionalQuery(ctx, "cursor").map(PageCursor::decode).orElse(null);
+    PageCount count = PageCount.fromString(ctx.queryParam("count"));
+    var paged = catalogService.listProcesses(catalogId, filter, sort, page, size, after, count);
     PagedResponse<ProcessResponse> response =
         RestMapper.toPagedResponse(paged, RestMapper::toProcessResponse);
     ctx.json(response);
   }
 
+  private void handleListCgroups(Context ctx) {
+    long catalogId = parseLongPath(ctx, "id");
+    ctx.json(
+        catalogService.listCgroups(catalogId).stream().map(RestMapper::toCgroupResponse).toList());
+  }
+
   private void handleGetProcess(Context ctx) {
     long catalogId = parseLongPath(ctx, "id");
     long processId = parseLongPath(ctx, "idp");
@@ -198,11 +226,11 @@ public final class RestServer implements AutoCloseable {
     ctx.status(204);
   }
 
-  private void handleExportCatalog(Context ctx) {
+  /** Escribe la exportacion directamente en la respuesta a medida que se leen los procesos. */
+  private void handleExportCatalog(Context ctx) throws IOException {
     long catalogId = parseLongPath(ctx, "id");
-    Catalog catalog = catalogService.exportCatalog(catalogId);
-    CatalogExportResponse response = RestMapper.toExportResponse(catalog);
-    ctx.json(response);
+    ctx.contentType("application/json");
+    exportWriter.write(catalogService, catalogId, ctx.outputStream(), false);
   }
 
   private void handleImportCatalog(Context ctx) {
@@ -1,4 +1,23 @@
 package com.pm.rest.dto;
 
-/** Representa el cuerpo de la peticion para crear un catalogo nuevo. */
-public record CatalogCreateRequest(int n, String criterio, String nombre, String descripcion) {}
+/**
+ * Representa el cuerpo de la peticion para crear un catalogo nuevo. {@code muestras}, {@code
+ * ventanaMillis} y {@code estadistico} (MEAN, P95 o MAX) son opcionales y activan el muestreo de
+ * CPU en varios ticks. {@code hilos} opcional pide el detalle de los hilos mas activos y {@code
+ * memoria} (RSS, PSS o USS) la metrica de memoria. {@code agrupacion} (NAME, TREE, USER o NONE)
+ * y {@code profundidad}, para TREE, eligen como se agrupan los procesos. {@code cgroups} opcional
+ * guarda ademas los cgroups v2 de mayor consumo.
+ */
+public record CatalogCreateRequest(
+    int n,
+    String criterio,
+    String nombre,
+    String descripcion,
+    Integer muestras,
+    Long ventanaMillis,
+    String estadistico,
+    Boolean hilos,
+    String memoria,
+    String agrupacion,
+    Integer profundidad,
+    Boolean cgroups) {}
@@ -1,12 +1,20 @@
 package com.pm.rest.dto;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 
-/** DTO con la informacion detallada que se devuelve al consultar un catalogo. */
+/**
+ * DTO con la informacion detallada que se devuelve al consultar un catalogo, con la cantidad de
+ * procesos, la suma de su CPU y memoria y cuantos son expulsivos.
+ */
 public record CatalogDetailResponse(
     long id_catalog,
     String nombre,
     String descripcion,
     String origen,
     int n,
-    Instant fecha_creacion) {}
+    Instant fecha_creacion,
+    int procesos,
+    BigDecimal cpu_total,
+    BigDecimal mem_total,
+    int expulsivos) {}
@@ -2,6 +2,9 @@ package com.pm.rest.dto;
 
 import java.util.List;
 
-/** Envuelve la informacion exportada de un catalogo junto con su lista de procesos. */
+/**
+ * Envuelve la informacion exportada de un catalogo junto con su lista de procesos y, si la captura
+ * los pidio, sus cgroups.
+ */
 public record CatalogExportResponse(
-    CatalogDetailResponse catalogo, List<ProcessResponse> procesos) {}
+    CatalogDetailResponse catalogo, List<ProcessResponse> procesos, List<CgroupResponse> cgroups) {}
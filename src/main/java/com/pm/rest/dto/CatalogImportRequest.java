@@ -19,5 +19,12 @@ public record CatalogImportRequest(
       String descripcion,
       String filePath,
       java.math.BigDecimal cpuPct,
-      java.math.BigDecimal memMb) {}
+      java.math.BigDecimal memMb,
+      java.math.BigDecimal ioReadKbs,
+      java.math.BigDecimal ioWriteKbs,
+      List<ImportThreadDto> hilos) {}
+
+  /** Hilo declarado dentro de un proceso importado. */
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public record ImportThreadDto(long tid, String nombre, java.math.BigDecimal cpuPct) {}
 }
@@ -9,4 +9,5 @@ public record CatalogResponse(
     String origen,
     int n,
     Instant fecha_creacion,
-    int total_procesos) {}
+    int total_procesos,
+    int total_cgroups) {}
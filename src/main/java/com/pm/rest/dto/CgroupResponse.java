@@ -0,0 +1,14 @@
+package com.pm.rest.dto;
+
+import java.math.BigDecimal;
+
+/** Representa un cgroup capturado con un catalogo al exponerlo por REST. */
+public record CgroupResponse(
+    long id_cgroup,
+    String ruta,
+    String nombre,
+    BigDecimal cpu_pct,
+    BigDecimal mem_mb,
+    BigDecimal io_read_kbs,
+    BigDecimal io_write_kbs,
+    int procesos) {}
@@ -2,5 +2,11 @@ package com.pm.rest.dto;
 
 import java.util.List;
 
-/** Respuesta generica para listas paginadas expuestas a la interfaz. */
-public record PagedResponse<T>(List<T> content, int page, int size, long total) {}
+/**
+ * Respuesta generica para listas paginadas expuestas a la interfaz. {@code nextCursor} se envia
+ * como {@code cursor} para pedir la pagina siguiente; es {@code null} en la ultima. {@code total}
+ * es {@code -1} si se pidio {@code count=false}, y {@code totalExact} es {@code false} si el total
+ * es una estimacion o no se conto.
+ */
+public record PagedResponse<T>(
+    List<T> content, int page, int size, long total, String nextCursor, boolean totalExact) {}
@@ -2,6 +2,7 @@ package com.pm.rest.dto;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 
 /** Representa un proceso registrado dentro de un catalogo al exponerlo por REST. */
 public record ProcessResponse(
@@ -13,6 +14,9 @@ public record ProcessResponse(
     boolean expulsivo,
     BigDecimal cpu_pct,
     BigDecimal mem_mb,
+    BigDecimal io_read_kbs,
+    BigDecimal io_write_kbs,
     String descripcion,
     String file_path,
-    Instant created_at) {}
+    Instant created_at,
+    List<ThreadResponse> hilos) {}
@@ -0,0 +1,6 @@
+package com.pm.rest.dto;
+
+import java.math.BigDecimal;
+
+/** Representa un hilo registrado dentro de un proceso al exponerlo por REST. */
+public record ThreadResponse(long tid, String nombre, BigDecimal cpu_pct) {}
@@ -1,28 +1,42 @@
 package com.pm.service;
 
+import com.pm.domain.CaptureOptions;
+import com.pm.domain.CpuSampling;
+import com.pm.domain.MemoryMetric;
+import com.pm.domain.PageCount;
+import com.pm.domain.PageCursor;
 import com.pm.domain.PagedResult;
+import com.pm.domain.ProcessAggregation;
 import com.pm.domain.ResourceNotFoundException;
 import com.pm.domain.SelectionCriterion;
+import com.pm.domain.ThreadDrillDown;
 import com.pm.domain.ValidationException;
 import com.pm.domain.catalog.Catalog;
+import com.pm.domain.catalog.CatalogCgroup;
 import com.pm.domain.catalog.CatalogImportPayload;
 import com.pm.domain.catalog.CatalogMetadata;
 import com.pm.domain.catalog.CatalogSort;
+import com.pm.domain.process.CgroupSnapshot;
 import com.pm.domain.process.ProcessFilter;
 import com.pm.domain.process.ProcessImport;
 import com.pm.domain.process.ProcessRecord;
 import com.pm.domain.process.ProcessSnapshot;
 import com.pm.domain.process.ProcessSort;
+import com.pm.domain.process.ProcessThread;
 import com.pm.domain.process.ProcessUpdate;
 import com.pm.persistence.CatalogRepository;
+import com.pm.service.capture.CaptureResult;
 import com.pm.service.capture.ProcessCaptureService;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,29 +47,81 @@ public final class CatalogService {
   private static final int MAX_NAME = 120;
   private static final int MAX_USER = 80;
   private static final int MAX_DESCRIPTION = 5000;
+  private static final int MAX_THREAD_NAME = 64;
+  private static final int MAX_CGROUP_PATH = 512;
 
   private final CatalogRepository repository;
   private final ProcessCaptureService captureService;
   private final ExpulsivoEvaluator expulsivoEvaluator;
   private final ProcessFileService fileService;
+  private final ThreadDrillDown threadDrillDown;
 
   public CatalogService(
       CatalogRepository repository,
       ProcessCaptureService captureService,
       ExpulsivoEvaluator expulsivoEvaluator,
       ProcessFileService fileService) {
+    this(repository, captureService, expulsivoEvaluator, fileService, ThreadDrillDown.disabled());
+  }
+
+  /**
+   * @param threadDrillDown limites del detalle de hilos que se aplican cuando una captura lo pide
+   */
+  public CatalogService(
+      CatalogRepository repository,
+      ProcessCaptureService captureService,
+      ExpulsivoEvaluator expulsivoEvaluator,
+      ProcessFileService fileService,
+      ThreadDrillDown threadDrillDown) {
     this.repository = repository;
     this.captureService = captureService;
     this.expulsivoEvaluator = expulsivoEvaluator;
     this.fileService = fileService;
+    this.threadDrillDown = threadDrillDown;
+    fileService.addFailureListener(this::clearFailedFilePaths);
+  }
+
+  /** Limites configurados del detalle de hilos, para las capturas que lo piden. */
+  public ThreadDrillDown getThreadDrillDown() {
+    return threadDrillDown;
   }
 
   public Catalog createCatalog(
       String nombre, String descripcion, int n, SelectionCriterion criterio) {
-    validateCatalogInputs(nombre, n, criterio);
-    List<ProcessSnapshot> captured = captureService.captureTopN(criterio, n);
+    return createCatalog(nombre, descripcion, CaptureOptions.builder(criterio, n).build());
+  }
+
+  /**
+   * Captura y persiste un catalogo con las opciones indicadas (ver {@link
+   * ProcessCaptureService#capture(CaptureOptions)}). Con cgroups se guardan ademas los N cgroups v2
+   * de mayor consumo; no generan archivo de descripcion ni pasan por la regla de expulsivos y fuera
+   * de Linux la lista queda vacia.
+   */
+  public Catalog createCatalog(String nombre, String descripcion, CaptureOptions opciones) {
+    SelectionCriterion criterio = opciones.criterion();
+    int n = opciones.n();
+    CpuSampling sampling = opciones.sampling();
+    MemoryMetric memory = opciones.memory();
+    ProcessAggregation aggregation = opciones.aggregation();
+    validateCatalogInputs(nombre, n, criterio, sampling, aggregation);
+    if (criterio.usesIo() && !captureService.supportsDiskIo()) {
+      throw new ValidationException(
+          List.of("criterio " + criterio + " requiere Linux: el disco se lee de /proc/<pid>/io"));
+    }
+    CaptureResult result = captureService.capture(opciones);
+    expulsivoEvaluator.refreshIfChanged();
+    List<ProcessSnapshot> captured = result.procesos();
     LOGGER.info(
-        "Captura solicitada (criterio={}, n={}) -> {} procesos", criterio, n, captured.size());
+        "Captura solicitada (criterio={}, n={}, muestras={}, estadistico={}, memoria={},"
+            + " agrupacion={}) -> {} procesos, {} cgroups",
+        criterio,
+        n,
+        sampling.samples(),
+        sampling.statistic(),
+        memory,
+        aggregation.mode(),
+        captured.size(),
+        result.cgroups().size());
     if (captured.isEmpty()) {
       throw new IllegalStateException("No se pudieron capturar procesos del sistema operativo");
     }
@@ -68,10 +134,16 @@ public final class CatalogService {
       BigDecimal cpu = sanitizeMetric(snapshot.cpuPct());
       BigDecimal mem = sanitizeMetric(snapshot.memMb());
       int prioridad = snapshot.prioridad() == null ? 0 : Math.max(0, snapshot.prioridad());
-      boolean expulsivo = systemProcess ? false : expulsivoEvaluator.isExpulsivo(processName, user);
+      boolean expulsivo =
+          !systemProcess
+              && expulsivoEvaluator.isExpulsivo(
+                  processName,
+                  user,
+                  snapshot.prioridad(),
+                  snapshot.uid(),
+                  snapshot.executable());
       String processDescription =
           buildProcessDescription(nombre, descripcion, processName, pid, cpu, mem);
-      String filePath = fileService.writeDescriptionFile(processName, pid, processDescription);
       ProcessRecord record =
           ProcessRecord.builder()
               .setPid(pid)
@@ -81,8 +153,18 @@ public final class CatalogService {
               .setExpulsivo(expulsivo)
               .setCpuPct(cpu)
               .setMemMb(mem)
+              .setIoReadKbs(sanitizeMetric(snapshot.ioReadKbs()))
+              .setIoWriteKbs(sanitizeMetric(snapshot.ioWriteKbs()))
+              .setHilos(
+                  snapshot.hilos().stream()
+                      .map(
+                          thread ->
+                              new ProcessThread(
+                                  thread.tid(),
+                                  ensureLength(thread.nombre(), MAX_THREAD_NAME),
+                                  thread.cpuPct()))
+                      .toList())
               .setDescripcion(processDescription)
-              .setFilePath(filePath)
               .setCreatedAt(Instant.now())
               .build();
       if (!expulsivo && record.getPrioridad() < 1) {
@@ -99,11 +181,73 @@ public final class CatalogService {
             .setN(n)
             .setFechaCreacion(Instant.now())
             .setProcesos(records)
+            .setCgroups(result.cgroups().stream().map(this::toCatalogCgroup).toList())
             .build();
-    return repository.saveCatalogWithProcesses(catalog);
+    return saveCatalog(catalog);
   }
 
-  private void validateCatalogInputs(String nombre, int n, SelectionCriterion criterio) {
+  /**
+   * Escribe las descripciones de los procesos, ya validados, y guarda el catalogo. Si algo falla
+   * despues de escribirlas se liberan, porque ningun proceso las referencia y la compactacion solo
+   * recupera las liberadas. Al terminar limpia los {@code file_path} cuya escritura en segundo
+   * plano fallo antes de que los procesos existieran en la base; las fallas posteriores las limpia
+   * el oyente.
+   */
+  private Catalog saveCatalog(Catalog catalog) {
+    List<String> filePaths = new ArrayList<>(catalog.getProcesos().size());
+    Catalog saved;
+    try {
+      List<ProcessRecord> records = new ArrayList<>(catalog.getProcesos().size());
+      for (ProcessRecord processRecord : catalog.getProcesos()) {
+        String filePath =
+            fileService.writeDescriptionFile(
+                processRecord.getNombre(), processRecord.getPid(), processRecord.getDescripcion());
+        if (filePath != null) {
+          filePaths.add(filePath);
+        }
+        records.add(processRecord.toBuilder().setFilePath(filePath).build());
+      }
+      saved =
+          repository.saveCatalogWithProcesses(catalog.toBuilder().setProcesos(records).build());
+    } catch (RuntimeException ex) {
+      fileService.releaseDescriptionFiles(filePaths);
+      throw ex;
+    }
+    clearFailedFilePaths(fileService.failedAmong(filePaths));
+    return saved;
+  }
+
+  /** Quita de la base las referencias a archivos de descripcion que no se pudieron escribir. */
+  private void clearFailedFilePaths(List<String> failed) {
+    if (failed.isEmpty()) {
+      return;
+    }
+    try {
+      int cleared = repository.clearFilePaths(failed);
+      LOGGER.warn("{} procesos quedan sin archivo de descripcion por fallas de escritura", cleared);
+    } catch (IllegalStateException ex) {
+      LOGGER.warn("No se pudo limpiar {} archivos no escritos: {}", failed.size(), ex.getMessage());
+    }
+  }
+
+  private CatalogCgroup toCatalogCgroup(CgroupSnapshot snapshot) {
+    return new CatalogCgroup(
+        null,
+        ensureLength(snapshot.ruta(), MAX_CGROUP_PATH),
+        ensureLength(snapshot.nombre(), MAX_NAME),
+        sanitizeMetric(snapshot.cpuPct()),
+        sanitizeMetric(snapshot.memMb()),
+        sanitizeMetric(snapshot.ioReadKbs()),
+        sanitizeMetric(snapshot.ioWriteKbs()),
+        snapshot.procesos());
+  }
+
+  private void validateCatalogInputs(
+      String nombre,
+      int n,
+      SelectionCriterion criterio,
+      CpuSampling sampling,
+      ProcessAggregation aggregation) {
     List<String> errors = new ArrayList<>();
     if (nombre == null || nombre.isBlank()) {
       errors.add("nombre_catalogo es obligatorio");
@@ -114,6 +258,33 @@ public final class CatalogService {
     if (criterio == null) {
       errors.add("criterio es obligatorio");
     }
+    if (sampling.samples() < 1 || sampling.samples() > CpuSampling.MAX_SAMPLES) {
+      errors.add("muestras debe estar entre 1 y " + CpuSampling.MAX_SAMPLES);
+    }
+    if (sampling.statistic() == null) {
+      errors.add("estadistico es obligatorio");
+    }
+    Duration window = sampling.window();
+    if (window != null
+        && (window.isNegative()
+            || window.isZero()
+            || window.compareTo(CpuSampling.MAX_WINDOW) > 0)) {
+      errors.add(
+          "ventanaMillis debe estar entre 1 y " + CpuSampling.MAX_WINDOW.toMillis() + " ms");
+    } else if (window != null
+        && window.dividedBy(Math.max(sampling.samples(), 1)).compareTo(CpuSampling.MIN_TICK) < 0) {
+      errors.add(
+          "ventanaMillis debe dejar al menos "
+              + CpuSampling.MIN_TICK.toMillis()
+              + " ms entre muestras");
+    }
+    if (aggregation.mode() == null) {
+      errors.add("agrupacion es obligatoria");
+    }
+    if (aggregation.treeDepth() < 0
+        || aggregation.treeDepth() > ProcessAggregation.MAX_TREE_DEPTH) {
+      errors.add("profundidad debe estar entre 0 y " + ProcessAggregation.MAX_TREE_DEPTH);
+    }
     if (!errors.isEmpty()) {
       throw new ValidationException(errors);
     }
@@ -126,6 +297,21 @@ public final class CatalogService {
     return value.setScale(2, RoundingMode.HALF_UP);
   }
 
+  private List<ProcessThread> sanitizeThreads(List<ProcessThread> threads) {
+    if (threads == null) {
+      return List.of();
+    }
+    return threads.stream()
+        .filter(Objects::nonNull)
+        .map(
+            thread ->
+                new ProcessThread(
+                    thread.tid(),
+                    ensureLength(thread.nombre(), MAX_THREAD_NAME),
+                    sanitizeMetric(thread.cpuPct())))
+        .toList();
+  }
+
   private String ensureLength(String value, int max) {
     if (value == null) {
       return null;
@@ -162,7 +348,22 @@ public final class CatalogService {
       CatalogSort sort,
       int page,
       int size) {
-    return repository.findCatalogs(search, origin, sort, page, size);
+    return listCatalogs(search, origin, sort, page, size, null, PageCount.EXACT);
+  }
+
+  /**
+   * @param after cursor de la pagina anterior; si se indica se ignora {@code page}
+   * @param count como calcular el total
+   */
+  public PagedResult<CatalogMetadata> listCatalogs(
+      Optional<String> search,
+      Optional<SelectionCriterion> origin,
+      CatalogSort sort,
+      int page,
+      int size,
+      PageCursor after,
+      PageCount count) {
+    return repository.findCatalogs(search, origin, sort, page, size, after, count);
   }
 
   public Catalog getCatalog(long id) {
@@ -180,12 +381,32 @@ public final class CatalogService {
   }
 
   public void deleteCatalog(long id) {
-    repository.deleteCatalog(id);
+    fileService.releaseDescriptionFiles(repository.deleteCatalog(id));
   }
 
   public PagedResult<ProcessRecord> listProcesses(
       long catalogId, ProcessFilter filter, ProcessSort sort, int page, int size) {
-    return repository.findProcesses(catalogId, filter, sort, page, size);
+    return listProcesses(catalogId, filter, sort, page, size, null, PageCount.EXACT);
+  }
+
+  /**
+   * @param after cursor de la pagina anterior; si se indica se ignora {@code page}
+   * @param count como calcular el total cuando hay filtros
+   */
+  public PagedResult<ProcessRecord> listProcesses(
+      long catalogId,
+      ProcessFilter filter,
+      ProcessSort sort,
+      int page,
+      int size,
+      PageCursor after,
+      PageCount count) {
+    return repository.findProcesses(catalogId, filter, sort, page, size, after, count);
+  }
+
+  /** Devuelve los cgroups capturados con el catalogo; vacio si la captura no los pidio. */
+  public List<CatalogCgroup> listCgroups(long catalogId) {
+    return repository.findCgroups(catalogId);
   }
 
   public ProcessRecord getProcess(long catalogId, long processId) {
@@ -223,13 +444,29 @@ public final class CatalogService {
   }
 
   public void deleteProcess(long catalogId, long processId) {
-    repository.deleteProcess(catalogId, processId);
+    fileService.releaseDescriptionFiles(repository.deleteProcess(catalogId, processId));
   }
 
-  public Catalog exportCatalog(long catalogId) {
-    return getCatalog(catalogId);
+  /**
+   * Recorre un catalogo para exportarlo sin armarlo completo en memoria: {@code header} recibe los
+   * metadatos y los cgroups y {@code consumer} cada proceso, en el orden de {@link #getCatalog}.
+   *
+   * @throws ResourceNotFoundException si el catalogo no existe, antes de llamar a {@code header}
+   */
+  public void streamCatalog(
+      long catalogId,
+      BiConsumer<CatalogMetadata, List<CatalogCgroup>> header,
+      Consumer<ProcessRecord> consumer) {
+    if (!repository.streamCatalog(catalogId, header, consumer)) {
+      throw new ResourceNotFoundException("Catalogo no encontrado");
+    }
   }
 
+  /**
+   * Importa un catalogo. Los procesos sin {@code expulsivo} se evaluan con nombre, usuario y
+   * prioridad; el archivo no trae uid ni ejecutable, asi que las reglas con {@code uid=} o {@code
+   * exe=} no se cumplen para ellos y se advierte en el registro.
+   */
   public Catalog importCatalog(CatalogImportPayload payload) {
     if (payload == null) {
       throw new ValidationException(List.of("payload requerido"));
@@ -239,10 +476,22 @@ public final class CatalogService {
     List<ProcessImport> processes =
         payload.procesos() == null ? List.of() : List.copyOf(payload.procesos());
     int n = payload.n() > 0 ? payload.n() : processes.size();
-    validateCatalogInputs(payload.nombre(), n, origen);
+    validateCatalogInputs(
+        payload.nombre(), n, origen, CpuSampling.single(), ProcessAggregation.byName());
     if (processes.isEmpty()) {
       throw new ValidationException(List.of("procesos es obligatorio"));
     }
+    expulsivoEvaluator.refreshIfChanged();
+    if (expulsivoEvaluator.usesProcessIdentity()) {
+      long evaluated = processes.stream().filter(p -> p != null && p.expulsivo() == null).count();
+      if (evaluated > 0) {
+        LOGGER.warn(
+            "Importacion '{}': {} procesos sin expulsivo se evaluan sin uid ni ejecutable; las"
+                + " reglas con uid= o exe= no se aplican a ellos",
+            payload.nombre(),
+            evaluated);
+      }
+    }
     List<String> errors = new ArrayList<>();
     List<ProcessRecord> records = new ArrayList<>();
     for (ProcessImport processImport : processes) {
@@ -263,7 +512,7 @@ public final class CatalogService {
             .setFechaCreacion(Instant.now())
             .setProcesos(records)
             .build();
-    return repository.saveCatalogWithProcesses(catalog);
+    return saveCatalog(catalog);
   }
 
   private ProcessRecord buildImportedRecord(ProcessImport process, List<String> errors) {
@@ -288,7 +537,7 @@ public final class CatalogService {
     boolean expulsivo =
         process.expulsivo() != null
             ? process.expulsivo()
-            : expulsivoEvaluator.isExpulsivo(nombre, usuario);
+            : expulsivoEvaluator.isExpulsivo(nombre, usuario, prioridad, null, null);
     String descripcion = ensureLength(process.descripcion(), MAX_DESCRIPTION);
     BigDecimal cpu = process.cpuPct() == null ? null : sanitizeMetric(process.cpuPct());
     BigDecimal mem = process.memMb() == null ? null : sanitizeMetric(process.memMb());
@@ -296,7 +545,6 @@ public final class CatalogService {
       errors.addAll(localErrors);
       return null;
     }
-    String filePath = fileService.writeDescriptionFile(nombre, pid, descripcion);
     return ProcessRecord.builder()
         .setPid(pid)
         .setNombre(nombre)
@@ -305,8 +553,10 @@ public final class CatalogService {
         .setExpulsivo(expulsivo)
         .setCpuPct(cpu)
         .setMemMb(mem)
+        .setIoReadKbs(sanitizeMetric(process.ioReadKbs()))
+        .setIoWriteKbs(sanitizeMetric(process.ioWriteKbs()))
+        .setHilos(sanitizeThreads(process.hilos()))
         .setDescripcion(descripcion)
-        .setFilePath(filePath)
         .setCreatedAt(Instant.now())
         .build();
   }
@@ -0,0 +1,39 @@
+package com.pm.service;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Almacenamiento de los archivos de descripcion de {@link ProcessFileService}. La referencia de
+ * cada descripcion se reserva antes de escribirla y es lo que se guarda en {@code file_path}.
+ */
+interface DescriptionStore extends AutoCloseable {
+
+  /** Devuelve la referencia donde se guardara la descripcion del proceso. */
+  String reserve(String processName, long pid);
+
+  /**
+   * Escribe un lote de descripciones reservadas; con {@code fsync} las fuerza a disco al terminar
+   * el lote.
+   *
+   * @return las referencias que no se pudieron escribir
+   */
+  List<String> write(List<Pending> batch, boolean fsync);
+
+  /**
+   * Lee la descripcion de una referencia.
+   *
+   * @return el contenido, o {@code null} si la referencia no existe o aun no se escribio
+   */
+  String read(String reference) throws IOException;
+
+  /** Indica que las referencias ya no estan en uso, por ejemplo al eliminar un catalogo. */
+  void release(Collection<String> references);
+
+  @Override
+  void close();
+
+  /** Descripcion pendiente de escribir en su referencia reservada. */
+  record Pending(String reference, String content) {}
+}
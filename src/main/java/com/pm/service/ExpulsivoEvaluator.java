@@ -1,45 +1,152 @@
 package com.pm.service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * Evalua si un proceso debe marcarse como expulsivo usando listas de usuarios y patrones de
- * exclusion.
+ * Evalua si un proceso debe marcarse como expulsivo. Primero se aplican, en orden, las reglas del
+ * archivo configurado ({@link ExpulsivoRules}); si ninguna se cumple se usan las listas de usuarios
+ * y patrones de exclusion. Cada lista se compila una vez en un {@link SubstringMatcher}, asi que
+ * evaluar un proceso cuesta lo mismo con diez patrones que con mil y no crea objetos.
+ *
+ * <p>El archivo de reglas se vuelve a leer con {@link #refreshIfChanged()} solo cuando cambian su
+ * fecha de modificacion o su tamano; un archivo con errores se informa y se conservan las reglas
+ * anteriores. Las decisiones se recuerdan en una cache acotada que pertenece a las reglas con que
+ * se calcularon: al recargar se reemplazan juntas, de modo que ninguna evaluacion mezcla reglas
+ * nuevas con decisiones viejas. Es segura para hilos.
  */
 public final class ExpulsivoEvaluator {
 
-  private final List<String> systemUsers;
-  private final List<String> namePatterns;
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExpulsivoEvaluator.class);
+  private static final int MAX_MEMO_ENTRIES = 16_384;
+
+  private final SubstringMatcher systemUsers;
+  private final SubstringMatcher namePatterns;
+  private final Path rulesFile;
+  private volatile Generation generation = new Generation(ExpulsivoRules.EMPTY);
+  private FileTime loadedModified;
+  private long loadedSize = -1;
 
   public ExpulsivoEvaluator(List<String> systemUsers, List<String> namePatterns) {
-    this.systemUsers = systemUsers;
-    this.namePatterns = namePatterns;
+    this(systemUsers, namePatterns, null);
+  }
+
+  /**
+   * @param rulesFile archivo de reglas, o {@code null} para usar solo las listas
+   */
+  public ExpulsivoEvaluator(List<String> systemUsers, List<String> namePatterns, Path rulesFile) {
+    this.systemUsers = new SubstringMatcher(systemUsers);
+    this.namePatterns = new SubstringMatcher(namePatterns);
+    this.rulesFile = rulesFile;
+    refreshIfChanged();
+  }
+
+  /**
+   * Vuelve a cargar las reglas si el archivo cambio desde la ultima lectura. Si el archivo se
+   * elimina se deja de aplicar reglas.
+   */
+  public synchronized void refreshIfChanged() {
+    if (rulesFile == null) {
+      return;
+    }
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(rulesFile, BasicFileAttributes.class);
+    } catch (NoSuchFileException ex) {
+      if (loadedSize >= 0) {
+        LOGGER.info("Archivo de reglas de expulsividad eliminado: {}", rulesFile);
+        generation = new Generation(ExpulsivoRules.EMPTY);
+        loadedModified = null;
+        loadedSize = -1;
+      }
+      return;
+    } catch (IOException ex) {
+      LOGGER.debug("No se pudo consultar {}: {}", rulesFile, ex.getMessage());
+      return;
+    }
+    if (attributes.lastModifiedTime().equals(loadedModified)
+        && attributes.size() == loadedSize) {
+      return;
+    }
+    // Se recuerda la version aunque tenga errores para no volver a informarlos en cada consulta.
+    loadedModified = attributes.lastModifiedTime();
+    loadedSize = attributes.size();
+    try {
+      ExpulsivoRules rules =
+          ExpulsivoRules.parse(Files.readAllLines(rulesFile, StandardCharsets.UTF_8));
+      generation = new Generation(rules);
+      LOGGER.info("Reglas de expulsividad cargadas desde {}: {} reglas", rulesFile, rules.size());
+    } catch (IOException ex) {
+      LOGGER.warn("No se pudo leer {}: {}", rulesFile, ex.getMessage());
+    } catch (IllegalArgumentException ex) {
+      LOGGER.warn(
+          "Reglas de expulsividad invalidas en {}, se conservan las anteriores: {}",
+          rulesFile,
+          ex.getMessage());
+    }
   }
 
   public boolean isExpulsivo(String nombre, String usuario) {
-    if (isSystemUser(usuario)) {
-      return false;
+    return isExpulsivo(nombre, usuario, null, null, null);
+  }
+
+  /**
+   * Igual que {@link #isExpulsivo(String, String)} con los datos que pueden pedir las reglas; los
+   * que el llamador no conoce van en {@code null} y las condiciones sobre ellos no se cumplen.
+   */
+  public boolean isExpulsivo(
+      String nombre, String usuario, Integer prioridad, Integer uid, String exe) {
+    Generation current = generation;
+    Key key = new Key(nombre, usuario, prioridad, uid, exe);
+    Boolean memo = current.memo.get(key);
+    if (memo != null) {
+      return memo;
     }
-    if (matchesPattern(nombre)) {
-      return false;
+    Boolean decision = current.rules.decide(nombre, usuario, prioridad, uid, exe);
+    boolean expulsivo =
+        decision != null ? decision : !isSystemUser(usuario) && !matchesPattern(nombre);
+    // Con la cache llena las decisiones nuevas se calculan sin guardarse.
+    if (current.memo.size() < MAX_MEMO_ENTRIES) {
+      current.memo.put(key, expulsivo);
     }
-    return true;
+    return expulsivo;
+  }
+
+  /**
+   * Indica si las reglas vigentes tienen condiciones sobre {@code uid} o {@code exe}, que solo se
+   * pueden evaluar con procesos capturados en Linux.
+   */
+  public boolean usesProcessIdentity() {
+    return generation.rules.usesProcessIdentity();
   }
 
   private boolean isSystemUser(String usuario) {
-    if (usuario == null) {
-      return false;
-    }
-    String normalized = usuario.toLowerCase(Locale.ROOT);
-    return systemUsers.stream().anyMatch(normalized::contains);
+    return usuario != null && systemUsers.matches(usuario);
   }
 
   private boolean matchesPattern(String nombre) {
-    if (nombre == null) {
-      return false;
+    return nombre != null && namePatterns.matches(nombre);
+  }
+
+  private record Key(String nombre, String usuario, Integer prioridad, Integer uid, String exe) {}
+
+  /** Reglas vigentes y las decisiones calculadas con ellas. */
+  private static final class Generation {
+    private final ExpulsivoRules rules;
+    private final Map<Key, Boolean> memo = new ConcurrentHashMap<>();
+
+    private Generation(ExpulsivoRules rules) {
+      this.rules = rules;
     }
-    String normalized = nombre.toLowerCase(Locale.ROOT);
-    return namePatterns.stream().anyMatch(normalized::contains);
   }
 }
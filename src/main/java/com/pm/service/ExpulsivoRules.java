@@ -0,0 +1,172 @@
+package com.pm.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lista ordenada de reglas que deciden si un proceso es expulsivo. Cada linea del archivo es una
+ * regla con una accion ({@code allow}: se puede expulsar, {@code deny}: no se puede) y condiciones
+ * separadas por {@code ;} que deben cumplirse todas:
+ *
+ * <pre>
+ * # comentario
+ * deny  usuario=root,local service
+ * deny  uid=0-999
+ * allow nombre=chrome,firefox; prioridad=0-8
+ * deny  exe=/usr/sbin/
+ * </pre>
+ *
+ * <p>{@code nombre} y {@code usuario} aceptan una lista de textos separados por coma que se buscan
+ * dentro del valor sin distinguir mayusculas; {@code uid} y {@code prioridad} un valor o un rango
+ * cerrado {@code min-max}; {@code exe} un prefijo de la ruta del ejecutable. Una condicion sobre un
+ * dato que el proceso no informa no se cumple. Gana la primera regla que se cumple. Es inmutable y
+ * segura para hilos.
+ */
+final class ExpulsivoRules {
+
+  static final ExpulsivoRules EMPTY = new ExpulsivoRules(List.of());
+
+  private final List<Rule> rules;
+
+  private ExpulsivoRules(List<Rule> rules) {
+    this.rules = rules;
+  }
+
+  /**
+   * Interpreta las lineas de un archivo de reglas; se ignoran las vacias y las que empiezan con
+   * {@code #}.
+   *
+   * @throws IllegalArgumentException si una linea no tiene el formato esperado, con su numero
+   */
+  static ExpulsivoRules parse(List<String> lines) {
+    List<Rule> parsed = new ArrayList<>();
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i).strip();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      try {
+        parsed.add(parseRule(line));
+      } catch (IllegalArgumentException ex) {
+        throw new IllegalArgumentException("linea " + (i + 1) + ": " + ex.getMessage(), ex);
+      }
+    }
+    return new ExpulsivoRules(List.copyOf(parsed));
+  }
+
+  int size() {
+    return rules.size();
+  }
+
+  /** Indica si alguna regla tiene condiciones sobre {@code uid} o {@code exe}. */
+  boolean usesProcessIdentity() {
+    for (Rule rule : rules) {
+      if (rule.uid != null || rule.exe != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Devuelve la decision de la primera regla que se cumple, o {@code null} si ninguna se cumple.
+   */
+  Boolean decide(String nombre, String usuario, Integer prioridad, Integer uid, String exe) {
+    for (Rule rule : rules) {
+      if (rule.matches(nombre, usuario, prioridad, uid, exe)) {
+        return rule.expulsivo;
+      }
+    }
+    return null;
+  }
+
+  private static Rule parseRule(String line) {
+    int split = 0;
+    while (split < line.length() && !Character.isWhitespace(line.charAt(split))) {
+      split++;
+    }
+    String action = line.substring(0, split).toLowerCase(Locale.ROOT);
+    boolean expulsivo =
+        switch (action) {
+          case "allow" -> true;
+          case "deny" -> false;
+          default -> throw new IllegalArgumentException("accion desconocida '" + action + "'");
+        };
+    Rule rule = new Rule(expulsivo);
+    String conditions = line.substring(split).strip();
+    if (conditions.isEmpty()) {
+      return rule;
+    }
+    for (String condition : conditions.split(";")) {
+      int eq = condition.indexOf('=');
+      if (eq < 0) {
+        throw new IllegalArgumentException("condicion sin '=': '" + condition.strip() + "'");
+      }
+      String field = condition.substring(0, eq).strip().toLowerCase(Locale.ROOT);
+      String value = condition.substring(eq + 1).strip();
+      if (value.isEmpty()) {
+        throw new IllegalArgumentException("condicion sin valor: '" + field + "'");
+      }
+      switch (field) {
+        case "nombre" -> rule.nombre = new SubstringMatcher(splitList(value));
+        case "usuario" -> rule.usuario = new SubstringMatcher(splitList(value));
+        case "uid" -> rule.uid = parseRange(value);
+        case "prioridad" -> rule.prioridad = parseRange(value);
+        case "exe" -> rule.exe = value;
+        default -> throw new IllegalArgumentException("campo desconocido '" + field + "'");
+      }
+    }
+    return rule;
+  }
+
+  private static List<String> splitList(String value) {
+    return Arrays.stream(value.split(","))
+        .map(String::strip)
+        .filter(str -> !str.isEmpty())
+        .toList();
+  }
+
+  /** Interpreta {@code n} o {@code min-max}; el guion inicial de un minimo negativo no separa. */
+  private static long[] parseRange(String value) {
+    int dash = value.indexOf('-', 1);
+    try {
+      long min = Long.parseLong(dash < 0 ? value : value.substring(0, dash).strip());
+      long max = dash < 0 ? min : Long.parseLong(value.substring(dash + 1).strip());
+      if (min > max) {
+        throw new IllegalArgumentException("rango invertido '" + value + "'");
+      }
+      return new long[] {min, max};
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("rango invalido '" + value + "'", ex);
+    }
+  }
+
+  private static boolean inRange(long[] range, Integer value) {
+    return value != null && value >= range[0] && value <= range[1];
+  }
+
+  /** Regla interpretada; las condiciones en {@code null} no se evaluan. */
+  private static final class Rule {
+    private final boolean expulsivo;
+    private SubstringMatcher nombre;
+    private SubstringMatcher usuario;
+    private long[] uid;
+    private long[] prioridad;
+    private String exe;
+
+    private Rule(boolean expulsivo) {
+      this.expulsivo = expulsivo;
+    }
+
+    private boolean matches(
+        String nombre, String usuario, Integer prioridad, Integer uid, String exe) {
+      return (this.nombre == null || (nombre != null && this.nombre.matches(nombre)))
+          && (this.usuario == null || (usuario != null && this.usuario.matches(usuario)))
+          && (this.uid == null || inRange(this.uid, uid))
+          && (this.prioridad == null || inRange(this.prioridad, prioridad))
+          && (this.exe == null || (exe != null && exe.startsWith(this.exe)));
+    }
+  }
+}
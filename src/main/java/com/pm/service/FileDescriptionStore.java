@@ -0,0 +1,140 @@
+package com.pm.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Un archivo {@code .txt} por proceso dentro del directorio base; la referencia es la ruta del
+ * archivo. Liberar una referencia no borra el archivo.
+ */
+final class FileDescriptionStore implements DescriptionStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileDescriptionStore.class);
+
+  private final Path baseDir;
+
+  FileDescriptionStore(Path baseDir) {
+    this.baseDir = baseDir;
+  }
+
+  @Override
+  public String reserve(String processName, long pid) {
+    String sanitized =
+        (processName == null || processName.isBlank() ? "process" : processName)
+            .toLowerCase(Locale.ROOT)
+            .replaceAll("[^a-z0-9\\-_.]", "_");
+    String suffix = String.format("%08x", ThreadLocalRandom.current().nextInt());
+    return baseDir.resolve(sanitized + "-" + pid + "-" + suffix + ".txt").toString();
+  }
+
+  /**
+   * Escribe el lote con un solo {@code createDirectories}; con {@code fsync} fuerza los datos de
+   * todos los archivos al final y la entrada del directorio una vez.
+   */
+  @Override
+  public List<String> write(List<Pending> batch, boolean fsync) {
+    try {
+      Files.createDirectories(baseDir);
+    } catch (IOException ex) {
+      LOGGER.warn("No se pudo crear el directorio {}: {}", baseDir, ex.getMessage());
+      return batch.stream().map(Pending::reference).toList();
+    }
+    List<String> failed = new ArrayList<>();
+    List<FileChannel> unsynced = fsync ? new ArrayList<>(batch.size()) : List.of();
+    List<String> unsyncedReferences = fsync ? new ArrayList<>(batch.size()) : List.of();
+    try {
+      for (Pending file : batch) {
+        Path path = Path.of(file.reference());
+        FileChannel channel = null;
+        try {
+          channel =
+              FileChannel.open(
+                  path,
+                  StandardOpenOption.CREATE,
+                  StandardOpenOption.TRUNCATE_EXISTING,
+                  StandardOpenOption.WRITE);
+          ByteBuffer bytes = ByteBuffer.wrap(file.content().getBytes(StandardCharsets.UTF_8));
+          while (bytes.hasRemaining()) {
+            channel.write(bytes);
+          }
+          LOGGER.debug("Archivo de proceso creado: {}", path);
+        } catch (IOException ex) {
+          LOGGER.warn("No se pudo escribir archivo {}: {}", path, ex.getMessage());
+          failed.add(file.reference());
+        }
+        if (channel != null) {
+          if (fsync) {
+            unsynced.add(channel);
+            unsyncedReferences.add(file.reference());
+          } else {
+            closeQuietly(channel);
+          }
+        }
+      }
+      for (int i = 0; i < unsynced.size(); i++) {
+        try {
+          unsynced.get(i).force(false);
+        } catch (IOException ex) {
+          LOGGER.warn("No se pudo forzar a disco un archivo de proceso: {}", ex.getMessage());
+          String reference = unsyncedReferences.get(i);
+          if (!failed.contains(reference)) {
+            failed.add(reference);
+          }
+        }
+      }
+    } finally {
+      unsynced.forEach(FileDescriptionStore::closeQuietly);
+    }
+    if (fsync) {
+      syncDirectory(baseDir);
+    }
+    return failed;
+  }
+
+  @Override
+  public String read(String reference) throws IOException {
+    try {
+      return Files.readString(Path.of(reference), StandardCharsets.UTF_8);
+    } catch (NoSuchFileException ex) {
+      return null;
+    }
+  }
+
+  @Override
+  public void release(Collection<String> references) {
+    // Los archivos sueltos se conservan, como antes de existir los segmentos.
+  }
+
+  @Override
+  public void close() {}
+
+  /** Fuerza las entradas nuevas del directorio; en sistemas que no lo permiten no hace nada. */
+  static void syncDirectory(Path dir) {
+    try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException ex) {
+      LOGGER.trace("No se pudo forzar el directorio {}: {}", dir, ex.getMessage());
+    }
+  }
+
+  private static void closeQuietly(FileChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException ex) {
+      LOGGER.debug("No se pudo cerrar un archivo de proceso: {}", ex.getMessage());
+    }
+  }
+}
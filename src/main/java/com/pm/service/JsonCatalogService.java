@@ -7,14 +7,18 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.pm.config.DirectoryManager;
 import com.pm.domain.catalog.Catalog;
+import com.pm.domain.catalog.CatalogMetadata;
+import com.pm.rest.CatalogExportWriter;
 import com.pm.rest.RestMapper;
 import com.pm.rest.dto.CatalogDetailResponse;
 import com.pm.rest.dto.CatalogExportResponse;
 import com.pm.rest.dto.CatalogImportRequest;
 import com.pm.rest.dto.ProcessResponse;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import org.slf4j.Logger;
@@ -33,6 +37,7 @@ public final class JsonCatalogService {
   private final CatalogService catalogService;
   private final DirectoryManager directoryManager;
   private final ObjectMapper mapper;
+  private final CatalogExportWriter exportWriter;
 
   public JsonCatalogService(CatalogService catalogService, DirectoryManager directoryManager) {
     this.catalogService = catalogService;
@@ -40,23 +45,48 @@ public final class JsonCatalogService {
     this.mapper = new ObjectMapper();
     this.mapper.registerModule(new JavaTimeModule());
     this.mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    this.exportWriter = new CatalogExportWriter(mapper);
   }
 
+  /**
+   * Exporta el catalogo a {@code app.export.dir} leyendo sus procesos a medida que se escriben, de
+   * modo que catalogos de cualquier tamano se exportan con memoria constante. El JSON se escribe en
+   * un archivo temporal y se renombra al terminar, asi una exportacion fallida no deja un archivo
+   * incompleto con el nombre final.
+   */
   public Path exportCatalog(long catalogId) {
-    Catalog catalog = catalogService.exportCatalog(catalogId);
-    CatalogExportResponse dto = RestMapper.toExportResponse(catalog);
     Path exportDir = directoryManager.getExportDir();
-    String asyncTimestamp =
-        FILE_FORMAT.format(
-            catalog.getFechaCreacion().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
-    String fileName = "catalogo-" + catalog.getId() + "-" + asyncTimestamp + ".json";
-    Path target = exportDir.resolve(fileName);
+    Path temp = null;
     try {
-      mapper.writerWithDefaultPrettyPrinter().writeValue(target.toFile(), dto);
+      temp = Files.createTempFile(exportDir, "catalogo-" + catalogId + "-", ".json.tmp");
+      CatalogMetadata metadata;
+      try (OutputStream out = Files.newOutputStream(temp)) {
+        metadata = exportWriter.write(catalogService, catalogId, out, true);
+      }
+      String asyncTimestamp =
+          FILE_FORMAT.format(
+              metadata.fechaCreacion().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
+      String fileName = "catalogo-" + metadata.id() + "-" + asyncTimestamp + ".json";
+      Path target =
+          Files.move(temp, exportDir.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+      temp = null;
       LOGGER.info("Catálogo {} exportado a {}", catalogId, target);
       return target;
     } catch (IOException ex) {
       throw new IllegalStateException("No se pudo exportar catálogo a JSON", ex);
+    } finally {
+      deleteQuietly(temp);
+    }
+  }
+
+  private static void deleteQuietly(Path temp) {
+    if (temp == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(temp);
+    } catch (IOException ex) {
+      LOGGER.warn("No se pudo borrar el archivo temporal {}", temp, ex);
     }
   }
 
@@ -72,7 +102,8 @@ public final class JsonCatalogService {
                       root.has("procesos")
                           ? mapper.convertValue(
                               root.get("procesos"), new TypeReference<List<ProcessResponse>>() {})
-                          : List.of()))
+                          : List.of(),
+                      List.of()))
               : RestMapper.toImportPayload(mapper.treeToValue(root, CatalogImportRequest.class));
       Catalog catalog = catalogService.importCatalog(payload);
       LOGGER.info("Catálogo importado desde {}", file);
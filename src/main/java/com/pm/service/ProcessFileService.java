@@ -1,49 +1,277 @@
 package com.pm.service;
 
+import com.pm.domain.DescriptionSegments;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.time.format.DateTimeFormatter;
-import java.util.Locale;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Maneja la creacion de archivos de descripcion asociados a los procesos capturados o importados.
+ *
+ * <p>Con escritores la ruta de cada archivo se reserva al pedirla y el contenido se escribe despues
+ * en segundo plano: los pedidos entran en una cola acotada y cada escritor toma lotes de hasta
+ * {@link #MAX_BATCH} archivos, crea el directorio una vez por lote y fuerza los datos a disco al
+ * terminar el lote en lugar de hacerlo por archivo. Si la cola esta llena el archivo se escribe en
+ * el hilo que lo pide, lo que frena al productor sin perder pedidos. Sin escritores cada archivo se
+ * escribe al pedirlo, como antes. {@link #close()} espera a que se escriban los pendientes.
+ *
+ * <p>Una escritura en segundo plano que falla deja un {@code file_path} que no apunta a nada: las
+ * referencias fallidas se avisan a los {@link #addFailureListener oyentes}, que limpian la columna,
+ * y se recuerdan para {@link #failedAmong}, por si la falla ocurre antes de guardar el catalogo.
+ *
+ * <p>Las descripciones se guardan por defecto en un archivo por proceso. Con {@link
+ * DescriptionSegments} activado van a archivos de segmento compartidos ({@link
+ * SegmentDescriptionStore}) y {@code file_path} guarda una referencia {@code segment:<id>}; las
+ * descripciones de los catalogos eliminados se liberan con {@link #releaseDescriptionFiles} y su
+ * espacio se recupera al compactar.
  */
-public final class ProcessFileService {
+public final class ProcessFileService implements AutoCloseable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ProcessFileService.class);
   private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
 
-  private final Path baseDir;
+  /** Archivos que un escritor toma de la cola por lote. */
+  static final int MAX_BATCH = 256;
+
+  /** Referencias fallidas que se recuerdan para {@link #failedAmong}. */
+  static final int MAX_TRACKED_FAILURES = 4096;
+
+  private final DescriptionStore store;
+  private final boolean fsync;
+  private final BlockingQueue<DescriptionStore.Pending> queue;
+  private final ExecutorService writers;
+  private final AtomicInteger failures = new AtomicInteger();
+  private final Set<String> recentFailures = new LinkedHashSet<>();
+  private final List<Consumer<List<String>>> failureListeners = new CopyOnWriteArrayList<>();
+  // Ordena los pedidos a la cola con el cierre: despues de cerrar no entra nada nuevo.
+  private final Object offerLock = new Object();
+  private volatile boolean closed;
 
   public ProcessFileService(Path baseDir) {
-    this.baseDir = baseDir;
+    this(baseDir, 0, 0, false);
+  }
+
+  /**
+   * @param writerThreads escritores en segundo plano; con 0 cada archivo se escribe al pedirlo
+   * @param queueCapacity archivos pendientes antes de escribir en el hilo que los pide
+   * @param fsync fuerza a disco cada lote escrito
+   */
+  public ProcessFileService(Path baseDir, int writerThreads, int queueCapacity, boolean fsync) {
+    this(baseDir, writerThreads, queueCapacity, fsync, DescriptionSegments.disabled());
+  }
+
+  /**
+   * @param segments almacen en segmentos dentro de {@code baseDir/segments}; desactivado, un
+   *     archivo por proceso
+   * @throws UncheckedIOException si no se pueden abrir los segmentos
+   */
+  public ProcessFileService(
+      Path baseDir,
+      int writerThreads,
+      int queueCapacity,
+      boolean fsync,
+      DescriptionSegments segments) {
+    this.store = openStore(baseDir, segments);
+    this.fsync = fsync;
+    int threads = Math.max(writerThreads, 0);
+    this.queue = threads > 0 ? new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)) : null;
+    this.writers = threads > 0 ? Executors.newFixedThreadPool(threads, this::newWriter) : null;
+    for (int i = 0; i < threads; i++) {
+      writers.execute(this::drainLoop);
+    }
   }
 
+  /**
+   * Reserva la ruta del archivo de descripcion del proceso y programa su escritura. Con escritores
+   * la ruta se devuelve antes de que el archivo exista y una falla posterior se avisa a los oyentes
+   * de {@link #addFailureListener}; si el archivo se escribe al pedirlo y falla se devuelve {@code
+   * null}.
+   */
   public String writeDescriptionFile(String processName, long pid, String descripcion) {
-    String sanitized =
-        (processName == null || processName.isBlank() ? "process" : processName)
-            .toLowerCase(Locale.ROOT)
-            .replaceAll("[^a-z0-9\\-_.]", "_");
-    String fileName =
-        sanitized + "-" + pid + "-" + UUID.randomUUID().toString().substring(0, 8) + ".txt";
-    Path path = baseDir.resolve(fileName);
+    String reference = store.reserve(processName, pid);
     String content =
         descripcion == null || descripcion.isBlank()
             ? "Proceso capturado " + FORMATTER.format(java.time.OffsetDateTime.now())
             : descripcion;
+    DescriptionStore.Pending pending = new DescriptionStore.Pending(reference, content);
+    if (queue != null) {
+      synchronized (offerLock) {
+        if (!closed && queue.offer(pending)) {
+          return reference;
+        }
+      }
+    }
+    return writeBatch(List.of(pending)).isEmpty() ? reference : null;
+  }
+
+  /**
+   * Registra un oyente de las escrituras en segundo plano que fallan. Se llama desde el hilo
+   * escritor con las referencias del lote que no se pudieron escribir.
+   */
+  public void addFailureListener(Consumer<List<String>> listener) {
+    failureListeners.add(listener);
+  }
+
+  /**
+   * Filtra las referencias cuya escritura en segundo plano fallo hace poco. Sirve para limpiar las
+   * que fallaron antes de que su proceso se guardara y el oyente no pudo encontrarlas.
+   */
+  public List<String> failedAmong(Collection<String> references) {
+    List<String> failed = new ArrayList<>();
+    synchronized (recentFailures) {
+      if (recentFailures.isEmpty()) {
+        return failed;
+      }
+      for (String reference : references) {
+        if (reference != null && recentFailures.contains(reference)) {
+          failed.add(reference);
+        }
+      }
+    }
+    return failed;
+  }
+
+  /**
+   * Lee la descripcion guardada en un {@code file_path}.
+   *
+   * @return el contenido, o {@code null} si no existe o todavia no se escribio
+   */
+  public String readDescriptionFile(String reference) throws IOException {
+    return store.read(reference);
+  }
+
+  /**
+   * Libera las descripciones de procesos eliminados. En segmentos su espacio se recupera en la
+   * siguiente compactacion; los archivos sueltos se conservan.
+   */
+  public void releaseDescriptionFiles(Collection<String> references) {
+    if (!references.isEmpty()) {
+      store.release(references);
+    }
+  }
+
+  /** Archivos pendientes de escribir. */
+  public int pending() {
+    return queue == null ? 0 : queue.size();
+  }
+
+  /** Archivos que no se pudieron escribir desde el inicio. */
+  public int failures() {
+    return failures.get();
+  }
+
+  /**
+   * Deja de aceptar pedidos en segundo plano y espera a que los escritores vacien la cola. Lo que
+   * quede en ella si no terminan a tiempo se escribe en el hilo que cierra.
+   */
+  @Override
+  public void close() {
+    if (writers == null) {
+      store.close();
+      return;
+    }
+    synchronized (offerLock) {
+      closed = true;
+    }
+    writers.shutdown();
     try {
-      Files.createDirectories(baseDir);
-      Files.writeString(path, content, StandardCharsets.UTF_8);
-      LOGGER.debug("Archivo de proceso creado: {}", path);
-      return path.toString();
+      if (!writers.awaitTermination(30, TimeUnit.SECONDS)) {
+        LOGGER.warn("Los escritores de archivos no terminaron a tiempo: {} pendientes", pending());
+        writers.shutdownNow();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      writers.shutdownNow();
+    }
+    List<DescriptionStore.Pending> rest = new ArrayList<>();
+    queue.drainTo(rest);
+    if (!rest.isEmpty()) {
+      LOGGER.info("Escribiendo {} archivos pendientes al cerrar", rest.size());
+      reportFailures(writeBatch(rest));
+    }
+    store.close();
+  }
+
+  private static DescriptionStore openStore(Path baseDir, DescriptionSegments segments) {
+    if (!segments.isEnabled()) {
+      return new FileDescriptionStore(baseDir);
+    }
+    try {
+      return new SegmentDescriptionStore(baseDir.resolve("segments"), segments);
     } catch (IOException ex) {
-      LOGGER.warn("No se pudo escribir archivo {}: {}", path, ex.getMessage());
-      return null;
+      throw new UncheckedIOException("No se pudo abrir los segmentos de descripciones", ex);
+    }
+  }
+
+  private Thread newWriter(Runnable runnable) {
+    Thread thread = new Thread(runnable, "process-file-writer");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private void drainLoop() {
+    List<DescriptionStore.Pending> batch = new ArrayList<>(MAX_BATCH);
+    try {
+      while (!closed || !queue.isEmpty()) {
+        DescriptionStore.Pending first = queue.poll(200, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, MAX_BATCH - 1);
+        reportFailures(writeBatch(batch));
+        batch.clear();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private List<String> writeBatch(List<DescriptionStore.Pending> batch) {
+    List<String> failed = store.write(batch, fsync);
+    failures.addAndGet(failed.size());
+    return failed;
+  }
+
+  /** Recuerda y avisa las referencias de un lote en segundo plano que no se pudieron escribir. */
+  private void reportFailures(List<String> failed) {
+    if (failed.isEmpty()) {
+      return;
+    }
+    synchronized (recentFailures) {
+      for (String reference : failed) {
+        recentFailures.remove(reference);
+        recentFailures.add(reference);
+      }
+      var iterator = recentFailures.iterator();
+      while (recentFailures.size() > MAX_TRACKED_FAILURES) {
+        iterator.next();
+        iterator.remove();
+      }
+    }
+    for (Consumer<List<String>> listener : failureListeners) {
+      try {
+        listener.accept(failed);
+      } catch (RuntimeException ex) {
+        LOGGER.warn(
+            "Fallo el aviso de {} archivos no escritos: {}", failed.size(), ex.getMessage());
+      }
     }
   }
 }
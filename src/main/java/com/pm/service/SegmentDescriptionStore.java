@@ -0,0 +1,619 @@
+package com.pm.service;
+
+import com.pm.domain.DescriptionSegments;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Guarda las descripciones una detras de otra en archivos de segmento grandes en lugar de un
+ * archivo por proceso. Cada descripcion recibe un id secuencial y su referencia es {@code
+ * segment:<id>}; un indice en memoria, con un arreglo por columna indexado por id, da el segmento,
+ * la posicion y el largo de cada una. Los segmentos cerrados se leen mapeados en memoria, un mapeo
+ * por segmento; el activo sigue creciendo y se lee con lecturas posicionales de su canal.
+ *
+ * <p>Cada registro del segmento lleva el id, el largo y el texto en UTF-8. El indice se persiste
+ * en {@code index.dat} como un registro de altas, bajas y reservas de ids que se reproduce al
+ * abrir; las entradas que apuntan mas alla del final de su segmento (escrituras cortadas) se
+ * descartan. Los ids se reservan en bloques que se fuerzan a disco antes de entregarlos, asi que un
+ * id guardado en la base nunca se reutiliza aunque su descripcion no llegue a escribirse.
+ *
+ * <p>Liberar una referencia la marca como borrada. Una tarea en segundo plano compacta los
+ * segmentos cerrados cuya proporcion de bytes borrados alcanza el umbral: copia los registros vivos
+ * al segmento activo, actualiza el indice y elimina el segmento viejo; al terminar reescribe el
+ * registro del indice si tiene mucho mas historia que entradas vivas. Es segura para hilos; las
+ * escrituras se serializan en un solo segmento activo.
+ */
+final class SegmentDescriptionStore implements DescriptionStore {
+
+  static final String PREFIX = "segment:";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentDescriptionStore.class);
+  private static final String INDEX_FILE = "index.dat";
+  private static final int HEADER = Long.BYTES + Integer.BYTES;
+  private static final int INDEX_ENTRY = Long.BYTES + Long.BYTES + Integer.BYTES;
+  private static final int ID_BLOCK = 4096;
+  private static final int OFFSET_BITS = 40;
+  private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+  /** Largo de un id reservado que aun no se escribio. */
+  private static final int ABSENT = -1;
+  /** Largo de un id liberado. */
+  private static final int DELETED = -2;
+  /** Largo de una entrada del indice que reserva los ids hasta el indicado. */
+  private static final int RESERVED = -3;
+
+  private final Path dir;
+  private final long maxSegmentBytes;
+  private final double compactRatio;
+  private final ScheduledExecutorService compactor;
+  private final Map<Integer, MappedByteBuffer> mappings = new HashMap<>();
+
+  private long[] positions = new long[ID_BLOCK];
+  private int[] lengths = filled(new int[ID_BLOCK], ABSENT);
+  private long nextId = 1;
+  private long reservedUntil;
+  private long[] segmentBytes = new long[8];
+  private long[] segmentLive = new long[8];
+  private int activeSegment;
+  private FileChannel active;
+  private FileChannel index;
+  private long indexEntries;
+  private long liveEntries;
+
+  SegmentDescriptionStore(Path dir, DescriptionSegments config) throws IOException {
+    this.dir = dir;
+    long maxBytes = Math.max(config.maxSegmentBytes(), 1L << 20);
+    this.maxSegmentBytes = Math.min(maxBytes, DescriptionSegments.MAX_SEGMENT_BYTES);
+    this.compactRatio = Math.min(Math.max(config.compactRatio(), 0.05), 1.0);
+    Duration compactInterval = config.compactInterval();
+    Files.createDirectories(dir);
+    load();
+    openActive(lastSegmentOnDisk() + 1);
+    if (compactInterval.isZero() || compactInterval.isNegative()) {
+      compactor = null;
+    } else {
+      compactor =
+          Executors.newSingleThreadScheduledExecutor(
+              runnable -> {
+                Thread thread = new Thread(runnable, "description-compactor");
+                thread.setDaemon(true);
+                return thread;
+              });
+      long millis = compactInterval.toMillis();
+      compactor.scheduleWithFixedDelay(this::safeCompact, millis, millis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public synchronized String reserve(String processName, long pid) {
+    if (nextId > reservedUntil) {
+      try {
+        long until = nextId + ID_BLOCK - 1;
+        appendIndex(until, 0, RESERVED);
+        index.force(false);
+        reservedUntil = until;
+      } catch (IOException ex) {
+        throw new IllegalStateException("No se pudo reservar ids de descripcion", ex);
+      }
+    }
+    long id = nextId++;
+    ensureId(id);
+    return PREFIX + id;
+  }
+
+  @Override
+  public synchronized List<String> write(List<Pending> batch, boolean fsync) {
+    // Entradas del lote que ya no hay que escribir: indexadas o dadas de baja.
+    boolean[] done = new boolean[batch.size()];
+    int[] writtenAt = new int[batch.size()];
+    long[] written = new long[batch.size() * 3];
+    int count = 0;
+    try {
+      for (int b = 0; b < batch.size(); b++) {
+        Pending pending = batch.get(b);
+        long id = parseId(pending.reference());
+        if (id <= 0 || id >= nextId || lengths[(int) id] == DELETED) {
+          done[b] = true;
+          continue;
+        }
+        byte[] bytes = pending.content().getBytes(StandardCharsets.UTF_8);
+        long position = append(id, bytes);
+        writtenAt[count / 3] = b;
+        written[count++] = id;
+        written[count++] = position;
+        written[count++] = bytes.length;
+      }
+      if (fsync) {
+        active.force(false);
+      }
+      for (int i = 0; i < count; i += 3) {
+        long id = written[i];
+        if (lengths[(int) id] != DELETED) {
+          appendIndex(id, written[i + 1], (int) written[i + 2]);
+          positions[(int) id] = written[i + 1];
+          lengths[(int) id] = (int) written[i + 2];
+          liveEntries++;
+        }
+        done[writtenAt[i / 3]] = true;
+      }
+      if (fsync) {
+        index.force(false);
+      }
+    } catch (IOException ex) {
+      LOGGER.warn("No se pudo escribir en el segmento {}: {}", activeSegment, ex.getMessage());
+      List<String> failed = new ArrayList<>();
+      for (int b = 0; b < batch.size(); b++) {
+        if (!done[b]) {
+          failed.add(batch.get(b).reference());
+        }
+      }
+      return failed;
+    }
+    return List.of();
+  }
+
+  @Override
+  public String read(String reference) throws IOException {
+    long id = parseId(reference);
+    if (id <= 0) {
+      return null;
+    }
+    ByteBuffer record;
+    int length;
+    synchronized (this) {
+      if (id >= nextId || lengths[(int) id] < 0) {
+        return null;
+      }
+      length = lengths[(int) id];
+      long position = positions[(int) id];
+      int offset = (int) (position & OFFSET_MASK);
+      int segment = (int) (position >>> OFFSET_BITS);
+      if (segment == activeSegment) {
+        record = ByteBuffer.allocate(HEADER + length);
+        while (record.hasRemaining()) {
+          if (active.read(record, offset + record.position()) < 0) {
+            throw new IOException("Registro de descripcion incompleto: " + reference);
+          }
+        }
+      } else {
+        record = mapping(segment).slice(offset, HEADER + length);
+      }
+    }
+    // La copia se hace fuera del candado: un segmento compactado sigue mapeado hasta liberarse.
+    if (record.getLong(0) != id || record.getInt(Long.BYTES) != length) {
+      throw new IOException("Registro de descripcion corrupto: " + reference);
+    }
+    byte[] bytes = new byte[length];
+    record.get(HEADER, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public synchronized void release(Collection<String> references) {
+    boolean changed = false;
+    try {
+      for (String reference : references) {
+        long id = parseId(reference);
+        if (id <= 0 || id >= nextId || lengths[(int) id] == DELETED) {
+          continue;
+        }
+        if (lengths[(int) id] >= 0) {
+          int segment = (int) (positions[(int) id] >>> OFFSET_BITS);
+          segmentLive[segment] -= HEADER + lengths[(int) id];
+          liveEntries--;
+        }
+        lengths[(int) id] = DELETED;
+        appendIndex(id, 0, DELETED);
+        changed = true;
+      }
+      if (changed) {
+        index.force(false);
+      }
+    } catch (IOException ex) {
+      LOGGER.warn("No se pudo registrar la baja de descripciones: {}", ex.getMessage());
+    }
+  }
+
+  /** Bytes vivos y totales de los segmentos, para el log y las pruebas manuales. */
+  synchronized long[] usage() {
+    long live = 0;
+    long total = 0;
+    for (int s = 1; s < segmentBytes.length; s++) {
+      live += segmentLive[s];
+      total += segmentBytes[s];
+    }
+    return new long[] {live, total};
+  }
+
+  /**
+   * Compacta los segmentos cerrados con suficientes bytes borrados.
+   *
+   * @return segmentos compactados
+   */
+  int compact() throws IOException {
+    int compacted = 0;
+    for (int segment : candidates()) {
+      compactSegment(segment);
+      compacted++;
+    }
+    if (compacted > 0) {
+      rewriteIndexIfBloated();
+    }
+    return compacted;
+  }
+
+  @Override
+  public void close() {
+    if (compactor != null) {
+      // Sin interrumpir: una interrupcion durante una escritura cerraria los canales.
+      compactor.shutdown();
+      try {
+        compactor.awaitTermination(5, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    synchronized (this) {
+      closeQuietly(active);
+      closeQuietly(index);
+      mappings.clear();
+    }
+  }
+
+  static boolean isReference(String reference) {
+    return reference != null && reference.startsWith(PREFIX);
+  }
+
+  private void safeCompact() {
+    try {
+      long start = System.nanoTime();
+      int compacted = compact();
+      if (compacted > 0) {
+        long[] usage = usage();
+        LOGGER.info(
+            "Compactados {} segmentos de descripciones en {} ms; {} de {} bytes vivos",
+            compacted,
+            (System.nanoTime() - start) / 1_000_000,
+            usage[0],
+            usage[1]);
+      }
+    } catch (IOException | RuntimeException ex) {
+      LOGGER.warn("Fallo la compactacion de descripciones: {}", ex.getMessage());
+    }
+  }
+
+  private synchronized List<Integer> candidates() {
+    List<Integer> result = new ArrayList<>();
+    for (int s = 1; s < segmentBytes.length; s++) {
+      if (s != activeSegment
+          && segmentBytes[s] > 0
+          && segmentBytes[s] - segmentLive[s] >= segmentBytes[s] * compactRatio) {
+        result.add(s);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Copia los registros vivos del segmento al activo y lo elimina. Los registros se buscan en el
+   * indice y no recorriendo el archivo, que puede tener restos de una escritura cortada. El candado
+   * se toma por registro para no frenar a los escritores durante toda la compactacion.
+   */
+  private void compactSegment(int segment) throws IOException {
+    List<Long> ids = new ArrayList<>();
+    synchronized (this) {
+      for (int id = 1; id < nextId; id++) {
+        if (lengths[id] >= 0 && positions[id] >>> OFFSET_BITS == segment) {
+          ids.add((long) id);
+        }
+      }
+    }
+    Path file = segmentPath(segment);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer source = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      for (long id : ids) {
+        synchronized (this) {
+          int length = lengths[(int) id];
+          long position = positions[(int) id];
+          if (length < 0 || position >>> OFFSET_BITS != segment) {
+            continue;
+          }
+          int offset = (int) (position & OFFSET_MASK);
+          if (source.getLong(offset) != id || source.getInt(offset + Long.BYTES) != length) {
+            throw new IOException("Registro " + id + " corrupto en " + file);
+          }
+          byte[] bytes = new byte[length];
+          source.get(offset + HEADER, bytes);
+          long moved = append(id, bytes);
+          appendIndex(id, moved, length);
+          positions[(int) id] = moved;
+          segmentLive[segment] -= HEADER + length;
+        }
+      }
+    }
+    synchronized (this) {
+      // Los registros movidos quedan en disco antes de borrar el segmento que los tenia.
+      active.force(false);
+      index.force(false);
+      mappings.remove(segment);
+      Files.deleteIfExists(file);
+      segmentBytes[segment] = 0;
+      segmentLive[segment] = 0;
+    }
+  }
+
+  /** Reescribe el registro del indice con solo las entradas vivas y la reserva vigente. */
+  private synchronized void rewriteIndexIfBloated() throws IOException {
+    if (indexEntries < 2 * liveEntries + ID_BLOCK) {
+      return;
+    }
+    Path tmp = dir.resolve(INDEX_FILE + ".tmp");
+    long entries = 0;
+    try (FileChannel out =
+        FileChannel.open(
+            tmp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(INDEX_ENTRY * 1024);
+      put(out, buffer, reservedUntil, 0, RESERVED);
+      entries++;
+      for (int id = 1; id < nextId; id++) {
+        if (lengths[id] >= 0) {
+          put(out, buffer, id, positions[id], lengths[id]);
+          entries++;
+        }
+      }
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        out.write(buffer);
+      }
+      out.force(false);
+    }
+    closeQuietly(index);
+    Files.move(
+        tmp,
+        dir.resolve(INDEX_FILE),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    FileDescriptionStore.syncDirectory(dir);
+    index = FileChannel.open(dir.resolve(INDEX_FILE), StandardOpenOption.WRITE);
+    index.position(index.size());
+    LOGGER.debug("Indice de descripciones reescrito: {} -> {} entradas", indexEntries, entries);
+    indexEntries = entries;
+  }
+
+  private static void put(FileChannel out, ByteBuffer buffer, long id, long position, int length)
+      throws IOException {
+    if (buffer.remaining() < INDEX_ENTRY) {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        out.write(buffer);
+      }
+      buffer.clear();
+    }
+    buffer.putLong(id).putLong(position).putInt(length);
+  }
+
+  /** Reproduce el registro del indice y mide los segmentos existentes. */
+  private void load() throws IOException {
+    int last = lastSegmentOnDisk();
+    for (int s = 1; s <= last; s++) {
+      Path file = segmentPath(s);
+      if (Files.exists(file)) {
+        ensureSegment(s);
+        segmentBytes[s] = Files.size(file);
+      }
+    }
+    Path indexPath = dir.resolve(INDEX_FILE);
+    index =
+        FileChannel.open(
+            indexPath,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    long size = index.size();
+    long whole = size - size % INDEX_ENTRY;
+    ByteBuffer buffer = ByteBuffer.allocate(INDEX_ENTRY * 1024);
+    long read = 0;
+    long maxId = 0;
+    while (read < whole) {
+      buffer.clear();
+      buffer.limit((int) Math.min(buffer.capacity(), whole - read));
+      while (buffer.hasRemaining() && index.read(buffer, read + buffer.position()) > 0) {
+        // Lee hasta completar el bloque.
+      }
+      buffer.flip();
+      while (buffer.remaining() >= INDEX_ENTRY) {
+        long id = buffer.getLong();
+        long position = buffer.getLong();
+        int length = buffer.getInt();
+        indexEntries++;
+        if (length == RESERVED) {
+          reservedUntil = Math.max(reservedUntil, id);
+          continue;
+        }
+        if (id <= 0 || id > Integer.MAX_VALUE - 1) {
+          continue;
+        }
+        ensureId(id);
+        maxId = Math.max(maxId, id);
+        if (length == DELETED) {
+          lengths[(int) id] = DELETED;
+        } else if (length >= 0 && lengths[(int) id] != DELETED && fits(position, length)) {
+          positions[(int) id] = position;
+          lengths[(int) id] = length;
+        }
+      }
+      read += buffer.limit();
+    }
+    if (whole != size) {
+      // Entrada cortada por una caida: se descarta.
+      index.truncate(whole);
+    }
+    index.position(whole);
+    // Los segmentos vacios de aperturas anteriores ya no sirven; el activo siempre es uno nuevo.
+    for (int s = 1; s <= last; s++) {
+      if (s < segmentBytes.length && segmentBytes[s] == 0) {
+        Files.deleteIfExists(segmentPath(s));
+      }
+    }
+    nextId = Math.max(maxId, reservedUntil) + 1;
+    reservedUntil = nextId - 1;
+    for (int id = 1; id < nextId; id++) {
+      if (lengths[id] >= 0) {
+        segmentLive[(int) (positions[id] >>> OFFSET_BITS)] += HEADER + lengths[id];
+        liveEntries++;
+      }
+    }
+    LOGGER.info(
+        "Segmentos de descripciones abiertos en {}: {} descripciones vivas, proximo id {}",
+        dir,
+        liveEntries,
+        nextId);
+  }
+
+  private boolean fits(long position, int length) {
+    int segment = (int) (position >>> OFFSET_BITS);
+    return segment > 0
+        && segment < segmentBytes.length
+        && (position & OFFSET_MASK) + HEADER + length <= segmentBytes[segment];
+  }
+
+  private int lastSegmentOnDisk() throws IOException {
+    int last = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "seg-*.dat")) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        try {
+          last = Math.max(last, Integer.parseInt(name.substring(4, name.length() - 4)));
+        } catch (NumberFormatException ignored) {
+          // Archivo ajeno al almacen.
+        }
+      }
+    }
+    return last;
+  }
+
+  private void openActive(int segment) throws IOException {
+    ensureSegment(segment);
+    active =
+        FileChannel.open(
+            segmentPath(segment),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    active.position(active.size());
+    segmentBytes[segment] = active.size();
+    activeSegment = segment;
+  }
+
+  /** Agrega el registro al segmento activo, abriendo uno nuevo si no entra, y da su posicion. */
+  private long append(long id, byte[] bytes) throws IOException {
+    if (segmentBytes[activeSegment] > 0
+        && segmentBytes[activeSegment] + HEADER + bytes.length > maxSegmentBytes) {
+      active.force(false);
+      closeQuietly(active);
+      openActive(activeSegment + 1);
+    }
+    long offset = segmentBytes[activeSegment];
+    ByteBuffer record = ByteBuffer.allocate(HEADER + bytes.length);
+    record.putLong(id).putInt(bytes.length).put(bytes).flip();
+    while (record.hasRemaining()) {
+      active.write(record);
+    }
+    segmentBytes[activeSegment] += HEADER + bytes.length;
+    segmentLive[activeSegment] += HEADER + bytes.length;
+    return ((long) activeSegment << OFFSET_BITS) | offset;
+  }
+
+  private void appendIndex(long id, long position, int length) throws IOException {
+    ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY);
+    entry.putLong(id).putLong(position).putInt(length).flip();
+    while (entry.hasRemaining()) {
+      index.write(entry);
+    }
+    indexEntries++;
+  }
+
+  /** Mapeo de un segmento cerrado; como ya no crece se mapea una sola vez completo. */
+  private MappedByteBuffer mapping(int segment) throws IOException {
+    MappedByteBuffer mapping = mappings.get(segment);
+    if (mapping == null) {
+      try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+        mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+      mappings.put(segment, mapping);
+    }
+    return mapping;
+  }
+
+  private Path segmentPath(int segment) {
+    return dir.resolve(String.format("seg-%06d.dat", segment));
+  }
+
+  private void ensureId(long id) {
+    if (id >= lengths.length) {
+      long grown = Math.max(id + 1, lengths.length + (lengths.length >> 1));
+      int size = (int) Math.min(grown, Integer.MAX_VALUE - 8);
+      positions = Arrays.copyOf(positions, size);
+      int old = lengths.length;
+      lengths = Arrays.copyOf(lengths, size);
+      Arrays.fill(lengths, old, size, ABSENT);
+    }
+  }
+
+  private void ensureSegment(int segment) {
+    if (segment >= segmentBytes.length) {
+      int size = Math.max(segment + 1, segmentBytes.length * 2);
+      segmentBytes = Arrays.copyOf(segmentBytes, size);
+      segmentLive = Arrays.copyOf(segmentLive, size);
+    }
+  }
+
+  private static long parseId(String reference) {
+    if (!isReference(reference)) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(reference, PREFIX.length(), reference.length(), 10);
+    } catch (NumberFormatException ex) {
+      return -1;
+    }
+  }
+
+  private static int[] filled(int[] array, int value) {
+    Arrays.fill(array, value);
+    return array;
+  }
+
+  private static void closeQuietly(FileChannel channel) {
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (IOException ex) {
+      LOGGER.debug("No se pudo cerrar un segmento de descripciones: {}", ex.getMessage());
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package com.pm.service;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Automata de Aho-Corasick que indica si un texto contiene alguno de varios patrones, sin
+ * distinguir mayusculas. Se arma una vez con la lista de patrones y recorre cada texto en una
+ * pasada, con un costo que depende del largo del texto y no de la cantidad de patrones.
+ *
+ * <p>Las transiciones quedan resueltas en una tabla densa (estado x clase de caracter) que ya
+ * incluye los enlaces de falla, asi que cada caracter es una lectura de la tabla. Solo los
+ * caracteres que aparecen en algun patron tienen clase; cualquier otro vuelve al estado inicial.
+ * Patrones y texto se pasan a minusculas caracter a caracter con {@link
+ * Character#toLowerCase(char)} dentro del recorrido, sin crear cadenas. Es inmutable y seguro para
+ * hilos.
+ */
+final class SubstringMatcher {
+
+  private static final int ASCII = 128;
+
+  private final int[] asciiClasses = new int[ASCII];
+  private final char[] otherChars;
+  private final int alphabet;
+  private final int[] transitions;
+  private final boolean[] accepting;
+
+  SubstringMatcher(List<String> patterns) {
+    Arrays.fill(asciiClasses, -1);
+    char[] others = new char[0];
+    int otherCount = 0;
+    int classes = 0;
+    int nodes = 1;
+    for (String pattern : patterns) {
+      for (int i = 0; i < pattern.length(); i++) {
+        char c = Character.toLowerCase(pattern.charAt(i));
+        if (c < ASCII) {
+          if (asciiClasses[c] < 0) {
+            asciiClasses[c] = classes++;
+          }
+        } else if (indexOf(others, otherCount, c) < 0) {
+          if (otherCount == others.length) {
+            others = Arrays.copyOf(others, Math.max(4, otherCount * 2));
+          }
+          others[otherCount++] = c;
+        }
+      }
+      nodes += pattern.length();
+    }
+    // Los caracteres no ASCII se ordenan para buscarlos por biseccion; su clase sigue a las ASCII.
+    otherChars = Arrays.copyOf(others, otherCount);
+    Arrays.sort(otherChars);
+    alphabet = classes + otherCount;
+
+    // Trie: -1 marca una transicion que todavia no existe.
+    int[] table = new int[nodes * Math.max(alphabet, 1)];
+    Arrays.fill(table, -1);
+    boolean[] terminal = new boolean[nodes];
+    int states = 1;
+    for (String pattern : patterns) {
+      int state = 0;
+      for (int i = 0; i < pattern.length(); i++) {
+        int cls = classOf(Character.toLowerCase(pattern.charAt(i)));
+        int slot = state * alphabet + cls;
+        if (table[slot] < 0) {
+          table[slot] = states++;
+        }
+        state = table[slot];
+      }
+      terminal[state] = true;
+    }
+
+    // Recorrido en anchura: cada estado hereda las transiciones faltantes y la aceptacion de su
+    // enlace de falla, que siempre esta a menor profundidad y ya se completo.
+    int[] failure = new int[states];
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    for (int cls = 0; cls < alphabet; cls++) {
+      int next = table[cls];
+      if (next < 0) {
+        table[cls] = 0;
+      } else {
+        failure[next] = 0;
+        queue.add(next);
+      }
+    }
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      terminal[state] |= terminal[failure[state]];
+      for (int cls = 0; cls < alphabet; cls++) {
+        int slot = state * alphabet + cls;
+        int fallback = table[failure[state] * alphabet + cls];
+        if (table[slot] < 0) {
+          table[slot] = fallback;
+        } else {
+          failure[table[slot]] = fallback;
+          queue.add(table[slot]);
+        }
+      }
+    }
+    transitions = Arrays.copyOf(table, states * alphabet);
+    accepting = Arrays.copyOf(terminal, states);
+  }
+
+  /**
+   * Indica si el texto contiene alguno de los patrones. Un patron vacio coincide con cualquier
+   * texto, igual que {@link String#contains(CharSequence)}.
+   */
+  boolean matches(String text) {
+    if (accepting[0]) {
+      return true;
+    }
+    int state = 0;
+    for (int i = 0; i < text.length(); i++) {
+      int cls = classOf(Character.toLowerCase(text.charAt(i)));
+      state = cls < 0 ? 0 : transitions[state * alphabet + cls];
+      if (accepting[state]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int classOf(char c) {
+    if (c < ASCII) {
+      return asciiClasses[c];
+    }
+    int index = Arrays.binarySearch(otherChars, c);
+    return index < 0 ? -1 : alphabet - otherChars.length + index;
+  }
+
+  private static int indexOf(char[] chars, int count, char c) {
+    for (int i = 0; i < count; i++) {
+      if (chars[i] == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,398 @@
+package com.pm.service.capture;
+
+import com.pm.domain.process.ProcessSnapshot;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cuadro columnar de una captura: una fila por posicion de la lista de pids, guardada en arreglos
+ * primitivos paralelos (pid, CPU, memoria, disco, prioridad), y los grupos que forma la agregacion
+ * en otro juego de columnas. Los nombres se codifican con un diccionario que se conserva entre
+ * capturas, de modo que agrupar por nombre compara enteros y no crea claves por proceso; los
+ * miembros de cada grupo quedan enlazados por posicion.
+ *
+ * <p>Los arreglos solo se agrandan, asi que un cuadro reutilizado no reserva memoria en capturas
+ * de tamano parecido. Las particiones de una captura escriben filas disjuntas con {@link #setRow};
+ * la agregacion y la lectura de grupos se hacen desde un solo hilo. No es seguro compartir un
+ * cuadro entre capturas simultaneas.
+ */
+final class CaptureFrame {
+
+  /** Prioridad de las filas que no la informan. */
+  static final int NO_PRIORITY = Integer.MIN_VALUE;
+
+  /** Nombres distintos que se conservan antes de vaciar el diccionario. */
+  private static final int MAX_DICTIONARY = 65_536;
+
+  private final CpuSampleSeries series = new CpuSampleSeries(0, 1);
+  private final ProcessTree tree = new ProcessTree();
+  private final Map<String, Integer> dictionary = new HashMap<>();
+
+  private int rows;
+  private long[] pids = new long[0];
+  private boolean[] present = new boolean[0];
+  private long[] cpuBasisPoints = new long[0];
+  private long[] memBytes = new long[0];
+  private long[] ioRead = new long[0];
+  private long[] ioWrite = new long[0];
+  private long[] ioReadBase = new long[0];
+  private long[] ioWriteBase = new long[0];
+  private int[] priorities = new int[0];
+  private boolean[] systemProcesses = new boolean[0];
+  private String[] names = new String[0];
+  private String[] users = new String[0];
+  private int[] nextMember = new int[0];
+  private int[] keyGroups = new int[0];
+
+  private int groupCount;
+  private int[] groupKeys = new int[0];
+  private int[] groupHead = new int[0];
+  private int[] groupTail = new int[0];
+  private int[] groupSize = new int[0];
+  private long[] groupPid = new long[0];
+  private long[] groupCpu = new long[0];
+  private long[] groupMem = new long[0];
+  private long[] groupIoRead = new long[0];
+  private long[] groupIoWrite = new long[0];
+  private int[] groupPriority = new int[0];
+  private boolean[] groupSystem = new boolean[0];
+  private String[] groupName = new String[0];
+  private String[] groupUser = new String[0];
+  private double[] scores = new double[0];
+
+  /** Prepara {@code rows} filas vacias y descarta los grupos de la captura anterior. */
+  void reset(int rows) {
+    this.rows = rows;
+    if (pids.length < rows) {
+      int size = Math.max(rows, pids.length + (pids.length >> 1));
+      pids = new long[size];
+      present = new boolean[size];
+      cpuBasisPoints = new long[size];
+      memBytes = new long[size];
+      ioRead = new long[size];
+      ioWrite = new long[size];
+      ioReadBase = new long[size];
+      ioWriteBase = new long[size];
+      priorities = new int[size];
+      systemProcesses = new boolean[size];
+      names = new String[size];
+      users = new String[size];
+      nextMember = new int[size];
+      keyGroups = new int[size];
+      growGroups(size);
+    } else {
+      Arrays.fill(present, 0, rows, false);
+      // Suelta las referencias de la captura anterior para no retener nombres de procesos muertos.
+      Arrays.fill(names, 0, rows, null);
+      Arrays.fill(users, 0, rows, null);
+    }
+    groupCount = 0;
+  }
+
+  int rows() {
+    return rows;
+  }
+
+  /** Arbol de procesos reutilizable del cuadro; se prepara con {@link ProcessTree#reset(int)}. */
+  ProcessTree tree() {
+    return tree;
+  }
+
+  /** Serie de CPU reutilizable del cuadro, preparada para sus filas. */
+  CpuSampleSeries series(int samples) {
+    series.reset(rows, samples);
+    return series;
+  }
+
+  void setRow(
+      int row,
+      long pid,
+      String nombre,
+      String usuario,
+      long cpu,
+      long mem,
+      long ioReadRate,
+      long ioWriteRate,
+      int priority,
+      boolean systemProcess) {
+    pids[row] = pid;
+    names[row] = nombre;
+    users[row] = usuario;
+    cpuBasisPoints[row] = cpu;
+    memBytes[row] = mem;
+    ioRead[row] = ioReadRate;
+    ioWrite[row] = ioWriteRate;
+    priorities[row] = priority;
+    systemProcesses[row] = systemProcess;
+    present[row] = true;
+  }
+
+  /** Guarda los contadores de disco de la linea base de la fila. */
+  void setIoBase(int row, long read, long write) {
+    ioReadBase[row] = read;
+    ioWriteBase[row] = write;
+  }
+
+  long ioReadBase(int row) {
+    return ioReadBase[row];
+  }
+
+  long ioWriteBase(int row) {
+    return ioWriteBase[row];
+  }
+
+  boolean isPresent(int row) {
+    return present[row];
+  }
+
+  long pid(int row) {
+    return pids[row];
+  }
+
+  String name(int row) {
+    return names[row];
+  }
+
+  String user(int row) {
+    return users[row];
+  }
+
+  void setUser(int row, String usuario) {
+    users[row] = usuario;
+  }
+
+  long cpu(int row) {
+    return cpuBasisPoints[row];
+  }
+
+  long mem(int row) {
+    return memBytes[row];
+  }
+
+  long ioRead(int row) {
+    return ioRead[row];
+  }
+
+  long ioWrite(int row) {
+    return ioWrite[row];
+  }
+
+  /** Cantidad de filas con datos. */
+  int presentRows() {
+    int count = 0;
+    for (int row = 0; row < rows; row++) {
+      if (present[row]) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Devuelve el codigo del texto en el diccionario de nombres, agregandolo si no esta. El
+   * diccionario se conserva entre capturas y se vacia al superar su tamano maximo, antes de
+   * empezar una agregacion.
+   */
+  int encode(String value) {
+    Integer code = dictionary.get(value);
+    if (code == null) {
+      code = dictionary.size();
+      dictionary.put(value, code);
+    }
+    return code;
+  }
+
+  /** Prepara una agregacion cuyas claves seran codigos del diccionario o posiciones de fila. */
+  void startGrouping() {
+    if (dictionary.size() > MAX_DICTIONARY) {
+      dictionary.clear();
+    }
+    groupCount = 0;
+  }
+
+  /**
+   * Suma la fila al grupo de la clave, creandolo si es la primera fila con esa clave. Las claves
+   * son enteros no negativos: codigos del diccionario o posiciones de fila.
+   *
+   * @param nombre nombre del grupo si la fila lo crea o si el grupo aun no tiene uno conocido
+   * @return el grupo de la fila
+   */
+  int addToGroup(int row, int key, String nombre) {
+    if (key >= keyGroups.length) {
+      keyGroups = Arrays.copyOf(keyGroups, Math.max(key + 1, keyGroups.length * 2));
+    }
+    // Las claves de capturas anteriores pueden apuntar a grupos ya reutilizados: se compara con la
+    // clave guardada en el grupo en lugar de limpiar el arreglo en cada captura.
+    int group = keyGroups[key];
+    if (group < 0 || group >= groupCount || groupKeys[group] != key) {
+      group = newGroup(row, key, nombre);
+      keyGroups[key] = group;
+      return group;
+    }
+    merge(group, row, nombre);
+    return group;
+  }
+
+  /** Crea un grupo propio para la fila, sin clave. */
+  int addAlone(int row, String nombre) {
+    return newGroup(row, -1, nombre);
+  }
+
+  private int newGroup(int row, int key, String nombre) {
+    int group = groupCount++;
+    if (group >= groupHead.length) {
+      growGroups(Math.max(group + 1, groupHead.length * 2));
+    }
+    groupKeys[group] = key;
+    groupHead[group] = row;
+    groupTail[group] = row;
+    groupSize[group] = 1;
+    nextMember[row] = -1;
+    groupPid[group] = pids[row];
+    groupCpu[group] = cpuBasisPoints[row];
+    groupMem[group] = memBytes[row];
+    groupIoRead[group] = ioRead[row];
+    groupIoWrite[group] = ioWrite[row];
+    groupPriority[group] = priorities[row];
+    groupSystem[group] = systemProcesses[row];
+    groupName[group] = nombre;
+    groupUser[group] = isUnknown(users[row]) ? null : users[row].trim();
+    return group;
+  }
+
+  private void merge(int group, int row, String nombre) {
+    nextMember[groupTail[group]] = row;
+    nextMember[row] = -1;
+    groupTail[group] = row;
+    groupSize[group]++;
+    if (isUnknown(groupName[group]) && !isUnknown(nombre)) {
+      groupName[group] = nombre;
+    }
+    groupPid[group] = Math.min(groupPid[group], pids[row]);
+    groupCpu[group] = sumMetric(groupCpu[group], cpuBasisPoints[row]);
+    groupMem[group] = sumMetric(groupMem[group], memBytes[row]);
+    groupIoRead[group] = sumMetric(groupIoRead[group], ioRead[row]);
+    groupIoWrite[group] = sumMetric(groupIoWrite[group], ioWrite[row]);
+    if (groupUser[group] == null && !isUnknown(users[row])) {
+      groupUser[group] = users[row].trim();
+    }
+    if (priorities[row] != NO_PRIORITY) {
+      groupPriority[group] = Math.max(groupPriority[group], priorities[row]);
+    }
+    groupSystem[group] |= systemProcesses[row];
+  }
+
+  /** Usa el nombre indicado para el grupo, salvo que sea desconocido. */
+  void renameGroup(int group, String nombre) {
+    if (!isUnknown(nombre)) {
+      groupName[group] = nombre;
+    }
+  }
+
+  int groupCount() {
+    return groupCount;
+  }
+
+  String groupName(int group) {
+    return groupName[group];
+  }
+
+  String groupUser(int group) {
+    return groupUser[group];
+  }
+
+  long groupPid(int group) {
+    return groupPid[group];
+  }
+
+  long groupCpu(int group) {
+    return groupCpu[group];
+  }
+
+  long groupMem(int group) {
+    return groupMem[group];
+  }
+
+  void setGroupMem(int group, long mem) {
+    groupMem[group] = mem;
+  }
+
+  long groupIoRead(int group) {
+    return groupIoRead[group];
+  }
+
+  long groupIoWrite(int group) {
+    return groupIoWrite[group];
+  }
+
+  /** Prioridad maxima de los miembros, o {@link #NO_PRIORITY}. */
+  int groupPriority(int group) {
+    return groupPriority[group];
+  }
+
+  boolean groupSystem(int group) {
+    return groupSystem[group];
+  }
+
+  /** Pids de los miembros del grupo en el orden en que se agruparon. */
+  long[] groupMembers(int group) {
+    long[] members = new long[groupSize[group]];
+    int i = 0;
+    for (int row = groupHead[group]; row >= 0; row = nextMember[row]) {
+      members[i++] = pids[row];
+    }
+    return members;
+  }
+
+  /** Memoria de cada miembro tal como se capturo, alineada con {@link #groupMembers(int)}. */
+  long[] groupMemberMemory(int group) {
+    long[] memory = new long[groupSize[group]];
+    int i = 0;
+    for (int row = groupHead[group]; row >= 0; row = nextMember[row]) {
+      memory[i++] = memBytes[row];
+    }
+    return memory;
+  }
+
+  /**
+   * Arreglo de puntajes reutilizable con al menos una posicion por grupo; las posiciones sobrantes
+   * no tienen significado.
+   */
+  double[] groupScores() {
+    if (scores.length < groupCount) {
+      scores = new double[groupHead.length];
+    }
+    return scores;
+  }
+
+  private void growGroups(int size) {
+    groupKeys = Arrays.copyOf(groupKeys, size);
+    groupHead = Arrays.copyOf(groupHead, size);
+    groupTail = Arrays.copyOf(groupTail, size);
+    groupSize = Arrays.copyOf(groupSize, size);
+    groupPid = Arrays.copyOf(groupPid, size);
+    groupCpu = Arrays.copyOf(groupCpu, size);
+    groupMem = Arrays.copyOf(groupMem, size);
+    groupIoRead = Arrays.copyOf(groupIoRead, size);
+    groupIoWrite = Arrays.copyOf(groupIoWrite, size);
+    groupPriority = Arrays.copyOf(groupPriority, size);
+    groupSystem = Arrays.copyOf(groupSystem, size);
+    groupName = Arrays.copyOf(groupName, size);
+    groupUser = Arrays.copyOf(groupUser, size);
+  }
+
+  static boolean isUnknown(String value) {
+    return value == null || value.isBlank() || "unknown".equalsIgnoreCase(value);
+  }
+
+  static long sumMetric(long base, long extra) {
+    if (base == ProcessSnapshot.UNKNOWN) {
+      return extra;
+    }
+    if (extra == ProcessSnapshot.UNKNOWN) {
+      return base;
+    }
+    return base + extra;
+  }
+}
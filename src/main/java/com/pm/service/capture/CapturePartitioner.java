@@ -0,0 +1,96 @@
+package com.pm.service.capture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reparte un rango de indices en particiones contiguas y las procesa en un {@link ForkJoinPool}
+ * propio. Cada particion produce su propio resultado y los resultados se devuelven en el orden de
+ * las particiones, de modo que concatenarlos reproduce el orden de un recorrido secuencial.
+ *
+ * <p>Con paralelismo 1, o cuando el rango es demasiado chico para compensar el reparto, la tarea se
+ * ejecuta en el hilo que llama y no se crea ningun pool.
+ */
+final class CapturePartitioner implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CapturePartitioner.class);
+
+  /** Cantidad minima de elementos por particion para que valga la pena repartir. */
+  static final int MIN_PARTITION_SIZE = 256;
+
+  private final int parallelism;
+  private final ForkJoinPool pool;
+
+  CapturePartitioner(int parallelism) {
+    this.parallelism = Math.max(parallelism, 1);
+    this.pool = this.parallelism > 1 ? new ForkJoinPool(this.parallelism) : null;
+  }
+
+  /** Tarea aplicada a la particion {@code [from, to)}. */
+  @FunctionalInterface
+  interface PartitionTask<T> {
+    T run(int from, int to);
+  }
+
+  int parallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Ejecuta la tarea sobre {@code [0, size)} y devuelve un resultado por particion, en orden.
+   *
+   * @throws IllegalStateException si una particion falla o el hilo es interrumpido
+   */
+  <T> List<T> run(int size, PartitionTask<T> task) {
+    int partitions = pool == null ? 1 : Math.min(parallelism, size / MIN_PARTITION_SIZE);
+    if (partitions <= 1) {
+      return List.of(task.run(0, size));
+    }
+    List<Callable<T>> calls = new ArrayList<>(partitions);
+    for (int i = 0; i < partitions; i++) {
+      // Limites calculados en long para no desbordar con rangos grandes.
+      int from = (int) ((long) size * i / partitions);
+      int to = (int) ((long) size * (i + 1) / partitions);
+      calls.add(() -> task.run(from, to));
+    }
+    List<T> results = new ArrayList<>(partitions);
+    try {
+      for (Future<T> future : pool.invokeAll(calls)) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Captura paralela interrumpida", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IllegalStateException("Fallo una particion de la captura", ex.getCause());
+    }
+    return results;
+  }
+
+  @Override
+  public void close() {
+    if (pool == null) {
+      return;
+    }
+    pool.shutdown();
+    try {
+      if (!pool.awaitTermination(5, TimeUnit.SECONDS)) {
+        LOGGER.warn("El pool de captura no termino a tiempo, se fuerza el cierre");
+        pool.shutdownNow();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      pool.shutdownNow();
+    }
+  }
+}
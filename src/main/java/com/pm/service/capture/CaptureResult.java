@@ -0,0 +1,17 @@
+package com.pm.service.capture;
+
+import com.pm.domain.process.CgroupSnapshot;
+import com.pm.domain.process.ProcessSnapshot;
+import java.util.List;
+
+/**
+ * Resultado de una captura: los procesos elegidos y, si se pidieron, los cgroups elegidos con el
+ * mismo criterio y la misma N.
+ */
+public record CaptureResult(List<ProcessSnapshot> procesos, List<CgroupSnapshot> cgroups) {
+
+  public CaptureResult {
+    procesos = List.copyOf(procesos);
+    cgroups = List.copyOf(cgroups);
+  }
+}
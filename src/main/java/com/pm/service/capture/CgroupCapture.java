@@ -0,0 +1,292 @@
+package com.pm.service.capture;
+
+import com.pm.domain.process.CgroupSnapshot;
+import com.pm.domain.process.ProcessSnapshot;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Agrupa los procesos de una captura por su cgroup v2 y mide cada cgroup con sus propios archivos:
+ * {@code cpu.stat} ({@code usage_usec}), {@code memory.current} e {@code io.stat}. Cada archivo se
+ * lee una vez por cgroup en la linea base y otra en la ultima pasada, sin importar cuantos procesos
+ * tenga, y el CPU incluye a los procesos que terminaron durante la ventana. Los archivos se leen a
+ * traves del {@link ProcfsView} de cada pasada, asi que una grabacion tambien los reproduce.
+ *
+ * <p>Las particiones de la captura escriben posiciones disjuntas con {@link #assign}; {@link
+ * #baseline()} y {@link #finish} se llaman desde un solo hilo. El cgroup raiz, los
+ * que quedan fuera de la jerarquia visible (rutas {@code /..} de otro espacio de nombres) y los que
+ * no tienen {@code cpu.stat} se miden sumando sus procesos, igual que una agrupacion por nombre.
+ */
+final class CgroupCapture {
+
+  private static final Path DEFAULT_ROOT = Path.of("/sys/fs/cgroup");
+  private static final Path HYBRID_ROOT = Path.of("/sys/fs/cgroup/unified");
+  private static final String ROOT_PATH = "/";
+
+  /** Archivos que se leen de cada cgroup. */
+  static final List<String> FILES = List.of("cpu.stat", "memory.current", "io.stat");
+
+  private String[] paths = new String[0];
+  private int size;
+  private final Map<String, Group> groups = new HashMap<>();
+  private final byte[] buffer = new byte[4096];
+  private long baselineTime;
+  private int fileReads;
+  private List<CgroupSnapshot> measured = List.of();
+
+  /**
+   * Devuelve la raiz de la jerarquia v2 del sistema: {@code /sys/fs/cgroup} en modo unificado o
+   * {@code /sys/fs/cgroup/unified} en modo hibrido, o {@code null} si no esta montada.
+   */
+  static Path detectRoot() {
+    for (Path candidate : List.of(DEFAULT_ROOT, HYBRID_ROOT)) {
+      if (Files.isRegularFile(candidate.resolve("cgroup.controllers"))) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /** Prepara {@code capacity} posiciones vacias, descartando la captura anterior. */
+  void reset(int capacity) {
+    size = capacity;
+    if (paths.length < capacity) {
+      paths = new String[capacity];
+    } else {
+      Arrays.fill(paths, 0, capacity, null);
+    }
+    groups.clear();
+    fileReads = 0;
+    measured = List.of();
+  }
+
+  /** Anota el cgroup del proceso de la posicion indicada, o lo deja sin cgroup con {@code null}. */
+  void assign(int index, String path) {
+    paths[index] = path;
+  }
+
+  String pathOf(int index) {
+    return paths[index];
+  }
+
+  /**
+   * Lee los contadores de cada cgroup distinto anotado hasta ahora. Si la vista no tiene la
+   * jerarquia v2 todos los cgroups se miden sumando sus procesos.
+   */
+  void baseline(ProcfsView view) {
+    baselineTime = view.nanoTime();
+    for (int i = 0; i < size; i++) {
+      String path = paths[i];
+      if (path != null && !groups.containsKey(path)) {
+        Group group = new Group(path);
+        if (!ROOT_PATH.equals(path)) {
+          group.usageBase = readUsage(view, path);
+          group.direct = group.usageBase != ProcessSnapshot.UNKNOWN;
+          if (group.direct) {
+            readIo(view, path, group.ioBase);
+          }
+        }
+        groups.put(path, group);
+      }
+    }
+  }
+
+  /**
+   * Mide los cgroups que tienen al menos un proceso presente en el cuadro, en el orden en que
+   * aparece su primer proceso; el resultado queda en {@link #measured()}. El CPU es el promedio de
+   * la ventana completa expresado como porcentaje de las CPUs del equipo, igual que el de los
+   * procesos.
+   *
+   * @param frame filas de la captura, alineadas con las posiciones de {@link #assign}
+   * @param view estado de la ultima pasada
+   * @param namer nombre visible de cada ruta
+   */
+  void finish(
+      CaptureFrame frame, ProcfsView view, int hostCpus, Function<String, String> namer) {
+    long elapsedNanos = view.nanoTime() - baselineTime;
+    Map<String, Group> seen = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      Group group = frame.isPresent(i) && paths[i] != null ? groups.get(paths[i]) : null;
+      if (group == null) {
+        continue;
+      }
+      seen.putIfAbsent(group.path, group);
+      group.processes++;
+      group.cpuSum = CaptureFrame.sumMetric(group.cpuSum, frame.cpu(i));
+      group.memSum = CaptureFrame.sumMetric(group.memSum, frame.mem(i));
+      group.ioReadSum = CaptureFrame.sumMetric(group.ioReadSum, frame.ioRead(i));
+      group.ioWriteSum = CaptureFrame.sumMetric(group.ioWriteSum, frame.ioWrite(i));
+    }
+    List<CgroupSnapshot> snapshots = new ArrayList<>(seen.size());
+    long[] io = new long[2];
+    for (Group group : seen.values()) {
+      long cpu = group.cpuSum;
+      long mem = group.memSum;
+      long read = group.ioReadSum;
+      long write = group.ioWriteSum;
+      if (group.direct) {
+        long usage = readUsage(view, group.path);
+        if (usage >= 0 && group.usageBase >= 0 && elapsedNanos > 0) {
+          double capacityNanos = elapsedNanos * (double) Math.max(hostCpus, 1);
+          cpu =
+              ProcessSnapshot.toBasisPoints(
+                  Math.max(0L, usage - group.usageBase) * 1_000L / capacityNanos * 100.0);
+        }
+        long current = readCounter(view, group.path, "memory.current");
+        if (current >= 0) {
+          mem = current;
+        }
+        if (group.ioBase[0] >= 0 && readIo(view, group.path, io)) {
+          read = rate(io[0] - group.ioBase[0], elapsedNanos);
+          write = rate(io[1] - group.ioBase[1], elapsedNanos);
+        }
+      }
+      snapshots.add(
+          new CgroupSnapshot(
+              group.path, namer.apply(group.path), cpu, mem, read, write, group.processes));
+    }
+    measured = snapshots;
+  }
+
+  /** Cgroups medidos por {@link #finish}. */
+  List<CgroupSnapshot> measured() {
+    return measured;
+  }
+
+  /** Archivos de cgroup leidos en la captura. */
+  int fileReads() {
+    return fileReads;
+  }
+
+  /** Ultimo componente de la ruta, o {@code root} para el cgroup raiz. */
+  static String leafName(String path) {
+    int slash = path.lastIndexOf('/');
+    String leaf = slash >= 0 ? path.substring(slash + 1) : path;
+    return leaf.isEmpty() ? "root" : leaf;
+  }
+
+  /**
+   * Lee {@code usage_usec} de {@code cpu.stat}. Devuelve {@code UNKNOWN} para el cgroup raiz, cuyos
+   * contadores son los de todo el equipo, las rutas que escapan de la jerarquia y los cgroups sin
+   * el archivo.
+   */
+  private long readUsage(ProcfsView view, String path) {
+    int len = read(view, path, "cpu.stat");
+    int lineStart = 0;
+    while (lineStart < len) {
+      int lineEnd = lineStart;
+      while (lineEnd < len && buffer[lineEnd] != '\n') {
+        lineEnd++;
+      }
+      if (startsWith(lineStart, lineEnd, "usage_usec ")) {
+        return parse(lineStart + "usage_usec ".length(), lineEnd);
+      }
+      lineStart = lineEnd + 1;
+    }
+    return ProcessSnapshot.UNKNOWN;
+  }
+
+  /**
+   * Suma {@code rbytes} y {@code wbytes} de todos los dispositivos de {@code io.stat} en {@code
+   * out[0]} y {@code out[1]}; sin el archivo (controlador io no habilitado) deja ambos en {@code
+   * UNKNOWN} y devuelve false.
+   */
+  private boolean readIo(ProcfsView view, String path, long[] out) {
+    out[0] = ProcessSnapshot.UNKNOWN;
+    out[1] = ProcessSnapshot.UNKNOWN;
+    int len = read(view, path, "io.stat");
+    if (len < 0) {
+      return false;
+    }
+    long read = 0;
+    long write = 0;
+    // Cada linea es "8:0 rbytes=1 wbytes=2 rios=3 wios=4 dbytes=0 dios=0".
+    int i = 0;
+    while (i < len) {
+      int tokenEnd = i;
+      while (tokenEnd < len && buffer[tokenEnd] != ' ' && buffer[tokenEnd] != '\n') {
+        tokenEnd++;
+      }
+      if (startsWith(i, tokenEnd, "rbytes=")) {
+        read += Math.max(parse(i + "rbytes=".length(), tokenEnd), 0L);
+      } else if (startsWith(i, tokenEnd, "wbytes=")) {
+        write += Math.max(parse(i + "wbytes=".length(), tokenEnd), 0L);
+      }
+      i = tokenEnd + 1;
+    }
+    out[0] = read;
+    out[1] = write;
+    return true;
+  }
+
+  private long readCounter(ProcfsView view, String path, String file) {
+    int len = read(view, path, file);
+    while (len > 0 && buffer[len - 1] == '\n') {
+      len--;
+    }
+    return len > 0 ? parse(0, len) : ProcessSnapshot.UNKNOWN;
+  }
+
+  private int read(ProcfsView view, String path, String file) {
+    fileReads++;
+    return view.readCgroupFile(path, file, buffer);
+  }
+
+  private boolean startsWith(int from, int to, String prefix) {
+    if (to - from < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (buffer[from + i] != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long parse(int from, int to) {
+    if (from >= to) {
+      return ProcessSnapshot.UNKNOWN;
+    }
+    long value = 0;
+    for (int i = from; i < to; i++) {
+      byte b = buffer[i];
+      if (b < '0' || b > '9') {
+        return ProcessSnapshot.UNKNOWN;
+      }
+      value = value * 10 + (b - '0');
+    }
+    return value;
+  }
+
+  private static long rate(long deltaBytes, long elapsedNanos) {
+    if (elapsedNanos <= 0) {
+      return ProcessSnapshot.UNKNOWN;
+    }
+    return Math.round(Math.max(0L, deltaBytes) * 1e9 / elapsedNanos);
+  }
+
+  /** Contadores de un cgroup; sin {@code direct} se mide sumando sus procesos. */
+  private static final class Group {
+    private final String path;
+    private boolean direct;
+    private long usageBase = ProcessSnapshot.UNKNOWN;
+    private final long[] ioBase = {ProcessSnapshot.UNKNOWN, ProcessSnapshot.UNKNOWN};
+    private int processes;
+    private long cpuSum = ProcessSnapshot.UNKNOWN;
+    private long memSum = ProcessSnapshot.UNKNOWN;
+    private long ioReadSum = ProcessSnapshot.UNKNOWN;
+    private long ioWriteSum = ProcessSnapshot.UNKNOWN;
+
+    private Group(String path) {
+      this.path = path;
+    }
+  }
+}
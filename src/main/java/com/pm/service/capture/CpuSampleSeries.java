@@ -0,0 +1,125 @@
+package com.pm.service.capture;
+
+import com.pm.domain.CpuStatistic;
+import com.pm.domain.process.ProcessSnapshot;
+import java.util.Arrays;
+
+/**
+ * Serie de muestras de CPU por proceso guardada en arreglos primitivos. El proceso {@code i} ocupa
+ * las posiciones {@code [i * capacity, i * capacity + count[i])} del arreglo de muestras, de modo
+ * que las particiones de una captura escriben rangos disjuntos sin sincronizar.
+ *
+ * <p>Cada muestra es el porcentaje de CPU entre dos lecturas consecutivas. Un proceso cuya clave de
+ * inicio cambia (pid reutilizado) o que no se pudo leer queda descartado.
+ *
+ * <p>{@link #reset(int, int)} reutiliza los arreglos mientras alcancen, asi que una serie puede
+ * servir a capturas sucesivas sin volver a reservarlos.
+ */
+final class CpuSampleSeries {
+
+  private int capacity;
+  private long[] startKeys = new long[0];
+  private long[] lastCpuNanos = new long[0];
+  private boolean[] alive = new boolean[0];
+  private int[] counts = new int[0];
+  private float[] samples = new float[0];
+
+  CpuSampleSeries(int processes, int capacity) {
+    reset(processes, capacity);
+  }
+
+  /** Prepara la serie para {@code processes} procesos sin lecturas, agrandando si hace falta. */
+  void reset(int processes, int capacity) {
+    this.capacity = Math.max(capacity, 1);
+    if (startKeys.length < processes) {
+      int size = Math.max(processes, startKeys.length + (startKeys.length >> 1));
+      startKeys = new long[size];
+      lastCpuNanos = new long[size];
+      alive = new boolean[size];
+      counts = new int[size];
+    } else {
+      Arrays.fill(alive, 0, processes, false);
+      Arrays.fill(counts, 0, processes, 0);
+    }
+    long needed = (long) processes * this.capacity;
+    if (samples.length < needed) {
+      samples = new float[Math.toIntExact(needed)];
+    }
+  }
+
+  /** Registra la lectura inicial del proceso. */
+  void baseline(int index, long startKey, long cpuNanos) {
+    startKeys[index] = startKey;
+    lastCpuNanos[index] = cpuNanos;
+    alive[index] = true;
+  }
+
+  boolean isAlive(int index) {
+    return alive[index];
+  }
+
+  void discard(int index) {
+    alive[index] = false;
+  }
+
+  /**
+   * Agrega la muestra entre la lectura anterior y esta.
+   *
+   * @param capacityNanos tiempo transcurrido multiplicado por la cantidad de CPUs
+   * @return {@code false} si el proceso quedo descartado por pid reutilizado
+   */
+  boolean record(int index, long startKey, long cpuNanos, double capacityNanos) {
+    if (!alive[index] || startKeys[index] != startKey) {
+      alive[index] = false;
+      return false;
+    }
+    long delta = Math.max(0L, cpuNanos - lastCpuNanos[index]);
+    lastCpuNanos[index] = cpuNanos;
+    if (capacityNanos > 0 && counts[index] < capacity) {
+      samples[index * capacity + counts[index]++] = (float) (delta / capacityNanos * 100.0);
+    }
+    return true;
+  }
+
+  /**
+   * Resume las muestras del proceso en puntos basicos, o {@link ProcessSnapshot#UNKNOWN} si no
+   * tiene ninguna. {@code scratch} debe tener al menos {@code capacity} posiciones y no se comparte
+   * entre hilos.
+   */
+  long basisPoints(int index, CpuStatistic statistic, float[] scratch) {
+    int count = counts[index];
+    if (count == 0) {
+      return ProcessSnapshot.UNKNOWN;
+    }
+    int offset = index * capacity;
+    double value;
+    switch (statistic) {
+      case MAX -> {
+        float max = 0f;
+        for (int i = 0; i < count; i++) {
+          max = Math.max(max, samples[offset + i]);
+        }
+        value = max;
+      }
+      case P95 -> {
+        System.arraycopy(samples, offset, scratch, 0, count);
+        Arrays.sort(scratch, 0, count);
+        // Rango mas cercano: la muestra que deja al menos el 95% de las muestras por debajo.
+        int rank = (int) Math.ceil(0.95 * count);
+        value = scratch[Math.max(rank, 1) - 1];
+      }
+      default -> {
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+          sum += samples[offset + i];
+        }
+        value = sum / count;
+      }
+    }
+    return ProcessSnapshot.toBasisPoints(value);
+  }
+
+  int capacity() {
+    return capacity;
+  }
+}
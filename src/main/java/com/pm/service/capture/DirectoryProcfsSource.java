@@ -0,0 +1,188 @@
+package com.pm.service.capture;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lee procfs desde un directorio: el {@code /proc} real o un arbol falso con la misma estructura.
+ * El directorio es a la vez la fuente y su unico estado; no guarda datos entre llamadas. Los
+ * archivos de cgroup se leen de la jerarquia v2 indicada, que en la fuente del sistema es la
+ * montada en {@code /sys/fs/cgroup}.
+ */
+final class DirectoryProcfsSource implements ProcfsSource, ProcfsView {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryProcfsSource.class);
+
+  static final DirectoryProcfsSource SYSTEM =
+      new DirectoryProcfsSource(Path.of("/proc"), true, CgroupCapture.detectRoot());
+
+  private final Path root;
+  private final String rootPrefix;
+  private final boolean live;
+  private final Path cgroupRoot;
+
+  DirectoryProcfsSource(Path root, boolean live) {
+    this(root, live, null);
+  }
+
+  /**
+   * @param cgroupRoot raiz de la jerarquia v2, o {@code null} si no hay cgroups que leer
+   */
+  DirectoryProcfsSource(Path root, boolean live, Path cgroupRoot) {
+    this.root = root;
+    this.rootPrefix = root.toString() + File.separator;
+    this.live = live;
+    this.cgroupRoot = cgroupRoot;
+  }
+
+  @Override
+  public ProcfsView current() {
+    return this;
+  }
+
+  @Override
+  public ProcfsView next(ProcfsView previous, Duration window) throws InterruptedException {
+    Thread.sleep(window.toMillis());
+    return this;
+  }
+
+  @Override
+  public boolean isLive() {
+    return live;
+  }
+
+  /**
+   * En vivo son las CPUs en linea del equipo, porque dentro de un contenedor la JVM ve solo las
+   * suyas; un arbol falso usa las de la JVM.
+   */
+  @Override
+  public int hostCpus() {
+    return live ? HostCpus.online() : Math.max(Runtime.getRuntime().availableProcessors(), 1);
+  }
+
+  @Override
+  public long nanoTime() {
+    return System.nanoTime();
+  }
+
+  /** Lista los PIDs presentes como directorios numericos bajo la raiz. */
+  @Override
+  public long[] listPids() {
+    return listNumeric(root.toFile().list());
+  }
+
+  @Override
+  public long[] listTasks(long pid) {
+    return listNumeric(new File(rootPrefix + pid + File.separator + "task").list());
+  }
+
+  private static long[] listNumeric(String[] entries) {
+    if (entries == null) {
+      return new long[0];
+    }
+    long[] pids = new long[entries.length];
+    int count = 0;
+    for (String entry : entries) {
+      long pid = parsePid(entry);
+      if (pid > 0) {
+        pids[count++] = pid;
+      }
+    }
+    return Arrays.copyOf(pids, count);
+  }
+
+  @Override
+  public int read(long pid, String file, byte[] buffer) {
+    // Si falla, el proceso termino entre el listado y la lectura; no es un error.
+    return readFile(rootPrefix + pid + File.separator + file, buffer);
+  }
+
+  @Override
+  public int readCgroupFile(String path, String file, byte[] buffer) {
+    if (cgroupRoot == null || !path.startsWith("/")) {
+      return -1;
+    }
+    Path dir = cgroupRoot.resolve(path.substring(1)).normalize();
+    if (!dir.startsWith(cgroupRoot) || dir.equals(cgroupRoot)) {
+      return -1;
+    }
+    return readFile(dir.resolve(file).toString(), buffer);
+  }
+
+  private static int readFile(String file, byte[] buffer) {
+    try (FileInputStream in = new FileInputStream(file)) {
+      int total = 0;
+      int read;
+      while (total < buffer.length && (read = in.read(buffer, total, buffer.length - total)) > 0) {
+        total += read;
+      }
+      return total;
+    } catch (IOException | SecurityException ex) {
+      return -1;
+    }
+  }
+
+  /**
+   * Devuelve el uid propietario de {@code <root>/<pid>}, el mismo dato que usa {@link
+   * ProcessHandle.Info#user()} en Linux.
+   */
+  @Override
+  public int readUid(long pid) {
+    try {
+      Object uid =
+          Files.getAttribute(
+              root.resolve(Long.toString(pid)), "unix:uid", LinkOption.NOFOLLOW_LINKS);
+      return uid instanceof Integer value ? value : -1;
+    } catch (IOException | UnsupportedOperationException ex) {
+      LOGGER.debug("No se pudo determinar UID para pid {}: {}", pid, ex.getMessage());
+      return -1;
+    }
+  }
+
+  @Override
+  public String readOwner(long pid) {
+    try {
+      return Files.getOwner(root.resolve(Long.toString(pid))).getName();
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  @Override
+  public String readExecutable(long pid) {
+    try {
+      return Files.readSymbolicLink(root.resolve(Long.toString(pid)).resolve("exe")).toString();
+    } catch (IOException | UnsupportedOperationException ignored) {
+      return null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return root.toString();
+  }
+
+  private static long parsePid(String entry) {
+    int len = entry.length();
+    if (len == 0 || len > 18) {
+      return -1;
+    }
+    long value = 0;
+    for (int i = 0; i < len; i++) {
+      char c = entry.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+}
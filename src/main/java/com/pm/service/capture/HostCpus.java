@@ -0,0 +1,57 @@
+package com.pm.service.capture;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Cantidad de CPUs del equipo. {@link Runtime#availableProcessors()} devuelve la vista de la JVM,
+ * que dentro de un contenedor se limita por la cuota y el cpuset del propio cgroup; para expresar
+ * el CPU de procesos de otros cgroups como porcentaje del equipo se usa la lista de CPUs en linea
+ * del kernel.
+ */
+final class HostCpus {
+
+  private static final Path ONLINE = Path.of("/sys/devices/system/cpu/online");
+
+  private HostCpus() {}
+
+  /** CPUs en linea del equipo, o las de la JVM si la lista no se puede leer. */
+  static int online() {
+    int fallback = Math.max(Runtime.getRuntime().availableProcessors(), 1);
+    try {
+      int count = parseList(Files.readString(ONLINE, StandardCharsets.US_ASCII));
+      return count > 0 ? count : fallback;
+    } catch (IOException | RuntimeException ex) {
+      return fallback;
+    }
+  }
+
+  /** Cuenta las CPUs de una lista del kernel como {@code 0-3,6,8-9}; 0 si esta mal formada. */
+  static int parseList(String list) {
+    int count = 0;
+    for (String range : list.trim().split(",")) {
+      if (range.isEmpty()) {
+        continue;
+      }
+      int dash = range.indexOf('-');
+      try {
+        if (dash < 0) {
+          Integer.parseInt(range);
+          count++;
+        } else {
+          int from = Integer.parseInt(range, 0, dash, 10);
+          int to = Integer.parseInt(range, dash + 1, range.length(), 10);
+          if (to < from) {
+            return 0;
+          }
+          count += to - from + 1;
+        }
+      } catch (NumberFormatException ex) {
+        return 0;
+      }
+    }
+    return count;
+  }
+}
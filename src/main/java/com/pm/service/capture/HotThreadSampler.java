@@ -0,0 +1,164 @@
+package com.pm.service.capture;
+
+import com.pm.domain.ThreadDrillDown;
+import com.pm.domain.process.ProcessSnapshot;
+import com.pm.domain.process.ThreadSnapshot;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Mide el CPU de los hilos de los procesos elegidos leyendo {@code <pid>/task/<tid>/stat} al inicio
+ * y al final de una ventana. Los hilos se guardan en arreglos primitivos en el orden de los grupos,
+ * asi que los de cada grupo quedan contiguos y se eligen los mas activos con {@link TopNSelector}.
+ *
+ * <p>Cada pasada de lectura tiene un presupuesto de tiempo. Los grupos llegan ordenados por su
+ * puesto en la captura, de modo que si el presupuesto se agota quedan sin detalle los ultimos; un
+ * proceso con miles de hilos no puede alargar la captura mas alla de la ventana y dos presupuestos.
+ */
+final class HotThreadSampler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HotThreadSampler.class);
+
+  /** Cada cuantos hilos se consulta el reloj para comprobar el presupuesto. */
+  private static final int DEADLINE_CHECK_INTERVAL = 32;
+
+  private final ProcfsSource procfs;
+  private final int availableProcessors;
+
+  HotThreadSampler(ProcfsSource procfs, int availableProcessors) {
+    this.procfs = procfs;
+    this.availableProcessors = Math.max(availableProcessors, 1);
+  }
+
+  /**
+   * Devuelve los hilos mas activos de cada grupo, alineados con {@code groups} y ordenados de mayor
+   * a menor CPU; los hilos sin consumo en la ventana se omiten. El CPU se expresa como porcentaje
+   * de la capacidad total, igual que el de los procesos.
+   *
+   * @param groups pids que forman cada proceso elegido, en orden de la captura
+   */
+  List<List<ThreadSnapshot>> sample(List<long[]> groups, ThreadDrillDown plan, Duration window) {
+    List<List<ThreadSnapshot>> result = new ArrayList<>(groups.size());
+    groups.forEach(group -> result.add(List.of()));
+    long budgetNanos = plan.budget().toNanos();
+
+    ProcfsView baselineView = procfs.current();
+    long baselineTime = baselineView.nanoTime();
+    LinuxProcfsReader reader = new LinuxProcfsReader(baselineView);
+    ProcStat stat = new ProcStat();
+    ThreadTable table = new ThreadTable();
+    int[] groupEnd = new int[groups.size()];
+    long deadline = System.nanoTime() + budgetNanos;
+    boolean truncated = false;
+    int visited = 0;
+    int groupsRead = 0;
+    reading:
+    for (; groupsRead < groups.size(); groupsRead++) {
+      for (long pid : groups.get(groupsRead)) {
+        for (long tid : baselineView.listTasks(pid)) {
+          if (visited++ % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+            truncated = true;
+            break reading;
+          }
+          if (reader.readTaskStat(pid, tid, stat)) {
+            table.add(pid, tid, stat.startTime, stat.cpuTicks());
+          }
+        }
+      }
+      groupEnd[groupsRead] = table.size;
+    }
+    if (truncated) {
+      // El grupo interrumpido conserva los hilos leidos hasta el corte.
+      groupEnd[groupsRead++] = table.size;
+    }
+    if (table.size == 0) {
+      return result;
+    }
+
+    ProcfsView sampleView;
+    try {
+      sampleView = procfs.next(baselineView, window);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return result;
+    }
+    double capacityNanos = (sampleView.nanoTime() - baselineTime) * (double) availableProcessors;
+    reader = new LinuxProcfsReader(sampleView);
+    double[] scores = new double[table.size];
+    String[] names = new String[table.size];
+    Arrays.fill(scores, ProcessSnapshot.UNKNOWN);
+    deadline = System.nanoTime() + budgetNanos;
+    for (int i = 0; i < table.size; i++) {
+      if (i % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+        truncated = true;
+        break;
+      }
+      if (capacityNanos > 0
+          && reader.readTaskStat(table.pids[i], table.tids[i], stat)
+          && stat.startTime == table.startTimes[i]) {
+        long delta = Math.max(0L, stat.cpuTicks() - table.ticks[i]);
+        scores[i] =
+            ProcessSnapshot.toBasisPoints(
+                delta * LinuxProcfsReader.NANOS_PER_TICK / capacityNanos * 100.0);
+        names[i] = stat.comm();
+      }
+    }
+
+    int from = 0;
+    for (int g = 0; g < groupsRead; g++) {
+      int to = groupEnd[g];
+      result.set(g, top(table, scores, names, from, to, plan.maxThreads()));
+      from = to;
+    }
+    LOGGER.debug(
+        "Detalle de hilos: {} hilos de {} de {} grupos{}",
+        table.size,
+        groupsRead,
+        groups.size(),
+        truncated ? " (presupuesto agotado)" : "");
+    return result;
+  }
+
+  private static List<ThreadSnapshot> top(
+      ThreadTable table, double[] scores, String[] names, int from, int to, int limit) {
+    int[] chosen = TopNSelector.selectIndices(Arrays.copyOfRange(scores, from, to), limit);
+    List<ThreadSnapshot> threads = new ArrayList<>(chosen.length);
+    for (int index : chosen) {
+      int i = from + index;
+      if (scores[i] <= 0) {
+        // Quedan al final los hilos inactivos y los que no se pudieron releer; no se informan.
+        break;
+      }
+      threads.add(new ThreadSnapshot(table.tids[i], names[i], (long) scores[i]));
+    }
+    return threads;
+  }
+
+  /** Lecturas iniciales de los hilos en arreglos paralelos que crecen al duplicarse. */
+  private static final class ThreadTable {
+    private long[] pids = new long[64];
+    private long[] tids = new long[64];
+    private long[] startTimes = new long[64];
+    private long[] ticks = new long[64];
+    private int size;
+
+    private void add(long pid, long tid, long startTime, long cpuTicks) {
+      if (size == pids.length) {
+        int capacity = size * 2;
+        pids = Arrays.copyOf(pids, capacity);
+        tids = Arrays.copyOf(tids, capacity);
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        ticks = Arrays.copyOf(ticks, capacity);
+      }
+      pids[size] = pid;
+      tids[size] = tid;
+      startTimes[size] = startTime;
+      ticks[size] = cpuTicks;
+      size++;
+    }
+  }
+}
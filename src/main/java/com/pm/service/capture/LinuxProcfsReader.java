@@ -0,0 +1,289 @@
+package com.pm.service.capture;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lee procfs reutilizando un buffer de bytes por instancia. Reemplaza las consultas a {@link
+ * ProcessHandle.Info}, que en Linux abren varios archivos por cada llamada. Los archivos se
+ * obtienen de un {@link ProcfsView}, por defecto el {@code /proc} del sistema.
+ *
+ * <p>No es seguro para hilos: cada captura debe usar su propia instancia o sincronizar el acceso.
+ */
+final class LinuxProcfsReader {
+
+  /** Frecuencia de ticks expuesta por el kernel a espacio de usuario (USER_HZ). */
+  static final long USER_HZ = 100L;
+
+  static final long NANOS_PER_TICK = 1_000_000_000L / USER_HZ;
+
+  /** Tamano de pagina con que se convierte el RSS de {@code stat}, que viene en paginas. */
+  static final long PAGE_SIZE = ProcessMemoryReader.pageSize();
+
+  private static final byte[] READ_BYTES = "read_bytes:".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] WRITE_BYTES = "write_bytes:".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] PSS = "Pss:".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] PRIVATE_CLEAN = "Private_Clean:".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] PRIVATE_DIRTY = "Private_Dirty:".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] CGROUP_V2 = "0::".getBytes(StandardCharsets.US_ASCII);
+  private static final String DELETED_SUFFIX = " (deleted)";
+
+  private final ProcfsView view;
+  private final PasswdUserResolver users;
+  private final byte[] buffer = new byte[4096];
+  private final Map<Integer, String> userNames = new HashMap<>();
+
+  LinuxProcfsReader() {
+    this(ProcfsSource.system().current());
+  }
+
+  LinuxProcfsReader(ProcfsView view) {
+    this(view, null);
+  }
+
+  /**
+   * @param users indice de usuarios para resolver uids; si es {@code null} se usa el propietario
+   *     que informa la vista, recordado por instancia
+   */
+  LinuxProcfsReader(ProcfsView view, PasswdUserResolver users) {
+    this.view = view;
+    this.users = users;
+  }
+
+  /** Lista los PIDs presentes en el estado leido. */
+  long[] listPids() {
+    return view.listPids();
+  }
+
+  /** Lee y parsea {@code /proc/<pid>/stat} en {@code out}; devuelve false si el pid no existe. */
+  boolean readStat(long pid, ProcStat out) {
+    int len = view.read(pid, "stat", buffer);
+    return len > 0 && ProcStat.parse(buffer, len, out);
+  }
+
+  /**
+   * Lee y parsea {@code /proc/<pid>/task/<tid>/stat}, con el mismo formato que el stat del proceso;
+   * {@code comm} es el nombre del hilo. Devuelve false si el hilo ya no existe.
+   */
+  boolean readTaskStat(long pid, long tid, ProcStat out) {
+    int len = view.read(pid, "task/" + tid + "/stat", buffer);
+    return len > 0 && ProcStat.parse(buffer, len, out);
+  }
+
+  /**
+   * Devuelve el comando del proceso, de la misma fuente que usaba {@link
+   * ProcessHandle.Info#command()}: el destino del enlace {@code exe} o, si no se puede leer
+   * (procesos de otro usuario), el primer argumento de {@code cmdline}. Devuelve {@code null} si no
+   * hay ninguno de los dos, como en los hilos del kernel.
+   */
+  String readCommand(long pid) {
+    String executable = readExecutable(pid);
+    if (executable != null) {
+      return executable;
+    }
+    int len = view.read(pid, "cmdline", buffer);
+    int end = 0;
+    while (end < len && buffer[end] != 0) {
+      end++;
+    }
+    return end > 0 ? new String(buffer, 0, end, StandardCharsets.UTF_8) : null;
+  }
+
+  /**
+   * Lee los contadores acumulados {@code read_bytes} y {@code write_bytes} de {@code
+   * /proc/<pid>/io} en {@code out[0]} y {@code out[1]}. Devuelve false si el archivo no existe, no
+   * se puede leer o le falta alguno de los dos campos.
+   */
+  boolean readIo(long pid, long[] out) {
+    int len = view.read(pid, "io", buffer);
+    if (len <= 0) {
+      return false;
+    }
+    out[0] = -1;
+    out[1] = -1;
+    int lineStart = 0;
+    while (lineStart < len) {
+      int lineEnd = lineStart;
+      while (lineEnd < len && buffer[lineEnd] != '\n') {
+        lineEnd++;
+      }
+      if (startsWith(lineStart, lineEnd, READ_BYTES)) {
+        out[0] = parseCounter(lineStart + READ_BYTES.length, lineEnd);
+      } else if (startsWith(lineStart, lineEnd, WRITE_BYTES)) {
+        out[1] = parseCounter(lineStart + WRITE_BYTES.length, lineEnd);
+      }
+      lineStart = lineEnd + 1;
+    }
+    return out[0] >= 0 && out[1] >= 0;
+  }
+
+  /**
+   * Devuelve la ruta del proceso en la jerarquia v2, la linea {@code 0::<ruta>} de {@code
+   * /proc/<pid>/cgroup}, o {@code null} si el archivo no existe o el proceso no esta en una
+   * jerarquia v2.
+   */
+  String readCgroup(long pid) {
+    int len = view.read(pid, "cgroup", buffer);
+    int lineStart = 0;
+    while (lineStart < len) {
+      int lineEnd = lineStart;
+      while (lineEnd < len && buffer[lineEnd] != '\n') {
+        lineEnd++;
+      }
+      if (startsWith(lineStart, lineEnd, CGROUP_V2) && lineEnd > lineStart + CGROUP_V2.length) {
+        int from = lineStart + CGROUP_V2.length;
+        return new String(buffer, from, lineEnd - from, StandardCharsets.UTF_8);
+      }
+      lineStart = lineEnd + 1;
+    }
+    return null;
+  }
+
+  /**
+   * Lee {@code /proc/<pid>/smaps_rollup} y deja en {@code out[0]} el PSS y en {@code out[1]} el USS
+   * (paginas privadas limpias mas sucias), ambos en bytes. El kernel recorre las tablas de paginas
+   * del proceso en cada lectura, asi que cuesta bastante mas que {@code stat}. Devuelve false si el
+   * archivo no existe, no se puede leer o le falta alguno de los campos.
+   */
+  boolean readSmapsRollup(long pid, long[] out) {
+    int len = view.read(pid, "smaps_rollup", buffer);
+    if (len <= 0) {
+      return false;
+    }
+    long pss = -1;
+    long privateClean = -1;
+    long privateDirty = -1;
+    int lineStart = 0;
+    while (lineStart < len) {
+      int lineEnd = lineStart;
+      while (lineEnd < len && buffer[lineEnd] != '\n') {
+        lineEnd++;
+      }
+      // Los valores vienen en kB: "Pss:                 461 kB".
+      int valueEnd = lineEnd >= lineStart + 3 ? lineEnd - 3 : lineEnd;
+      if (startsWith(lineStart, lineEnd, PSS)) {
+        pss = parseCounter(lineStart + PSS.length, valueEnd);
+      } else if (startsWith(lineStart, lineEnd, PRIVATE_CLEAN)) {
+        privateClean = parseCounter(lineStart + PRIVATE_CLEAN.length, valueEnd);
+      } else if (startsWith(lineStart, lineEnd, PRIVATE_DIRTY)) {
+        privateDirty = parseCounter(lineStart + PRIVATE_DIRTY.length, valueEnd);
+      }
+      lineStart = lineEnd + 1;
+    }
+    if (pss < 0 || privateClean < 0 || privateDirty < 0) {
+      return false;
+    }
+    out[0] = pss * 1024L;
+    out[1] = (privateClean + privateDirty) * 1024L;
+    return true;
+  }
+
+  private boolean startsWith(int from, int to, byte[] prefix) {
+    if (to - from < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (buffer[from + i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long parseCounter(int from, int to) {
+    int i = from;
+    while (i < to && buffer[i] == ' ') {
+      i++;
+    }
+    if (i == to) {
+      return -1;
+    }
+    long value = 0;
+    for (; i < to; i++) {
+      byte b = buffer[i];
+      if (b < '0' || b > '9') {
+        return -1;
+      }
+      value = value * 10 + (b - '0');
+    }
+    return value;
+  }
+
+  /**
+   * Devuelve el uid propietario de {@code /proc/<pid>}, el mismo dato que usa {@link
+   * ProcessHandle.Info#user()} en Linux, o -1 si no se puede consultar.
+   */
+  int readUid(long pid) {
+    return view.readUid(pid);
+  }
+
+  /**
+   * Resuelve el nombre de usuario de un uid. Primero se consulta el indice de usuarios; si el uid
+   * no esta, se pide el propietario a la vista (en vivo, una busqueda NSS) y se recuerda.
+   */
+  String resolveUser(long pid, int uid) {
+    if (uid < 0) {
+      return null;
+    }
+    String cached = users != null ? users.lookup(uid) : userNames.get(uid);
+    if (cached != null) {
+      return cached;
+    }
+    String name = view.readOwner(pid);
+    if (name != null) {
+      if (users != null) {
+        users.remember(uid, name);
+      } else {
+        userNames.put(uid, name);
+      }
+    }
+    return name;
+  }
+
+  /**
+   * Ruta del ejecutable del proceso (enlace {@code exe}) sin el sufijo {@code " (deleted)"} que
+   * agrega el kernel cuando el archivo se reemplazo, o {@code null} si no se puede leer.
+   */
+  String readExecutable(long pid) {
+    String executable = view.readExecutable(pid);
+    if (executable == null || executable.isEmpty()) {
+      return null;
+    }
+    return executable.endsWith(DELETED_SUFFIX)
+        ? executable.substring(0, executable.length() - DELETED_SUFFIX.length())
+        : executable;
+  }
+
+  /**
+   * Heuristica de procesos de sistema: el ejecutable vive en {@code /sbin} o {@code /usr/sbin}.
+   */
+  static boolean isSbinPath(String executable) {
+    if (executable == null) {
+      return false;
+    }
+    String lower = executable.toLowerCase(Locale.ROOT);
+    return lower.startsWith("/usr/sbin") || lower.startsWith("/sbin");
+  }
+
+  static int mapNiceToPriority(int niceValue) {
+    int clamped = Math.max(-20, Math.min(19, niceValue));
+    if (clamped <= -15) {
+      return 10; // Equivalente a REALTIME
+    }
+    if (clamped <= -10) {
+      return 9; // Equivalente a HIGH
+    }
+    if (clamped <= -5) {
+      return 7; // Equivalente a ABOVE_NORMAL
+    }
+    if (clamped <= 4) {
+      return 5; // Equivalente a NORMAL
+    }
+    if (clamped <= 10) {
+      return 3; // Equivalente a BELOW_NORMAL
+    }
+    return 1; // Equivalente a IDLE
+  }
+}
@@ -0,0 +1,100 @@
+package com.pm.service.capture;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resuelve uids a nombres de usuario con un indice en memoria de {@code /etc/passwd}. El indice se
+ * vuelve a leer solo cuando cambian la fecha de modificacion o el tamano del archivo, de modo que
+ * cada resolucion es una busqueda en un mapa.
+ *
+ * <p>Los uids que no estan en el archivo (usuarios de LDAP, SSSD u otras fuentes NSS) se resuelven
+ * fuera de esta clase y se recuerdan con {@link #remember(int, String)} hasta el siguiente cambio
+ * del archivo.
+ */
+final class PasswdUserResolver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PasswdUserResolver.class);
+
+  private final Path passwd;
+  private final Map<Integer, String> fallback = new ConcurrentHashMap<>();
+  private volatile Map<Integer, String> index = Map.of();
+  private FileTime loadedModified;
+  private long loadedSize = -1;
+
+  PasswdUserResolver(Path passwd) {
+    this.passwd = passwd;
+  }
+
+  /** Vuelve a cargar el indice si el archivo cambio desde la ultima lectura. */
+  synchronized void refreshIfChanged() {
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(passwd, BasicFileAttributes.class);
+    } catch (IOException ex) {
+      LOGGER.debug("No se pudo consultar {}: {}", passwd, ex.getMessage());
+      return;
+    }
+    if (attributes.lastModifiedTime().equals(loadedModified)
+        && attributes.size() == loadedSize) {
+      return;
+    }
+    try {
+      index = parse(Files.readAllLines(passwd, StandardCharsets.UTF_8));
+      fallback.clear();
+      loadedModified = attributes.lastModifiedTime();
+      loadedSize = attributes.size();
+      LOGGER.debug("Indice de usuarios cargado desde {}: {} uids", passwd, index.size());
+    } catch (IOException ex) {
+      LOGGER.debug("No se pudo leer {}: {}", passwd, ex.getMessage());
+    }
+  }
+
+  /** Devuelve el nombre del uid, o {@code null} si no esta en el indice ni se recordo. */
+  String lookup(int uid) {
+    String name = index.get(uid);
+    return name != null ? name : fallback.get(uid);
+  }
+
+  /** Recuerda un nombre resuelto por NSS para un uid ausente del archivo. */
+  void remember(int uid, String name) {
+    fallback.put(uid, name);
+  }
+
+  /**
+   * Interpreta las lineas {@code nombre:clave:uid:...}. Como {@code getpwuid}, ante uids repetidos
+   * gana la primera linea; se ignoran comentarios y entradas de compatibilidad NIS ({@code +/-}).
+   */
+  static Map<Integer, String> parse(List<String> lines) {
+    Map<Integer, String> parsed = new HashMap<>();
+    for (String line : lines) {
+      char first = line.isEmpty() ? '#' : line.charAt(0);
+      if (first == '#' || first == '+' || first == '-') {
+        continue;
+      }
+      int nameEnd = line.indexOf(':');
+      int passwordEnd = nameEnd < 0 ? -1 : line.indexOf(':', nameEnd + 1);
+      int uidEnd = passwordEnd < 0 ? -1 : line.indexOf(':', passwordEnd + 1);
+      if (nameEnd <= 0 || uidEnd < 0) {
+        continue;
+      }
+      try {
+        int uid = Integer.parseInt(line, passwordEnd + 1, uidEnd, 10);
+        parsed.putIfAbsent(uid, line.substring(0, nameEnd));
+      } catch (NumberFormatException ignored) {
+        // Linea mal formada; getpwuid tambien la ignora.
+      }
+    }
+    return Map.copyOf(parsed);
+  }
+}
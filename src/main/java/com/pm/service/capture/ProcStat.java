@@ -0,0 +1,115 @@
+package com.pm.service.capture;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Contenedor mutable y reutilizable con los campos de {@code /proc/<pid>/stat} que usa la captura.
+ */
+final class ProcStat {
+
+  long pid;
+  long ppid;
+  long utime;
+  long stime;
+  int nice;
+  long startTime;
+  long rssPages;
+  private byte[] commBytes = new byte[64];
+  private int commLength;
+
+  long cpuTicks() {
+    return utime + stime;
+  }
+
+  /**
+   * Nombre del proceso. El texto se crea al pedirlo y no al interpretar el archivo, porque la
+   * captura solo lo necesita para los procesos que no estan en la cache de atributos.
+   */
+  String comm() {
+    return new String(commBytes, 0, commLength, StandardCharsets.UTF_8);
+  }
+
+  /** Copia de los bytes del nombre, para compararla en capturas siguientes. */
+  byte[] commCopy() {
+    return Arrays.copyOf(commBytes, commLength);
+  }
+
+  /** Compara el nombre con una copia anterior sin crear objetos. */
+  boolean commEquals(byte[] other) {
+    return Arrays.equals(commBytes, 0, commLength, other, 0, other.length);
+  }
+
+  /**
+   * Interpreta el contenido crudo de {@code stat} sin dividir cadenas ni crear objetos; el nombre
+   * se copia a un arreglo propio y los campos numericos se leen directamente de los bytes.
+   *
+   * @return {@code false} si el contenido esta truncado o no tiene el formato esperado
+   */
+  static boolean parse(byte[] buf, int len, ProcStat out) {
+    int open = -1;
+    int close = -1;
+    for (int i = 0; i < len; i++) {
+      if (buf[i] == '(') {
+        open = i;
+        break;
+      }
+    }
+    for (int i = len - 1; i > open; i--) {
+      if (buf[i] == ')') {
+        close = i;
+        break;
+      }
+    }
+    if (open < 0 || close < 0) {
+      return false;
+    }
+    out.pid = parseLong(buf, 0, open - 1);
+    out.commLength = close - open - 1;
+    if (out.commBytes.length < out.commLength) {
+      out.commBytes = new byte[out.commLength];
+    }
+    System.arraycopy(buf, open + 1, out.commBytes, 0, out.commLength);
+    // Tras el nombre vienen los campos a partir del 3 (estado) separados por un espacio.
+    int field = 3;
+    int pos = close + 2;
+    while (pos < len && field <= 24) {
+      int end = pos;
+      while (end < len && buf[end] != ' ' && buf[end] != '\n') {
+        end++;
+      }
+      switch (field) {
+        case 4 -> out.ppid = parseLong(buf, pos, end);
+        case 14 -> out.utime = parseLong(buf, pos, end);
+        case 15 -> out.stime = parseLong(buf, pos, end);
+        case 19 -> out.nice = (int) parseLong(buf, pos, end);
+        case 22 -> out.startTime = parseLong(buf, pos, end);
+        case 24 -> out.rssPages = parseLong(buf, pos, end);
+        default -> {
+          // Campo no utilizado.
+        }
+      }
+      field++;
+      pos = end + 1;
+    }
+    return field > 24;
+  }
+
+  private static long parseLong(byte[] buf, int from, int to) {
+    long value = 0;
+    boolean negative = false;
+    int i = from;
+    if (i < to && buf[i] == '-') {
+      negative = true;
+      i++;
+    }
+    for (; i < to; i++) {
+      int digit = buf[i] - '0';
+      if (digit < 0 || digit > 9) {
+        break;
+      }
+      value = value * 10 + digit;
+    }
+    return negative ? -value : value;
+  }
+}
@@ -0,0 +1,179 @@
+package com.pm.service.capture;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache acotada de los atributos que no cambian durante la vida de un proceso: nombre normalizado,
+ * usuario, heuristica de sistema y permiso de lectura de {@code io} y {@code smaps_rollup}. El
+ * cgroup no se guarda porque un proceso puede cambiar de cgroup en cualquier momento. Cada entrada
+ * se identifica por pid y una clave de inicio (starttime en procfs, instante de inicio con {@link
+ * ProcessHandle}), de modo que un pid reutilizado por otro proceso no devuelve datos ajenos. Un
+ * {@code exec} conserva pid y starttime, por eso en procfs la entrada guarda ademas el {@code comm}
+ * con que se creo y la consulta la descarta si el de {@code stat} ya no coincide.
+ *
+ * <p>Cada captura marca las entradas que ve con su numero de secuencia y al terminar descarta las
+ * que no vio, es decir, las de procesos que ya terminaron. Cuando la cache esta llena los procesos
+ * nuevos se atienden sin guardarse. Es segura para hilos porque las particiones de una captura la
+ * consultan en paralelo.
+ */
+final class ProcessAttributeCache {
+
+  private final int maxEntries;
+  private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  ProcessAttributeCache(int maxEntries) {
+    this.maxEntries = Math.max(maxEntries, 0);
+  }
+
+  /**
+   * Devuelve la entrada del proceso y la marca como vista en la captura, o {@code null} si no hay
+   * una entrada para ese pid y clave de inicio.
+   */
+  Entry lookup(long pid, long startKey, long capture) {
+    return lookup(pid, startKey, null, capture);
+  }
+
+  /**
+   * Igual que {@link #lookup(long, long, long)} pero ademas exige que el {@code comm} de {@code
+   * stat} coincida con el guardado, para no conservar el nombre de antes de un {@code exec}.
+   */
+  Entry lookup(long pid, long startKey, ProcStat stat, long capture) {
+    Entry entry = entries.get(pid);
+    if (entry == null
+        || entry.startKey != startKey
+        || (stat != null && entry.comm != null && !stat.commEquals(entry.comm))) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    entry.markSeen(capture);
+    return entry;
+  }
+
+  /** Devuelve la entrada vigente del pid sin contarla como acierto ni fallo. */
+  Entry peek(long pid) {
+    return entries.get(pid);
+  }
+
+  /**
+   * Registra un proceso nuevo. Si la cache esta llena la entrada se devuelve igual pero no se
+   * guarda.
+   */
+  Entry store(long pid, long startKey, String nombre, long capture) {
+    return store(pid, startKey, nombre, null, capture);
+  }
+
+  /** Igual que {@link #store(long, long, String, long)}, guardando ademas el {@code comm}. */
+  Entry store(long pid, long startKey, String nombre, ProcStat stat, long capture) {
+    Entry entry = new Entry(startKey, nombre, stat == null ? null : stat.commCopy());
+    entry.markSeen(capture);
+    if (entries.size() < maxEntries || entries.containsKey(pid)) {
+      entries.put(pid, entry);
+    }
+    return entry;
+  }
+
+  /** Descarta las entradas que la captura indicada no vio, salvo las de capturas posteriores. */
+  void evictStale(long capture) {
+    entries.values().removeIf(entry -> entry.lastSeen.get() < capture);
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /** Proporcion de consultas resueltas desde la cache, entre 0 y 1. */
+  double hitRate() {
+    long hit = hits.sum();
+    long total = hit + misses.sum();
+    return total == 0 ? 0.0 : (double) hit / total;
+  }
+
+  /**
+   * Atributos estaticos de un proceso. El usuario, la heuristica de sistema, el uid y el
+   * ejecutable se completan despues de crear la entrada, cuando se piden por primera vez.
+   */
+  static final class Entry {
+    final long startKey;
+    final String nombre;
+    private final byte[] comm;
+    private volatile String usuario;
+    private volatile boolean systemProcess;
+    private volatile Integer uid;
+    private volatile String executable;
+    private volatile boolean resolved;
+    private volatile boolean accessChecked;
+    private volatile boolean accessAllowed;
+    private final AtomicLong lastSeen = new AtomicLong();
+
+    private Entry(long startKey, String nombre, byte[] comm) {
+      this.startKey = startKey;
+      this.nombre = nombre;
+      this.comm = comm;
+    }
+
+    /**
+     * Marca la entrada como vista en la captura. Solo avanza: una captura anterior que termina
+     * despues no debe dejarla expuesta al descarte de una posterior.
+     */
+    private void markSeen(long capture) {
+      lastSeen.accumulateAndGet(capture, Math::max);
+    }
+
+    boolean isResolved() {
+      return resolved;
+    }
+
+    String usuario() {
+      return usuario;
+    }
+
+    boolean systemProcess() {
+      return systemProcess;
+    }
+
+    /** Uid del proceso, o {@code null} si no se conoce. */
+    Integer uid() {
+      return uid;
+    }
+
+    /** Ruta del ejecutable, o {@code null} si no se conoce. */
+    String executable() {
+      return executable;
+    }
+
+    void resolve(String usuario, boolean systemProcess) {
+      resolve(usuario, systemProcess, null, null);
+    }
+
+    void resolve(String usuario, boolean systemProcess, Integer uid, String executable) {
+      this.usuario = usuario;
+      this.systemProcess = systemProcess;
+      this.uid = uid;
+      this.executable = executable;
+      this.resolved = true;
+    }
+
+    /**
+     * Indica si ya se decidio el permiso de lectura de {@code /proc/<pid>/io} y {@code
+     * smaps_rollup}, que el kernel concede con la misma regla.
+     */
+    boolean isAccessChecked() {
+      return accessChecked;
+    }
+
+    boolean isAccessAllowed() {
+      return accessAllowed;
+    }
+
+    void checkAccess(boolean allowed) {
+      this.accessAllowed = allowed;
+      this.accessChecked = true;
+    }
+  }
+}
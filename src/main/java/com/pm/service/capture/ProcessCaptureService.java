@@ -1,19 +1,31 @@
 package com.pm.service.capture;
 
+import com.pm.domain.AggregationMode;
+import com.pm.domain.CaptureOptions;
+import com.pm.domain.CpuSampling;
+import com.pm.domain.MemoryMetric;
+import com.pm.domain.ProcessAggregation;
 import com.pm.domain.SelectionCriterion;
+import com.pm.domain.ThreadDrillDown;
+import com.pm.domain.process.CgroupSnapshot;
 import com.pm.domain.process.ProcessSnapshot;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import com.pm.domain.process.ThreadSnapshot;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,26 +33,74 @@ import org.slf4j.LoggerFactory;
  * Captura procesos del sistema operativo y calcula metricas para construir fotografias segun un
  * criterio de seleccion.
  */
-public final class ProcessCaptureService {
+public final class ProcessCaptureService implements AutoCloseable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ProcessCaptureService.class);
+  private static final int ATTRIBUTE_CACHE_MAX_ENTRIES = 65_536;
+  private static final int DEFAULT_SMAPS_BUDGET = 256;
   private final Duration sampleDuration;
   private final ProcessMemoryReader memoryReader;
   private final int availableProcessors;
   private final boolean isWindows;
   private final boolean isLinux;
   private final WindowsProcessInfoProvider windowsInfoProvider;
-  private final LinuxProcessInfoProvider linuxInfoProvider;
+  private final ProcessSampler sampler;
+  private final CapturePartitioner partitioner;
+  private final ProcfsSource procfs;
+  private final ProcessAttributeCache attributeCache =
+      new ProcessAttributeCache(ATTRIBUTE_CACHE_MAX_ENTRIES);
+  private final AtomicLong captureSequence = new AtomicLong();
+  private final PasswdUserResolver userResolver;
+  private final int selfUid;
+  private final int smapsBudget;
+  private final AtomicReference<CaptureFrame> spareFrame = new AtomicReference<>();
 
   public ProcessCaptureService(Duration sampleDuration, ProcessMemoryReader memoryReader) {
+    this(sampleDuration, memoryReader, null, 1, null, DEFAULT_SMAPS_BUDGET);
+  }
+
+  /**
+   * @param sampler muestreador en segundo plano opcional; si es {@code null} cada captura espera la
+   *     ventana de muestreo
+   * @param parallelism cantidad de hilos con que se reparten los pids en cada pasada; 1 recorre los
+   *     procesos de forma secuencial
+   * @param procfs origen de procfs; si es {@code null} se usa {@code /proc} en Linux y {@link
+   *     ProcessHandle} en el resto de sistemas
+   * @param smapsBudget lecturas de {@code smaps_rollup} permitidas por captura con las metricas de
+   *     memoria PSS y USS
+   */
+  public ProcessCaptureService(
+      Duration sampleDuration,
+      ProcessMemoryReader memoryReader,
+      ProcessSampler sampler,
+      int parallelism,
+      ProcfsSource procfs,
+      int smapsBudget) {
     this.sampleDuration = sampleDuration;
     this.memoryReader = memoryReader;
-    this.availableProcessors = Math.max(Runtime.getRuntime().availableProcessors(), 1);
+    this.sampler = sampler;
+    this.partitioner = new CapturePartitioner(parallelism);
     String osName = System.getProperty("os.name").toLowerCase(Locale.ROOT);
     this.isWindows = osName.contains("win");
     this.isLinux = osName.contains("linux");
     this.windowsInfoProvider = isWindows ? new WindowsProcessInfoProvider() : null;
-    this.linuxInfoProvider = isLinux ? new LinuxProcessInfoProvider() : null;
+    this.procfs = procfs != null ? procfs : isLinux ? ProcfsSource.system() : null;
+    // Una grabacion trae las CPUs del equipo donde se hizo, no las del que la reproduce.
+    this.availableProcessors =
+        this.procfs != null
+            ? this.procfs.hostCpus()
+            : Math.max(Runtime.getRuntime().availableProcessors(), 1);
+    // Las grabaciones traen su propio propietario por pid; el indice solo aplica en vivo.
+    this.userResolver =
+        this.procfs != null && this.procfs.isLive()
+            ? new PasswdUserResolver(Path.of("/etc/passwd"))
+            : null;
+    // Solo en vivo hay permisos que comprobar antes de abrir <pid>/io o <pid>/smaps_rollup.
+    this.selfUid =
+        this.procfs != null && this.procfs.isLive()
+            ? this.procfs.current().readUid(ProcessHandle.current().pid())
+            : -1;
+    this.smapsBudget = Math.max(smapsBudget, 0);
   }
 
   private <T> T safeCall(SupplierWithException<T> supplier, T fallback) {
@@ -57,122 +117,163 @@ public final class ProcessCaptureService {
     T get() throws Exception;
   }
 
+  /** Obtiene los datos costosos de un proceso, que solo se piden para los candidatos elegidos. */
+  @FunctionalInterface
+  private interface Enricher {
+    Map<Long, ProcessExtraInfo> fetch(Collection<Long> pids);
+  }
+
   public List<ProcessSnapshot> captureTopN(SelectionCriterion criterion, int n) {
+    return capture(CaptureOptions.builder(criterion, n).build()).procesos();
+  }
+
+  /**
+   * Captura los N procesos con mayor consumo segun las opciones:
+   *
+   * <ul>
+   *   <li>Con varias muestras el CPU de cada proceso se resume con el estadistico del plan, lo que
+   *       estabiliza el orden de procesos con rafagas sin alargar la ventana.
+   *   <li>Si el plan de hilos esta activo, agrega a cada proceso elegido sus hilos mas activos
+   *       medidos en una ventana extra del largo de una muestra.
+   *   <li>La memoria se mide con la metrica indicada. Todos los procesos se ordenan primero por
+   *       RSS; con PSS o USS solo se lee {@code smaps_rollup} de los candidatos: con el criterio de
+   *       memoria, los grupos de mayor RSS hasta que ninguno restante pueda superar a los N mejores
+   *       (el PSS y el USS nunca superan al RSS); con los demas criterios, solo los elegidos.
+   *   <li>Los procesos se agrupan con la estrategia indicada antes de elegir los N mayores. Por
+   *       arbol se lee el ppid en la misma pasada que el CPU; por usuario se resuelve el usuario de
+   *       todos los procesos, que queda en la cache de atributos para las capturas siguientes.
+   *   <li>Con cgroups elige tambien los N cgroups v2 de mayor consumo segun el mismo criterio. El
+   *       cgroup de cada proceso se lee de {@code /proc/<pid>/cgroup} en cada linea base, porque un
+   *       proceso puede cambiar de cgroup; los archivos de cada cgroup se leen una vez por captura
+   *       y no por proceso. Pedir cgroups desactiva el muestreador en segundo plano porque hace
+   *       falta la linea base.
+   * </ul>
+   *
+   * <p>Sin procfs no hay hilos ni cgroups y la metrica de memoria se ignora.
+   *
+   * @throws IllegalArgumentException si el criterio usa disco y no hay procfs (ver {@link
+   *     #supportsDiskIo()})
+   */
+  public CaptureResult capture(CaptureOptions options) {
+    SelectionCriterion criterion = options.criterion();
+    int n = options.n();
     if (n <= 0) {
       throw new IllegalArgumentException("N debe ser mayor a 0");
     }
-    Map<Long, Baseline> baselines = new ConcurrentHashMap<>();
-    ProcessHandle.allProcesses()
-        .forEach(
-            handle -> {
-              java.time.Duration cpuDuration =
-                  safeCall(
-                      () -> handle.info().totalCpuDuration().orElse(java.time.Duration.ZERO),
-                      java.time.Duration.ZERO);
-              String command =
-                  safeCall(
-                      () ->
-                          handle
-                              .info()
-                              .command()
-                              .orElseGet(() -> handle.info().commandLine().orElse("")),
-                      "");
-              String nombre = extractName(command);
-              String usuario = safeCall(() -> handle.info().user().orElse(null), null);
-              baselines.put(
-                  handle.pid(),
-                  new Baseline(
-                      handle, normalize(nombre, 120), normalize(usuario, 80), cpuDuration));
-            });
-    if (baselines.isEmpty()) {
-      LOGGER.warn("No se capturaron procesos del sistema operativo");
-      return List.of();
+    if (criterion.usesIo() && !supportsDiskIo()) {
+      throw new IllegalArgumentException("criterio " + criterion + " requiere procfs (Linux)");
     }
-    LOGGER.debug("Procesos baseline capturados: {}", baselines.size());
+    long capture = captureSequence.incrementAndGet();
+    CgroupCapture cgroupCapture = null;
+    if (options.cgroups() && procfs != null) {
+      cgroupCapture = new CgroupCapture();
+    } else if (options.cgroups()) {
+      LOGGER.debug("Captura por cgroup no disponible sin procfs");
+    }
+    CaptureFrame frame = borrowFrame();
     try {
-      Thread.sleep(sampleDuration.toMillis());
-    } catch (InterruptedException ex) {
-      Thread.currentThread().interrupt();
+      return capture(
+          frame,
+          criterion,
+          n,
+          options.sampling(),
+          options.threads(),
+          options.memory(),
+          options.aggregation(),
+          cgroupCapture,
+          capture);
+    } finally {
+      releaseFrame(frame);
     }
+  }
 
-    Map<Long, ProcessExtraInfo> extras;
-    if (isWindows && windowsInfoProvider != null) {
-      extras = windowsInfoProvider.fetch(baselines.keySet());
-    } else if (isLinux && linuxInfoProvider != null) {
-      extras = linuxInfoProvider.fetch(baselines.keySet());
-    } else {
-      extras = Map.of();
+  private CaptureResult capture(
+      CaptureFrame frame,
+      SelectionCriterion criterion,
+      int n,
+      CpuSampling sampling,
+      ThreadDrillDown threads,
+      MemoryMetric memory,
+      ProcessAggregation aggregation,
+      CgroupCapture cgroupCapture,
+      long capture) {
+    ProcessTree tree = aggregation.mode() == AggregationMode.TREE ? frame.tree() : null;
+    Optional<Enricher> sampled =
+        procfs != null
+            ? sampleProcfs(frame, criterion, capture, sampling, tree, cgroupCapture)
+            : sampleProcessHandles(frame, criterion, capture, sampling, tree);
+    attributeCache.evictStale(capture);
+    LOGGER.debug(
+        "Cache de atributos: {} procesos, tasa de aciertos {}",
+        attributeCache.size(),
+        attributeCache.hitRate());
+    if (sampled.isEmpty()) {
+      LOGGER.warn("No se capturaron procesos del sistema operativo");
+      return new CaptureResult(List.of(), List.of());
     }
 
-    List<ProcessSnapshot> snapshots = new ArrayList<>();
-    for (Baseline baseline : baselines.values()) {
-      ProcessHandle handle = baseline.handle();
-      if (!handle.isAlive()) {
-        continue;
-      }
-      ProcessHandle.Info info = handle.info();
-      Optional<java.time.Duration> afterCpu = info.totalCpuDuration();
-      BigDecimal cpuPct = null;
-      if (afterCpu.isPresent()) {
-        long deltaNanos = afterCpu.get().toNanos() - baseline.cpuDuration().toNanos();
-        if (deltaNanos < 0) {
-          deltaNanos = 0;
-        }
-        double elapsedNanos = sampleDuration.toNanos() * (double) availableProcessors;
-        if (elapsedNanos > 0) {
-          double ratio = (deltaNanos / elapsedNanos) * 100.0;
-          cpuPct = BigDecimal.valueOf(ratio).setScale(2, RoundingMode.HALF_UP);
-        }
-      }
-      Optional<BigDecimal> memOpt = memoryReader.readMemoryMb(handle.pid());
-      ProcessExtraInfo extra = extras.get(handle.pid());
-      BigDecimal mem = extra != null && extra.memMb() != null ? extra.memMb() : memOpt.orElse(null);
-      Integer priority = extra != null ? extra.priority() : null;
-      boolean systemProcess = extra != null && extra.systemProcess();
-      snapshots.add(
-          new ProcessSnapshot(
-              handle.pid(),
-              baseline.nombre(),
-              baseline.usuario(),
-              cpuPct,
-              mem,
-              priority,
-              systemProcess));
-    }
-
-    snapshots = aggregateByName(snapshots);
-
-    Comparator<ProcessSnapshot> comparator =
-        switch (criterion) {
-          case CPU ->
-              Comparator.comparing(
-                      (ProcessSnapshot ps) -> ps.cpuPct() == null ? BigDecimal.ZERO : ps.cpuPct(),
-                      Comparator.naturalOrder())
-                  .reversed();
-          case MEMORY ->
-              Comparator.comparing(
-                      (ProcessSnapshot ps) -> ps.memMb() == null ? BigDecimal.ZERO : ps.memMb(),
-                      Comparator.naturalOrder())
-                  .reversed();
-        };
-
-    if (snapshots.isEmpty()) {
+    aggregate(frame, aggregation, tree, sampled.get());
+
+    if (frame.groupCount() == 0) {
       // Evita propagar listas vacias cuando el muestreo no devuelve procesos.
       LOGGER.warn(
           "No se obtuvieron procesos tras el muestreo, se agregará el proceso actual como"
               + " respaldo");
-      snapshots.add(
-          new ProcessSnapshot(
-              ProcessHandle.current().pid(),
-              normalize(extractName("java"), 120),
-              System.getProperty("user.name"),
-              BigDecimal.ZERO,
-              null,
-              null,
-              false));
+      frame.reset(1);
+      frame.setRow(
+          0,
+          ProcessHandle.current().pid(),
+          normalize(extractName("java"), 120),
+          System.getProperty("user.name"),
+          0L,
+          ProcessSnapshot.UNKNOWN,
+          ProcessSnapshot.UNKNOWN,
+          ProcessSnapshot.UNKNOWN,
+          CaptureFrame.NO_PRIORITY,
+          false);
+      frame.startGrouping();
+      frame.addAlone(0, frame.name(0));
     }
 
-    List<ProcessSnapshot> top = snapshots.stream().sorted(comparator).limit(n).toList();
+    // Fase 1: se ordena con la metrica minima; fase 2: solo se completan los elegidos.
+    SmapsMemoryReader smaps = memory.readsSmaps() ? createSmapsReader(memory) : null;
+    long smapsStart = System.nanoTime();
+    int[] topGroups =
+        smaps != null && criterion == SelectionCriterion.MEMORY
+            ? selectBySmaps(frame, n, smaps)
+            : TopNSelector.selectGroups(frame, criterion, n);
+    List<AggregatedProcess> selected = new ArrayList<>(topGroups.length);
+    Set<Long> memberPids = new LinkedHashSet<>();
+    for (int index : topGroups) {
+      AggregatedProcess group = new AggregatedProcess(frame, index);
+      selected.add(group);
+      group.addMembersTo(memberPids);
+      if (smaps != null && criterion != SelectionCriterion.MEMORY) {
+        group.setMemory(smaps.measure(group.members(), group.memberMemory()));
+      }
+    }
+    if (smaps != null) {
+      LOGGER.info(
+          "Memoria {}: {} lecturas de smaps_rollup en {} ms, {} procesos con RSS{}",
+          memory,
+          smaps.reads(),
+          (System.nanoTime() - smapsStart) / 1_000_000,
+          smaps.fallbacks(),
+          smaps.isExhausted() ? " (presupuesto agotado)" : "");
+    }
+    Map<Long, ProcessExtraInfo> extras = sampled.get().fetch(memberPids);
+    LOGGER.debug(
+        "Enriquecidos {} procesos de {} grupos seleccionados", memberPids.size(), selected.size());
+    ProcessSnapshot[] enriched = new ProcessSnapshot[selected.size()];
+    for (int i = 0; i < enriched.length; i++) {
+      AggregatedProcess group = selected.get(i);
+      group.enrich(extras);
+      enriched[i] = group.toSnapshot();
+    }
+    if (threads.isEnabled()) {
+      attachThreads(selected, enriched, threads, sampling.tick(sampleDuration));
+    }
+    List<ProcessSnapshot> top = List.of(enriched);
     if (LOGGER.isDebugEnabled()) {
       top.stream()
           .limit(5)
@@ -180,44 +281,762 @@ public final class ProcessCaptureService {
               ps ->
                   LOGGER.debug(
                       "Proceso capturado pid={}, nombre={}, usuario={}, cpu={}, mem={},"
-                          + " prioridad={}, system={}",
+                          + " io={}/{}, prioridad={}, system={}",
                       ps.pid(),
                       ps.nombre(),
                       ps.usuario(),
                       ps.cpuPct(),
                       ps.memMb(),
+                      ps.ioReadKbs(),
+                      ps.ioWriteKbs(),
                       ps.prioridad(),
                       ps.systemProcess()));
     }
     LOGGER.debug("Procesos tras ordenamiento: {}", top.size());
+    List<CgroupSnapshot> topCgroups =
+        cgroupCapture == null ? List.of() : selectCgroups(cgroupCapture, criterion, n);
+    return new CaptureResult(top, topCgroups);
+  }
+
+  /**
+   * Elige los N cgroups de mayor consumo con el mismo {@link TopNSelector} que los procesos; cada
+   * cgroup se representa con una fotografia de proceso con sus metricas.
+   */
+  private static List<CgroupSnapshot> selectCgroups(
+      CgroupCapture cgroups, SelectionCriterion criterion, int n) {
+    List<CgroupSnapshot> measured = cgroups.measured();
+    List<ProcessSnapshot> ranked = new ArrayList<>(measured.size());
+    for (int i = 0; i < measured.size(); i++) {
+      CgroupSnapshot cgroup = measured.get(i);
+      ranked.add(
+          new ProcessSnapshot(
+              i,
+              cgroup.nombre(),
+              null,
+              cgroup.cpuBasisPoints(),
+              cgroup.memBytes(),
+              cgroup.ioReadBytesPerSec(),
+              cgroup.ioWriteBytesPerSec(),
+              null,
+              false,
+              null,
+              null,
+              List.of()));
+    }
+    int[] topIndexes = TopNSelector.selectIndices(ranked, criterion, n);
+    List<CgroupSnapshot> top = new ArrayList<>(topIndexes.length);
+    for (int index : topIndexes) {
+      top.add(measured.get(index));
+    }
+    LOGGER.info(
+        "Cgroups: {} medidos con {} lecturas de archivos, {} elegidos",
+        measured.size(),
+        cgroups.fileReads(),
+        top.size());
     return top;
   }
 
-  private List<ProcessSnapshot> aggregateByName(List<ProcessSnapshot> snapshots) {
-    if (snapshots.isEmpty()) {
-      return snapshots;
+  /**
+   * Muestrea procfs leyendo una sola vez {@code <pid>/stat} por proceso y pasada, sin pasar por
+   * {@link ProcessHandle.Info}. La linea base se lee del estado actual de la fuente y cada muestra
+   * del estado siguiente; con una sola muestra es la ventana clasica. Cada particion usa su propio
+   * lector porque este reutiliza su buffer. Con el muestreador en segundo plano activo y una sola
+   * muestra basta una pasada y no se espera la ventana.
+   *
+   * <p>Las lecturas se acumulan en la {@link CpuSampleSeries} del cuadro y la ultima pasada escribe
+   * una fila del {@link CaptureFrame} por pid; cada particion escribe solo su rango, asi que la
+   * agregacion ve los procesos en el mismo orden que un recorrido secuencial sin crear objetos por
+   * proceso.
+   *
+   * <p>Solo se leen los datos necesarios para ordenar (stat); el uid, el usuario y la heuristica de
+   * sistema se difieren al {@link Enricher} devuelto, que se aplica a los candidatos elegidos. El
+   * nombre sale del comando ({@code exe} o {@code cmdline}) la primera vez que se ve el proceso; el
+   * nombre normalizado y esos datos diferidos se guardan en la cache de atributos por pid y
+   * starttime, asi que en capturas siguientes solo se leen las metricas y la fila toma el usuario
+   * ya resuelto de la cache.
+   *
+   * <p>Si el criterio usa disco tambien se lee {@code <pid>/io} en la linea base y en la ultima
+   * pasada, y la tasa es la diferencia de bytes dividida por el tiempo entre ambas lecturas. Como
+   * necesita la linea base, en ese caso no se usa el muestreador en segundo plano.
+   *
+   * <p>Con {@code tree} la ultima pasada anota tambien el ppid de cada proceso, que ya viene en el
+   * mismo {@code stat}. Con {@code cgroups} la linea base lee el cgroup de cada proceso de {@code
+   * <pid>/cgroup}, los contadores de cada cgroup se leen despues de la linea base y otra vez
+   * despues de la ultima pasada, y cada proceso de la ultima pasada se cuenta en su cgroup.
+   */
+  private Optional<Enricher> sampleProcfs(
+      CaptureFrame frame,
+      SelectionCriterion criterion,
+      long capture,
+      CpuSampling sampling,
+      ProcessTree tree,
+      CgroupCapture cgroups) {
+    boolean readsIo = criterion.usesIo();
+    boolean fromSampler =
+        !sampling.isMultiSample() && !readsIo && cgroups == null && isSamplerReady();
+    Duration tick = sampling.tick(sampleDuration);
+    ProcfsView view = procfs.current();
+    long stateTime = view.nanoTime();
+    long baselineTime = stateTime;
+    long[] pids = view.listPids();
+    if (pids.length == 0) {
+      return Optional.empty();
     }
-    Map<String, AggregatedProcess> aggregated = new LinkedHashMap<>();
-    for (ProcessSnapshot snapshot : snapshots) {
-      String nombre = snapshot.nombre() == null ? "unknown" : snapshot.nombre();
-      String key = isWindows ? nombre.toLowerCase(Locale.ROOT) : nombre;
-      aggregated.compute(
-          key,
-          (k, current) -> {
-            if (current == null) {
-              return new AggregatedProcess(nombre, snapshot);
-            }
-            current.merge(nombre, snapshot);
-            return current;
-          });
+    frame.reset(pids.length);
+    if (tree != null) {
+      tree.reset(pids.length);
+    }
+    if (cgroups != null) {
+      cgroups.reset(pids.length);
+    }
+    CpuSampleSeries series = frame.series(sampling.samples());
+    double capacityNanos = 0;
+    if (!fromSampler) {
+      ProcfsView baselineView = view;
+      int captured =
+          partitioner.run(
+                  pids.length,
+                  (from, to) -> {
+                    LinuxProcfsReader reader = new LinuxProcfsReader(baselineView);
+                    ProcStat stat = new ProcStat();
+                    long[] io = new long[2];
+                    int count = 0;
+                    for (int i = from; i < to; i++) {
+                      if (!reader.readStat(pids[i], stat)) {
+                        continue;
+                      }
+                      series.baseline(i, stat.startTime, cpuNanos(stat));
+                      if (readsIo) {
+                        boolean known =
+                            canInspect(reader, pids[i], stat.startTime)
+                                && reader.readIo(pids[i], io);
+                        frame.setIoBase(
+                            i,
+                            known ? io[0] : ProcessSnapshot.UNKNOWN,
+                            known ? io[1] : ProcessSnapshot.UNKNOWN);
+                      }
+                      if (cgroups != null) {
+                        cgroups.assign(i, reader.readCgroup(pids[i]));
+                      }
+                      count++;
+                    }
+                    return count;
+                  })
+              .stream()
+              .mapToInt(Integer::intValue)
+              .sum();
+      if (captured == 0) {
+        return Optional.empty();
+      }
+      LOGGER.debug("Procesos baseline capturados: {}", captured);
+      if (cgroups != null) {
+        cgroups.baseline(baselineView);
+      }
+      // Las muestras intermedias solo alimentan la serie; la ultima tambien llena el cuadro.
+      for (int sample = 1; sample < sampling.samples(); sample++) {
+        ProcfsView tickView = awaitNextState(view, tick);
+        long tickTime = tickView.nanoTime();
+        double tickCapacity = (tickTime - stateTime) * (double) availableProcessors;
+        partitioner.run(
+            pids.length,
+            (from, to) -> {
+              LinuxProcfsReader reader = new LinuxProcfsReader(tickView);
+              ProcStat stat = new ProcStat();
+              for (int i = from; i < to; i++) {
+                if (!series.isAlive(i)) {
+                  continue;
+                }
+                if (reader.readStat(pids[i], stat)) {
+                  series.record(i, stat.startTime, cpuNanos(stat), tickCapacity);
+                } else {
+                  series.discard(i);
+                }
+              }
+              return to - from;
+            });
+        view = tickView;
+        stateTime = tickTime;
+      }
+      view = awaitNextState(view, tick);
+      capacityNanos = (view.nanoTime() - stateTime) * (double) availableProcessors;
+    }
+
+    ProcfsView sampleView = view;
+    double lastCapacity = capacityNanos;
+    long ioElapsedNanos = sampleView.nanoTime() - baselineTime;
+    long readStart = System.nanoTime();
+    List<Integer> partitions =
+        partitioner.run(
+            pids.length,
+            (from, to) -> {
+              LinuxProcfsReader reader = new LinuxProcfsReader(sampleView);
+              ProcStat stat = new ProcStat();
+              long[] io = new long[2];
+              float[] scratch = new float[series.capacity()];
+              int count = 0;
+              for (int i = from; i < to; i++) {
+                if (!fromSampler && !series.isAlive(i)) {
+                  continue;
+                }
+                if (!reader.readStat(pids[i], stat)) {
+                  continue;
+                }
+                long cpuBasisPoints;
+                if (fromSampler) {
+                  cpuBasisPoints =
+                      ProcessSnapshot.toBasisPoints(sampler.cpuPct(pids[i], stat.startTime));
+                } else if (series.record(i, stat.startTime, cpuNanos(stat), lastCapacity)) {
+                  cpuBasisPoints = series.basisPoints(i, sampling.statistic(), scratch);
+                } else {
+                  // Un starttime distinto indica que el pid fue reutilizado por otro proceso.
+                  continue;
+                }
+                ProcessAttributeCache.Entry attributes =
+                    attributeCache.lookup(pids[i], stat.startTime, stat, capture);
+                if (attributes == null) {
+                  attributes =
+                      attributeCache.store(
+                          pids[i],
+                          stat.startTime,
+                          resolveName(reader, pids[i], stat),
+                          stat,
+                          capture);
+                }
+                if (tree != null) {
+                  tree.add(i, pids[i], stat.ppid);
+                }
+                long ioReadRate = ProcessSnapshot.UNKNOWN;
+                long ioWriteRate = ProcessSnapshot.UNKNOWN;
+                if (readsIo) {
+                  boolean baselineKnown = frame.ioReadBase(i) != ProcessSnapshot.UNKNOWN;
+                  if (selfUid >= 0 && !attributes.isAccessChecked()) {
+                    // Un proceso nuevo se comprobo en la linea base, antes de tener entrada.
+                    attributes.checkAccess(baselineKnown);
+                  }
+                  if (baselineKnown && reader.readIo(pids[i], io)) {
+                    ioReadRate = bytesPerSecond(io[0] - frame.ioReadBase(i), ioElapsedNanos);
+                    ioWriteRate = bytesPerSecond(io[1] - frame.ioWriteBase(i), ioElapsedNanos);
+                  }
+                }
+                boolean resolved = attributes.isResolved();
+                frame.setRow(
+                    i,
+                    pids[i],
+                    attributes.nombre,
+                    resolved ? attributes.usuario() : null,
+                    cpuBasisPoints,
+                    stat.rssPages * LinuxProcfsReader.PAGE_SIZE,
+                    ioReadRate,
+                    ioWriteRate,
+                    LinuxProcfsReader.mapNiceToPriority(stat.nice),
+                    resolved && attributes.systemProcess());
+                count++;
+              }
+              return count;
+            });
+    if (cgroups != null) {
+      cgroups.finish(
+          frame,
+          sampleView,
+          availableProcessors,
+          path -> normalize(CgroupCapture.leafName(path), 120));
     }
-    if (aggregated.size() != snapshots.size() && LOGGER.isDebugEnabled()) {
+    int read = partitions.stream().mapToInt(Integer::intValue).sum();
+    if (LOGGER.isDebugEnabled() && read > 0) {
+      long elapsedMicros = (System.nanoTime() - readStart) / 1_000;
       LOGGER.debug(
-          "Agrupacion por nombre redujo {} procesos a {} entradas unicas",
-          snapshots.size(),
-          aggregated.size());
+          "Lectura procfs: {} procesos en {} us ({} us/pid, {} particiones)",
+          read,
+          elapsedMicros,
+          elapsedMicros / read,
+          partitions.size());
+    }
+    LinuxProcfsReader procfsReader = new LinuxProcfsReader(sampleView, userResolver);
+    return Optional.of(
+        candidates -> {
+          if (userResolver != null) {
+            userResolver.refreshIfChanged();
+          }
+          Map<Long, ProcessExtraInfo> extras = new HashMap<>();
+          for (Long pid : candidates) {
+            ProcessAttributeCache.Entry attributes = attributeCache.peek(pid);
+            if (attributes == null || !attributes.isResolved()) {
+              int uid = procfsReader.readUid(pid);
+              String executable = procfsReader.readExecutable(pid);
+              boolean systemProcess = uid == 0 || LinuxProcfsReader.isSbinPath(executable);
+              String usuario = normalize(procfsReader.resolveUser(pid, uid), 80);
+              Integer knownUid = uid >= 0 ? uid : null;
+              extras.put(
+                  pid,
+                  new ProcessExtraInfo(
+                      usuario,
+                      ProcessSnapshot.UNKNOWN,
+                      null,
+                      systemProcess,
+                      knownUid,
+                      executable));
+              if (attributes != null) {
+                attributes.resolve(usuario, systemProcess, knownUid, executable);
+              }
+            } else {
+              extras.put(
+                  pid,
+                  new ProcessExtraInfo(
+                      attributes.usuario(),
+                      ProcessSnapshot.UNKNOWN,
+                      null,
+                      attributes.systemProcess(),
+                      attributes.uid(),
+                      attributes.executable()));
+            }
+          }
+          return extras;
+        });
+  }
+
+  /**
+   * Nombre de un proceso que no esta en la cache: el nombre de archivo de su comando, igual que con
+   * {@link ProcessHandle.Info#command()}. El {@code comm} de {@code stat} queda como respaldo para
+   * los procesos sin comando (hilos del kernel) porque el kernel lo trunca a 15 bytes.
+   */
+  private String resolveName(LinuxProcfsReader reader, long pid, ProcStat stat) {
+    String command = reader.readCommand(pid);
+    return normalize(command != null ? extractName(command) : stat.comm(), 120);
+  }
+
+  private SmapsMemoryReader createSmapsReader(MemoryMetric memory) {
+    if (procfs == null) {
+      LOGGER.debug("Memoria {} no disponible sin procfs, se usa RSS", memory);
+      return null;
+    }
+    LinuxProcfsReader reader = new LinuxProcfsReader(procfs.current());
+    return new SmapsMemoryReader(
+        reader,
+        memory,
+        smapsBudget,
+        pid -> {
+          // Las entradas se actualizaron en esta captura; sin entrada se compara el uid.
+          ProcessAttributeCache.Entry attributes = attributeCache.peek(pid);
+          return canInspect(reader, pid, attributes == null ? -1 : attributes.startKey);
+        });
+  }
+
+  /**
+   * Elige los N grupos de mayor PSS o USS recorriendolos por RSS descendente. Como la metrica de
+   * un grupo nunca supera su RSS, el recorrido termina cuando el RSS del siguiente no supera al
+   * N-esimo mejor valor medido, o cuando se agota el presupuesto. Un grupo que no se pudo medir por
+   * completo corta el recorrido: ese y los que faltaban compiten con su RSS, que acota su PSS o USS
+   * por arriba, asi que la captura siempre devuelve N grupos y el registro advierte cuantos son
+   * aproximados.
+   */
+  private int[] selectBySmaps(CaptureFrame frame, int n, SmapsMemoryReader smaps) {
+    double[] rss = new double[frame.groupCount()];
+    for (int i = 0; i < rss.length; i++) {
+      rss[i] = Math.max(frame.groupMem(i), 0L);
+    }
+    // El recorrido se limita a N grupos mas el presupuesto; solo esos se ordenan.
+    int[] byRss =
+        TopNSelector.selectIndices(rss, (int) Math.min(rss.length, (long) n + smapsBudget));
+    double[] scores = frame.groupScores();
+    Arrays.fill(scores, 0, rss.length, -1);
+    PriorityQueue<Long> best = new PriorityQueue<>();
+    int unmeasured = byRss.length;
+    for (int k = 0; k < byRss.length; k++) {
+      int index = byRss[k];
+      if (best.size() == n && rss[index] <= best.peek()) {
+        break;
+      }
+      if (smaps.isExhausted()) {
+        unmeasured = k;
+        break;
+      }
+      long measured = smaps.measure(frame.groupMembers(index), frame.groupMemberMemory(index));
+      if (!smaps.isLastComplete()) {
+        // Un grupo medido solo en parte mezcla RSS con PSS o USS; conserva su RSS.
+        unmeasured = k;
+        break;
+      }
+      frame.setGroupMem(index, measured);
+      scores[index] = Math.max(measured, 0L);
+      best.add(Math.max(measured, 0L));
+      if (best.size() > n) {
+        best.poll();
+      }
+    }
+    for (int k = unmeasured; k < byRss.length; k++) {
+      scores[byRss[k]] = rss[byRss[k]];
+    }
+    // Los grupos podados quedan con puntaje -1: su RSS no alcanza al N-esimo mejor.
+    int[] selected = TopNSelector.selectIndices(scores, rss.length, Math.min(n, byRss.length));
+    if (unmeasured < byRss.length) {
+      boolean[] approximate = new boolean[rss.length];
+      for (int k = unmeasured; k < byRss.length; k++) {
+        approximate[byRss[k]] = true;
+      }
+      int count = 0;
+      for (int index : selected) {
+        if (approximate[index]) {
+          count++;
+        }
+      }
+      LOGGER.warn(
+          "Presupuesto de smaps_rollup agotado: {} de {} grupos elegidos se ordenan por RSS"
+              + " (aproximado)",
+          count,
+          selected.length);
+    }
+    return selected;
+  }
+
+  private void attachThreads(
+      List<AggregatedProcess> selected,
+      ProcessSnapshot[] enriched,
+      ThreadDrillDown plan,
+      Duration window) {
+    if (procfs == null) {
+      LOGGER.debug("Detalle de hilos no disponible sin procfs");
+      return;
+    }
+    long start = System.nanoTime();
+    List<long[]> groups = selected.stream().map(AggregatedProcess::members).toList();
+    List<List<ThreadSnapshot>> threads =
+        new HotThreadSampler(procfs, availableProcessors).sample(groups, plan, window);
+    for (int i = 0; i < enriched.length; i++) {
+      enriched[i] = enriched[i].withHilos(threads.get(i));
+    }
+    LOGGER.debug("Detalle de hilos completado en {} ms", (System.nanoTime() - start) / 1_000_000);
+  }
+
+  private static long cpuNanos(ProcStat stat) {
+    return stat.cpuTicks() * LinuxProcfsReader.NANOS_PER_TICK;
+  }
+
+  /**
+   * Decide si vale la pena abrir {@code <pid>/io}. El kernel solo lo deja leer a root y al dueno
+   * del proceso, y cada rechazo cuesta una excepcion en la apertura, asi que en vivo se compara
+   * antes el uid del proceso con el propio. La decision se guarda en la cache de atributos y en
+   * capturas siguientes no se vuelve a consultar el uid.
+   */
+  private boolean canInspect(LinuxProcfsReader reader, long pid, long startKey) {
+    if (selfUid <= 0) {
+      // Root lee todo; las fuentes grabadas o de directorio no tienen permisos que comprobar.
+      return true;
+    }
+    ProcessAttributeCache.Entry attributes = attributeCache.peek(pid);
+    boolean cached = attributes != null && attributes.startKey == startKey;
+    if (cached && attributes.isAccessChecked()) {
+      return attributes.isAccessAllowed();
+    }
+    boolean allowed = reader.readUid(pid) == selfUid;
+    if (cached && !allowed) {
+      attributes.checkAccess(false);
+    }
+    return allowed;
+  }
+
+  private static long bytesPerSecond(long deltaBytes, long elapsedNanos) {
+    if (elapsedNanos <= 0) {
+      return ProcessSnapshot.UNKNOWN;
+    }
+    return Math.round(Math.max(0L, deltaBytes) * 1e9 / elapsedNanos);
+  }
+
+  /**
+   * Muestrea con {@link ProcessHandle}; se usa en Windows y en sistemas sin {@code /proc}. En
+   * Windows la consulta a PowerShell solo se hace para todos los procesos cuando se ordena por
+   * memoria, porque es la unica fuente de ese dato; para CPU se difiere a los candidatos elegidos.
+   *
+   * <p>Las pasadas se reparten igual que en {@link #sampleProcfs}: la linea base y las muestras
+   * intermedias en arreglos alineados con los handles y la ultima pasada en las filas del cuadro.
+   * Con {@code tree} el padre se consulta con {@link ProcessHandle#parent()} en la ultima pasada.
+   */
+  private Optional<Enricher> sampleProcessHandles(
+      CaptureFrame frame,
+      SelectionCriterion criterion,
+      long capture,
+      CpuSampling sampling,
+      ProcessTree tree) {
+    List<ProcessHandle> handles = ProcessHandle.allProcesses().toList();
+    if (handles.isEmpty()) {
+      return Optional.empty();
+    }
+    frame.reset(handles.size());
+    if (tree != null) {
+      tree.reset(handles.size());
+    }
+    boolean fromSampler = !sampling.isMultiSample() && isSamplerReady();
+    Duration tick = sampling.tick(sampleDuration);
+    CpuSampleSeries series = frame.series(sampling.samples());
+    Baseline[] baselines = new Baseline[handles.size()];
+    long stateTime = System.nanoTime();
+    partitioner.run(
+        handles.size(),
+        (from, to) -> {
+          for (int i = from; i < to; i++) {
+            baselines[i] = readBaseline(handles.get(i), capture);
+            series.baseline(i, baselines[i].startKey(), baselines[i].cpuDuration().toNanos());
+          }
+          return to - from;
+        });
+    LOGGER.debug("Procesos baseline capturados: {}", baselines.length);
+    double capacityNanos = 0;
+    if (!fromSampler) {
+      for (int sample = 1; sample < sampling.samples(); sample++) {
+        sleepSampleWindow(tick);
+        long tickTime = System.nanoTime();
+        double tickCapacity = (tickTime - stateTime) * (double) availableProcessors;
+        partitioner.run(
+            baselines.length,
+            (from, to) -> {
+              for (int i = from; i < to; i++) {
+                if (series.isAlive(i)) {
+                  recordHandle(series, i, baselines[i], tickCapacity);
+                }
+              }
+              return to - from;
+            });
+        stateTime = tickTime;
+      }
+      sleepSampleWindow(tick);
+      capacityNanos = (System.nanoTime() - stateTime) * (double) availableProcessors;
+    }
+
+    boolean windowsExtras = isWindows && windowsInfoProvider != null;
+    boolean eagerExtras = windowsExtras && criterion == SelectionCriterion.MEMORY;
+    Map<Long, ProcessExtraInfo> extras =
+        eagerExtras
+            ? windowsInfoProvider.fetch(handles.stream().map(ProcessHandle::pid).toList())
+            : Map.of();
+
+    double lastCapacity = capacityNanos;
+    partitioner.run(
+        baselines.length,
+        (from, to) -> {
+          float[] scratch = new float[series.capacity()];
+          for (int i = from; i < to; i++) {
+            Baseline baseline = baselines[i];
+            long cpuBasisPoints;
+            if (fromSampler) {
+              if (!baseline.handle().isAlive()) {
+                continue;
+              }
+              cpuBasisPoints =
+                  ProcessSnapshot.toBasisPoints(
+                      sampler.cpuPct(baseline.handle().pid(), baseline.startKey()));
+            } else if (series.isAlive(i) && recordHandle(series, i, baseline, lastCapacity)) {
+              cpuBasisPoints = series.basisPoints(i, sampling.statistic(), scratch);
+            } else {
+              continue;
+            }
+            if (tree != null) {
+              ProcessHandle handle = baseline.handle();
+              long parent =
+                  safeCall(() -> handle.parent().map(ProcessHandle::pid).orElse(-1L), -1L);
+              tree.add(i, handle.pid(), parent);
+            }
+            setHandleRow(frame, i, baseline, cpuBasisPoints, extras);
+          }
+          return to - from;
+        });
+    if (windowsExtras && !eagerExtras) {
+      return Optional.of(windowsInfoProvider::fetch);
+    }
+    return Optional.of(candidates -> Map.of());
+  }
+
+  /**
+   * Agrega una muestra del proceso a la serie. Sin permiso para leer su CPU se conserva la ultima
+   * lectura, de modo que el proceso sigue en la captura con CPU desconocido.
+   *
+   * @return {@code false} si el proceso ya termino
+   */
+  private boolean recordHandle(
+      CpuSampleSeries series, int index, Baseline baseline, double capacityNanos) {
+    ProcessHandle handle = baseline.handle();
+    if (!handle.isAlive()) {
+      series.discard(index);
+      return false;
+    }
+    Optional<java.time.Duration> cpu =
+        safeCall(() -> handle.info().totalCpuDuration(), Optional.empty());
+    if (cpu.isPresent()) {
+      series.record(index, baseline.startKey(), cpu.get().toNanos(), capacityNanos);
+    }
+    return true;
+  }
+
+  /**
+   * Lee la linea base de un proceso. Nombre y usuario salen de la cache de atributos cuando el
+   * proceso ya se vio; sin instante de inicio no se puede detectar la reutilizacion del pid y no se
+   * guardan.
+   */
+  private Baseline readBaseline(ProcessHandle handle, long capture) {
+    ProcessHandle.Info info = handle.info();
+    java.time.Duration cpuDuration =
+        safeCall(
+            () -> info.totalCpuDuration().orElse(java.time.Duration.ZERO),
+            java.time.Duration.ZERO);
+    long startKey = safeCall(() -> info.startInstant().map(Instant::toEpochMilli).orElse(-1L), -1L);
+    ProcessAttributeCache.Entry attributes =
+        startKey >= 0 ? attributeCache.lookup(handle.pid(), startKey, capture) : null;
+    if (attributes != null) {
+      return new Baseline(
+          handle, attributes.nombre, attributes.usuario(), startKey, cpuDuration);
+    }
+    String command =
+        safeCall(() -> info.command().orElseGet(() -> info.commandLine().orElse("")), "");
+    String nombre = normalize(extractName(command), 120);
+    String usuario = normalize(safeCall(() -> info.user().orElse(null), null), 80);
+    if (startKey >= 0) {
+      attributeCache.store(handle.pid(), startKey, nombre, capture).resolve(usuario, false);
+    }
+    return new Baseline(handle, nombre, usuario, startKey, cpuDuration);
+  }
+
+  private void setHandleRow(
+      CaptureFrame frame,
+      int row,
+      Baseline baseline,
+      long cpuBasisPoints,
+      Map<Long, ProcessExtraInfo> extras) {
+    long pid = baseline.handle().pid();
+    ProcessExtraInfo extra = extras.get(pid);
+    long mem =
+        extra != null && extra.memBytes() != ProcessSnapshot.UNKNOWN
+            ? extra.memBytes()
+            : memoryReader.readMemoryBytes(pid);
+    Integer priority = extra != null ? extra.priority() : null;
+    boolean systemProcess = extra != null && extra.systemProcess();
+    frame.setRow(
+        row,
+        pid,
+        baseline.nombre(),
+        baseline.usuario(),
+        cpuBasisPoints,
+        mem,
+        ProcessSnapshot.UNKNOWN,
+        ProcessSnapshot.UNKNOWN,
+        priority == null ? CaptureFrame.NO_PRIORITY : priority,
+        systemProcess);
+  }
+
+  /**
+   * Toma el cuadro libre de la captura anterior, o crea uno si otra captura simultanea lo esta
+   * usando; asi las capturas periodicas reutilizan los mismos arreglos.
+   */
+  private CaptureFrame borrowFrame() {
+    CaptureFrame frame = spareFrame.getAndSet(null);
+    return frame != null ? frame : new CaptureFrame();
+  }
+
+  private void releaseFrame(CaptureFrame frame) {
+    spareFrame.set(frame);
+  }
+
+  /** El muestreador lee el sistema en vivo, asi que no aplica a fuentes grabadas o falsas. */
+  private boolean isSamplerReady() {
+    return sampler != null && sampler.isWarm() && (procfs == null || procfs.isLive());
+  }
+
+  private ProcfsView awaitNextState(ProcfsView baseline, Duration window) {
+    try {
+      return procfs.next(baseline, window);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return baseline;
+    }
+  }
+
+  private void sleepSampleWindow(Duration window) {
+    try {
+      Thread.sleep(window.toMillis());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Agrupa las filas del cuadro con la estrategia pedida; los grupos quedan en el orden en que
+   * aparece su primer proceso. Por nombre, en Windows sin distinguir mayusculas. Por arbol, cada
+   * grupo lleva el nombre de su raiz. Por usuario, cada grupo lleva el nombre del usuario y los
+   * usuarios que la captura difirio se resuelven con {@code enricher}. Las claves son codigos del
+   * diccionario del cuadro o posiciones de fila, asi que no se crea un objeto por proceso.
+   */
+  private void aggregate(
+      CaptureFrame frame, ProcessAggregation aggregation, ProcessTree tree, Enricher enricher) {
+    long start = System.nanoTime();
+    frame.startGrouping();
+    int rows = frame.rows();
+    switch (aggregation.mode()) {
+      case NONE -> {
+        for (int row = 0; row < rows; row++) {
+          if (frame.isPresent(row)) {
+            frame.addAlone(row, nameOf(frame.name(row)));
+          }
+        }
+      }
+      case TREE -> {
+        tree.resolve(aggregation.treeDepth());
+        for (int row = 0; row < rows; row++) {
+          if (frame.isPresent(row)) {
+            int root = tree.rootIndexOf(row);
+            int group = frame.addToGroup(row, root, nameOf(frame.name(row)));
+            if (row == root) {
+              frame.renameGroup(group, nameOf(frame.name(row)));
+            }
+          }
+        }
+      }
+      case USER -> {
+        List<Long> deferred = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+          if (frame.isPresent(row) && isBlank(frame.user(row))) {
+            deferred.add(frame.pid(row));
+          }
+        }
+        Map<Long, ProcessExtraInfo> extras =
+            deferred.isEmpty() ? Map.of() : enricher.fetch(deferred);
+        for (int row = 0; row < rows; row++) {
+          if (!frame.isPresent(row)) {
+            continue;
+          }
+          ProcessExtraInfo extra = extras.get(frame.pid(row));
+          if (extra != null && extra.usuario() != null) {
+            frame.setUser(row, extra.usuario());
+          }
+          String user = isBlank(frame.user(row)) ? "unknown" : frame.user(row);
+          frame.addToGroup(row, frame.encode(user), user);
+        }
+      }
+      default -> {
+        for (int row = 0; row < rows; row++) {
+          if (frame.isPresent(row)) {
+            String nombre = nameOf(frame.name(row));
+            String key = isWindows ? nombre.toLowerCase(Locale.ROOT) : nombre;
+            frame.addToGroup(row, frame.encode(key), nombre);
+          }
+        }
+      }
     }
-    return aggregated.values().stream().map(AggregatedProcess::toSnapshot).toList();
+    if (LOGGER.isDebugEnabled()) {
+      int present = frame.presentRows();
+      if (frame.groupCount() != present) {
+        LOGGER.debug(
+            "Agrupacion {} redujo {} procesos a {} entradas unicas en {} us",
+            aggregation.mode(),
+            present,
+            frame.groupCount(),
+            (System.nanoTime() - start) / 1_000);
+      }
+    }
+  }
+
+  private static String nameOf(String nombre) {
+    return nombre == null ? "unknown" : nombre;
+  }
+
+  private static boolean isBlank(String value) {
+    return value == null || value.isBlank();
   }
 
   private String extractName(String command) {
@@ -246,63 +1065,132 @@ public final class ProcessCaptureService {
     return sanitized;
   }
 
+  /**
+   * Indica si la captura mide tasas de disco, que solo se leen de {@code /proc/<pid>/io}. Sin
+   * procfs todas quedarian desconocidas, asi que los criterios {@link SelectionCriterion#IO} y
+   * {@link SelectionCriterion#WEIGHTED} se rechazan en lugar de ordenar sobre valores sin dato.
+   */
+  public boolean supportsDiskIo() {
+    return procfs != null;
+  }
+
+  /** Proporcion de consultas a la cache de atributos resueltas sin releer el proceso (0 a 1). */
+  public double attributeCacheHitRate() {
+    return attributeCache.hitRate();
+  }
+
+  @Override
+  public void close() {
+    partitioner.close();
+  }
+
   private record Baseline(
-      ProcessHandle handle, String nombre, String usuario, java.time.Duration cpuDuration) {}
+      ProcessHandle handle,
+      String nombre,
+      String usuario,
+      long startKey,
+      java.time.Duration cpuDuration) {}
 
   private static final class AggregatedProcess {
     private String displayName;
     private long representativePid;
     private String usuario;
-    private BigDecimal cpuPctSum;
-    private BigDecimal memMbSum;
+    private long cpuBasisPointsSum;
+    private long memBytesSum;
+    private long ioReadSum;
+    private long ioWriteSum;
     private Integer prioridad;
     private boolean systemProcess;
+    private Integer uid;
+    private String executable;
+    private final long[] memberPids;
+    private final long[] memberMemory;
 
-    private AggregatedProcess(String nombre, ProcessSnapshot snapshot) {
-      this.displayName = nombre;
-      this.representativePid = snapshot.pid();
-      this.usuario = sanitizeUser(snapshot.usuario());
-      this.cpuPctSum = snapshot.cpuPct();
-      this.memMbSum = snapshot.memMb();
-      this.prioridad = snapshot.prioridad();
-      this.systemProcess = snapshot.systemProcess();
+    /** Copia un grupo elegido del cuadro, que se reutiliza en la captura siguiente. */
+    private AggregatedProcess(CaptureFrame frame, int group) {
+      this.displayName = frame.groupName(group);
+      this.representativePid = frame.groupPid(group);
+      this.usuario = frame.groupUser(group);
+      this.cpuBasisPointsSum = frame.groupCpu(group);
+      this.memBytesSum = frame.groupMem(group);
+      this.ioReadSum = frame.groupIoRead(group);
+      this.ioWriteSum = frame.groupIoWrite(group);
+      int priority = frame.groupPriority(group);
+      this.prioridad = priority == CaptureFrame.NO_PRIORITY ? null : priority;
+      this.systemProcess = frame.groupSystem(group);
+      this.memberPids = frame.groupMembers(group);
+      this.memberMemory = frame.groupMemberMemory(group);
     }
 
-    private void merge(String nombre, ProcessSnapshot snapshot) {
-      if (isUnknown(displayName) && !isUnknown(nombre)) {
-        this.displayName = nombre;
+    /** Incorpora los datos diferidos de los miembros, en el mismo orden en que se agruparon. */
+    private void enrich(Map<Long, ProcessExtraInfo> extras) {
+      if (extras.isEmpty()) {
+        return;
+      }
+      for (int i = 0; i < memberPids.length; i++) {
+        ProcessExtraInfo extra = extras.get(memberPids[i]);
+        if (extra != null) {
+          combine(extra.usuario(), extra.memBytes(), extra.priority(), extra.systemProcess());
+          // Como el usuario, el uid y el ejecutable del grupo son los del primer miembro que los
+          // tiene.
+          if (uid == null) {
+            uid = extra.uid();
+          }
+          if (executable == null) {
+            executable = extra.executable();
+          }
+        }
       }
-      this.representativePid = Math.min(this.representativePid, snapshot.pid());
-      String candidateUser = sanitizeUser(snapshot.usuario());
-      if (isUnknown(this.usuario) && !isUnknown(candidateUser)) {
+    }
+
+    private void combine(String user, long memBytes, Integer priority, boolean system) {
+      String candidateUser = sanitizeUser(user);
+      if (CaptureFrame.isUnknown(this.usuario) && !CaptureFrame.isUnknown(candidateUser)) {
         this.usuario = candidateUser;
       }
-      this.cpuPctSum = sumMetric(this.cpuPctSum, snapshot.cpuPct());
-      this.memMbSum = sumMetric(this.memMbSum, snapshot.memMb());
-      if (snapshot.prioridad() != null) {
-        this.prioridad =
-            this.prioridad == null
-                ? snapshot.prioridad()
-                : Math.max(this.prioridad, snapshot.prioridad());
+      this.memBytesSum = CaptureFrame.sumMetric(this.memBytesSum, memBytes);
+      if (priority != null) {
+        this.prioridad = this.prioridad == null ? priority : Math.max(this.prioridad, priority);
       }
-      this.systemProcess = this.systemProcess || snapshot.systemProcess();
+      this.systemProcess = this.systemProcess || system;
     }
 
-    private ProcessSnapshot toSnapshot() {
-      String nombre = isUnknown(displayName) ? "unknown" : displayName;
-      String user = isUnknown(usuario) ? "unknown" : usuario;
-      return new ProcessSnapshot(
-          representativePid, nombre, user, cpuPctSum, memMbSum, prioridad, systemProcess);
+    private long[] members() {
+      return memberPids;
     }
 
-    private static BigDecimal sumMetric(BigDecimal base, BigDecimal extra) {
-      if (base == null) {
-        return extra;
-      }
-      if (extra == null) {
-        return base;
+    /** Memoria de cada miembro tal como se capturo, alineada con {@link #members()}. */
+    private long[] memberMemory() {
+      return memberMemory;
+    }
+
+    /** Reemplaza la memoria del grupo por una medida mas precisa que la de la captura. */
+    private void setMemory(long memBytes) {
+      this.memBytesSum = memBytes;
+    }
+
+    private void addMembersTo(Set<Long> target) {
+      for (int i = 0; i < memberPids.length; i++) {
+        target.add(memberPids[i]);
       }
-      return base.add(extra);
+    }
+
+    private ProcessSnapshot toSnapshot() {
+      String nombre = CaptureFrame.isUnknown(displayName) ? "unknown" : displayName;
+      String user = CaptureFrame.isUnknown(usuario) ? "unknown" : usuario;
+      return new ProcessSnapshot(
+          representativePid,
+          nombre,
+          user,
+          cpuBasisPointsSum,
+          memBytesSum,
+          ioReadSum,
+          ioWriteSum,
+          prioridad,
+          systemProcess,
+          uid,
+          executable,
+          List.of());
     }
 
     private static String sanitizeUser(String user) {
@@ -312,9 +1200,5 @@ public final class ProcessCaptureService {
       String trimmed = user.trim();
       return trimmed.isEmpty() ? null : trimmed;
     }
-
-    private static boolean isUnknown(String value) {
-      return value == null || value.isBlank() || "unknown".equalsIgnoreCase(value);
-    }
   }
 }
@@ -1,6 +1,20 @@
 package com.pm.service.capture;
 
-import java.math.BigDecimal;
+/**
+ * Agrupa la informacion complementaria de un proceso que se obtiene solo para los candidatos
+ * seleccionados (o para todos, si la metrica de seleccion depende de ella). La memoria va en bytes
+ * o {@link com.pm.domain.process.ProcessSnapshot#UNKNOWN}; {@code uid} y {@code executable} solo
+ * se conocen con procfs.
+ */
+record ProcessExtraInfo(
+    String usuario,
+    long memBytes,
+    Integer priority,
+    boolean systemProcess,
+    Integer uid,
+    String executable) {
 
-/** Agrupa la informacion complementaria obtenida para cada proceso en Windows. */
-record ProcessExtraInfo(BigDecimal memMb, Integer priority, boolean systemProcess) {}
+  ProcessExtraInfo(String usuario, long memBytes, Integer priority, boolean systemProcess) {
+    this(usuario, memBytes, priority, systemProcess, null, null);
+  }
+}
@@ -1,59 +1,94 @@
 package com.pm.service.capture;
 
+import com.pm.domain.process.ProcessSnapshot;
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Locale;
-import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Obtiene el consumo de memoria de procesos consultando los archivos expuestos por Linux en {@code
- * /proc}.
+ * Obtiene la memoria residente (RSS) de procesos consultando los archivos expuestos por Linux en
+ * {@code /proc} o en la raiz de procfs configurada.
  */
 public final class ProcessMemoryReader {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ProcessMemoryReader.class);
   private static final long DEFAULT_PAGE_SIZE = 4096L;
+  private static final String KERNEL_PAGE_SIZE = "KernelPageSize:";
   private final boolean isLinux;
+  private final Path procRoot;
 
   public ProcessMemoryReader() {
+    this(Path.of("/proc"));
+  }
+
+  public ProcessMemoryReader(Path procRoot) {
     this.isLinux = System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("linux");
+    this.procRoot = procRoot;
   }
 
-  public Optional<BigDecimal> readMemoryMb(long pid) {
+  /** Devuelve la memoria residente del proceso en bytes o {@link ProcessSnapshot#UNKNOWN}. */
+  public long readMemoryBytes(long pid) {
     if (isLinux) {
       return readLinuxMemory(pid);
     }
-    return Optional.empty();
+    return ProcessSnapshot.UNKNOWN;
   }
 
-  private Optional<BigDecimal> readLinuxMemory(long pid) {
-    Path statm = Path.of("/proc", Long.toString(pid), "statm");
+  private long readLinuxMemory(long pid) {
+    Path statm = procRoot.resolve(Long.toString(pid)).resolve("statm");
     if (!Files.exists(statm)) {
-      return Optional.empty();
+      return ProcessSnapshot.UNKNOWN;
     }
     try {
       String content = Files.readString(statm);
       if (content == null || content.isBlank()) {
-        return Optional.empty();
+        return ProcessSnapshot.UNKNOWN;
       }
       String[] parts = content.trim().split("\\s+");
-      if (parts.length == 0) {
-        return Optional.empty();
+      if (parts.length < 2) {
+        return ProcessSnapshot.UNKNOWN;
       }
-      long pages = Long.parseLong(parts[0]);
-      long bytes = pages * DEFAULT_PAGE_SIZE;
-      BigDecimal mb =
-          BigDecimal.valueOf(bytes)
-              .divide(BigDecimal.valueOf(1024 * 1024), 2, RoundingMode.HALF_UP);
-      return Optional.of(mb);
+      // statm: tamano virtual, residente, compartido, ... en paginas.
+      long pages = Long.parseLong(parts[1]);
+      return pages * pageSize();
     } catch (IOException | NumberFormatException ex) {
       LOGGER.debug("No se pudo obtener memoria para pid {}: {}", pid, ex.getMessage());
-      return Optional.empty();
+      return ProcessSnapshot.UNKNOWN;
+    }
+  }
+
+  /**
+   * Tamano de pagina del sistema en bytes. Java no lo expone, asi que se toma de la primera linea
+   * {@code KernelPageSize} de {@code /proc/self/smaps}; si no se puede leer se asume 4096.
+   */
+  static long pageSize() {
+    return PageSizeHolder.PAGE_SIZE;
+  }
+
+  private static final class PageSizeHolder {
+    private static final long PAGE_SIZE = detectPageSize(Path.of("/proc/self/smaps"));
+  }
+
+  private static long detectPageSize(Path smaps) {
+    try (BufferedReader reader = Files.newBufferedReader(smaps, StandardCharsets.US_ASCII)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith(KERNEL_PAGE_SIZE)) {
+          // Formato: "KernelPageSize:        4 kB".
+          String value = line.substring(KERNEL_PAGE_SIZE.length()).trim();
+          int space = value.indexOf(' ');
+          long kib = Long.parseLong(space < 0 ? value : value.substring(0, space));
+          return kib * 1024L;
+        }
+      }
+    } catch (IOException | RuntimeException ex) {
+      LOGGER.debug("No se pudo leer el tamano de pagina de {}: {}", smaps, ex.getMessage());
     }
+    return DEFAULT_PAGE_SIZE;
   }
 }
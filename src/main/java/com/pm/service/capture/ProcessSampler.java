@@ -0,0 +1,178 @@
+package com.pm.service.capture;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Muestreador en segundo plano que registra periodicamente el CPU acumulado de cada proceso. Con el
+ * muestreador activo la captura obtiene el porcentaje de CPU de las dos lecturas mas recientes en
+ * lugar de dormir durante la ventana de muestreo.
+ *
+ * <p>Cada proceso se identifica por pid y una clave de inicio (starttime en Linux, instante de
+ * inicio en otros sistemas) para detectar la reutilizacion de pids. Los procesos que no aparecen en
+ * un tick se descartan y la cantidad de procesos seguidos esta acotada.
+ */
+public final class ProcessSampler implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProcessSampler.class);
+
+  private final Duration tick;
+  private final int history;
+  private final int maxProcesses;
+  private final boolean isLinux;
+  private final int availableProcessors;
+  private final Map<Long, PidHistory> histories = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService scheduler;
+  private final LinuxProcfsReader procfsReader;
+  private final ProcStat stat = new ProcStat();
+  private long tickSequence;
+  private volatile long completedTicks;
+  private volatile long droppedProcesses;
+
+  public ProcessSampler(Duration tick, int history, int maxProcesses) {
+    this.tick = tick;
+    this.history = Math.max(history, 2);
+    this.maxProcesses = Math.max(maxProcesses, 1);
+    this.isLinux = System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("linux");
+    this.availableProcessors =
+        isLinux ? HostCpus.online() : Math.max(Runtime.getRuntime().availableProcessors(), 1);
+    this.procfsReader = isLinux ? new LinuxProcfsReader() : null;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "process-sampler");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  public void start() {
+    scheduler.scheduleAtFixedRate(
+        this::safeTick, 0, Math.max(tick.toMillis(), 1), TimeUnit.MILLISECONDS);
+    LOGGER.info(
+        "Muestreador de procesos iniciado (tick={} ms, historial={}, max procesos={})",
+        tick.toMillis(),
+        history,
+        maxProcesses);
+  }
+
+  /** Indica si ya hay al menos dos ticks para calcular porcentajes de CPU. */
+  boolean isWarm() {
+    return completedTicks >= 2;
+  }
+
+  /**
+   * Devuelve el porcentaje de CPU entre las dos lecturas mas recientes del proceso, o -1 si el
+   * muestreador aun no lo conoce o el pid pertenece a otro proceso.
+   */
+  double cpuPct(long pid, long startKey) {
+    PidHistory entry = histories.get(pid);
+    if (entry == null || entry.startKey != startKey) {
+      return -1;
+    }
+    return entry.cpuPct;
+  }
+
+  int trackedProcesses() {
+    return histories.size();
+  }
+
+  private void safeTick() {
+    try {
+      tick();
+    } catch (RuntimeException ex) {
+      // Una excepcion no controlada cancelaria las ejecuciones siguientes del programador.
+      LOGGER.warn("Fallo un tick del muestreador de procesos: {}", ex.getMessage());
+    }
+  }
+
+  private void tick() {
+    long sequence = ++tickSequence;
+    if (isLinux) {
+      for (long pid : procfsReader.listPids()) {
+        if (procfsReader.readStat(pid, stat)) {
+          record(
+              pid, stat.startTime, stat.cpuTicks() * LinuxProcfsReader.NANOS_PER_TICK, sequence);
+        }
+      }
+    } else {
+      ProcessHandle.allProcesses()
+          .forEach(
+              handle -> {
+                ProcessHandle.Info info = handle.info();
+                long startKey = info.startInstant().map(Instant::toEpochMilli).orElse(-1L);
+                info.totalCpuDuration()
+                    .ifPresent(cpu -> record(handle.pid(), startKey, cpu.toNanos(), sequence));
+              });
+    }
+    // Los procesos que no se vieron en este tick terminaron: se liberan sus historiales.
+    histories.values().removeIf(entry -> entry.lastSeen != sequence);
+    completedTicks++;
+  }
+
+  private void record(long pid, long startKey, long cpuNanos, long sequence) {
+    PidHistory entry = histories.get(pid);
+    if (entry == null || entry.startKey != startKey) {
+      if (entry == null && histories.size() >= maxProcesses) {
+        droppedProcesses++;
+        return;
+      }
+      entry = new PidHistory(startKey, history);
+      histories.put(pid, entry);
+    }
+    entry.record(cpuNanos, System.nanoTime(), availableProcessors);
+    entry.lastSeen = sequence;
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+    if (droppedProcesses > 0) {
+      LOGGER.info("Muestreador omitio {} procesos por limite de memoria", droppedProcesses);
+    }
+  }
+
+  /** Anillo con las ultimas lecturas de CPU acumulado de un proceso. */
+  private static final class PidHistory {
+    private final long startKey;
+    private final long[] cpuNanos;
+    private final long[] sampledAt;
+    private int head = -1;
+    private int count;
+    private long lastSeen;
+    private volatile double cpuPct = -1;
+
+    private PidHistory(long startKey, int size) {
+      this.startKey = startKey;
+      this.cpuNanos = new long[size];
+      this.sampledAt = new long[size];
+    }
+
+    private void record(long cpu, long at, int processors) {
+      int size = cpuNanos.length;
+      head = (head + 1) % size;
+      cpuNanos[head] = cpu;
+      sampledAt[head] = at;
+      if (count < size) {
+        count++;
+      }
+      if (count < 2) {
+        return;
+      }
+      int previous = (head - 1 + size) % size;
+      long elapsed = at - sampledAt[previous];
+      if (elapsed > 0) {
+        long delta = Math.max(0L, cpu - cpuNanos[previous]);
+        cpuPct = delta / ((double) elapsed * processors) * 100.0;
+      }
+    }
+  }
+}
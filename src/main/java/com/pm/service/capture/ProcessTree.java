@@ -0,0 +1,145 @@
+package com.pm.service.capture;
+
+import java.util.Arrays;
+
+/**
+ * Arbol de procesos de una captura armado con arreglos primitivos. Cada posicion guarda un pid y el
+ * pid de su padre; las particiones de una captura escriben posiciones disjuntas sin sincronizar.
+ *
+ * <p>{@link #resolve(int)} indexa los pids en una tabla de direccionamiento abierto y calcula en
+ * una pasada la profundidad y la raiz de cada proceso: cada uno sube por sus ancestros solo hasta
+ * el primero ya resuelto, asi que cada nodo se visita una vez y el costo es lineal sin crear un
+ * objeto por nodo. Los procesos cuyo padre no esta en la captura (init, kthreadd o huerfanos de un
+ * padre que termino durante la lectura) tienen profundidad 0.
+ *
+ * <p>Los arreglos se reutilizan entre capturas y solo se agrandan cuando no alcanzan.
+ */
+final class ProcessTree {
+
+  private static final int UNRESOLVED = -1;
+  private static final int IN_PROGRESS = -2;
+
+  private int size;
+  private long[] pids = new long[0];
+  private long[] parents = new long[0];
+  private boolean[] present = new boolean[0];
+  private int[] slots = new int[0];
+  private int mask;
+  private boolean indexed;
+  private int[] parentIndexes = new int[0];
+  private int[] depths = new int[0];
+  private int[] rootIndexes = new int[0];
+  private int[] stack = new int[0];
+
+  /** Prepara {@code capacity} posiciones vacias, descartando el contenido anterior. */
+  void reset(int capacity) {
+    size = capacity;
+    if (pids.length < capacity) {
+      pids = new long[capacity];
+      parents = new long[capacity];
+      present = new boolean[capacity];
+      parentIndexes = new int[capacity];
+      depths = new int[capacity];
+      rootIndexes = new int[capacity];
+      stack = new int[capacity];
+    } else {
+      Arrays.fill(present, 0, capacity, false);
+    }
+    indexed = false;
+  }
+
+  void add(int index, long pid, long parentPid) {
+    pids[index] = pid;
+    parents[index] = parentPid;
+    present[index] = true;
+  }
+
+  /**
+   * Calcula la raiz de cada proceso: su ancestro de profundidad {@code depth}, o el mismo proceso
+   * si esta a esa profundidad o menos.
+   */
+  void resolve(int depth) {
+    int tableSize = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+    if (slots.length < tableSize) {
+      slots = new int[tableSize];
+    } else {
+      tableSize = slots.length;
+      Arrays.fill(slots, 0);
+    }
+    mask = tableSize - 1;
+    indexed = true;
+    for (int i = 0; i < size; i++) {
+      if (present[i]) {
+        insert(i);
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      parentIndexes[i] = present[i] && parents[i] != pids[i] ? indexOf(parents[i]) : -1;
+    }
+
+    Arrays.fill(depths, 0, size, UNRESOLVED);
+    for (int i = 0; i < size; i++) {
+      if (!present[i] || depths[i] != UNRESOLVED) {
+        continue;
+      }
+      int top = 0;
+      for (int node = i; node >= 0 && depths[node] == UNRESOLVED; node = parentIndexes[node]) {
+        depths[node] = IN_PROGRESS;
+        stack[top++] = node;
+      }
+      while (top > 0) {
+        int node = stack[--top];
+        int parent = parentIndexes[node];
+        if (parent < 0 || depths[parent] < 0) {
+          // Sin padre visible, o un ciclo por un ppid leido mientras el pid se reutilizaba.
+          depths[node] = 0;
+          rootIndexes[node] = node;
+        } else {
+          depths[node] = depths[parent] + 1;
+          rootIndexes[node] = depths[node] <= depth ? node : rootIndexes[parent];
+        }
+      }
+    }
+  }
+
+  /** Devuelve el pid raiz del proceso tras {@link #resolve(int)}, o el mismo pid si no esta. */
+  long rootOf(long pid) {
+    int index = indexOf(pid);
+    return index < 0 ? pid : pids[rootIndexes[index]];
+  }
+
+  /**
+   * Devuelve la posicion de la raiz del proceso de la posicion indicada tras {@link
+   * #resolve(int)}, o la misma posicion si no se agrego.
+   */
+  int rootIndexOf(int index) {
+    return present[index] ? rootIndexes[index] : index;
+  }
+
+  private void insert(int index) {
+    int slot = hash(pids[index]) & mask;
+    while (slots[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    slots[slot] = index + 1;
+  }
+
+  private int indexOf(long pid) {
+    if (!indexed) {
+      return -1;
+    }
+    int slot = hash(pid) & mask;
+    int entry;
+    while ((entry = slots[slot]) != 0) {
+      if (pids[entry - 1] == pid) {
+        return entry - 1;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private static int hash(long pid) {
+    return (int) ((pid * 0x9E3779B97F4A7C15L) >>> 32);
+  }
+}
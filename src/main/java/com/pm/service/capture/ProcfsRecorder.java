@@ -0,0 +1,127 @@
+package com.pm.service.capture;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Graba dos estados consecutivos de procfs, separados por la ventana de muestreo, en un archivo
+ * que luego se reproduce con {@link ProcfsSource#replay(Path)}. Sirve para repetir una captura
+ * lenta de produccion o medir la captura con la misma carga en cualquier equipo Linux. Ademas de
+ * los archivos de {@link #RECORDED_FILES} se graba {@code task/<tid>/stat} de cada hilo, que lee el
+ * detalle de hilos, y los archivos de {@link CgroupCapture#FILES} de cada cgroup v2 con procesos,
+ * que lee la captura por cgroup. La cabecera guarda las CPUs del equipo ({@link
+ * ProcfsSource#hostCpus()}), sobre las que la reproduccion expresa el CPU.
+ *
+ * <p>Uso: {@code ProcfsRecorder <archivo> [ventanaMillis] [raizProcfs]}.
+ */
+public final class ProcfsRecorder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProcfsRecorder.class);
+
+  /** Archivos de cada proceso que se graban; deben cubrir todo lo que lee la captura. */
+  static final List<String> RECORDED_FILES =
+      List.of("stat", "cmdline", "io", "smaps_rollup", "cgroup");
+
+  private static final int MAX_FILE_BYTES = 64 * 1024;
+
+  private ProcfsRecorder() {}
+
+  public static void record(ProcfsSource source, Duration window, Path archive)
+      throws IOException, InterruptedException {
+    ProcfsView first = source.current();
+    ReplayProcfsSource.RecordedState baseline = snapshot(first, 0);
+    ReplayProcfsSource.RecordedState sample = snapshot(source.next(first, window), 1);
+    ReplayProcfsSource.write(
+        source.hostCpus(), List.of(baseline, sample), RECORDED_FILES, archive);
+    LOGGER.info(
+        "Grabados {} y {} procesos en {} ({} bytes)",
+        baseline.processCount(),
+        sample.processCount(),
+        archive,
+        Files.size(archive));
+  }
+
+  private static ReplayProcfsSource.RecordedState snapshot(ProcfsView view, int index) {
+    long nanoTime = view.nanoTime();
+    long[] pids = view.listPids();
+    byte[] buffer = new byte[MAX_FILE_BYTES];
+    Map<Long, ReplayProcfsSource.RecordedProcess> processes = new HashMap<>(pids.length * 2);
+    int count = 0;
+    for (long pid : pids) {
+      byte[][] contents = new byte[RECORDED_FILES.size()][];
+      boolean present = false;
+      for (int f = 0; f < contents.length; f++) {
+        int length = view.read(pid, RECORDED_FILES.get(f), buffer);
+        if (length >= 0) {
+          contents[f] = Arrays.copyOf(buffer, length);
+          present = true;
+        }
+      }
+      // Los procesos que terminaron durante el listado no se graban.
+      if (!present) {
+        continue;
+      }
+      long[] tasks = view.listTasks(pid);
+      byte[][] taskStats = new byte[tasks.length][];
+      int taskCount = 0;
+      for (long tid : tasks) {
+        int length = view.read(pid, "task/" + tid + "/stat", buffer);
+        if (length >= 0) {
+          tasks[taskCount] = tid;
+          taskStats[taskCount++] = Arrays.copyOf(buffer, length);
+        }
+      }
+      processes.put(
+          pid,
+          new ReplayProcfsSource.RecordedProcess(
+              view.readUid(pid),
+              view.readOwner(pid),
+              view.readExecutable(pid),
+              contents,
+              Arrays.copyOf(tasks, taskCount),
+              Arrays.copyOf(taskStats, taskCount)));
+      pids[count++] = pid;
+    }
+    LinuxProcfsReader reader = new LinuxProcfsReader(view);
+    Map<String, byte[][]> cgroups = new HashMap<>();
+    for (int p = 0; p < count; p++) {
+      String path = reader.readCgroup(pids[p]);
+      if (path == null || cgroups.containsKey(path)) {
+        continue;
+      }
+      byte[][] contents = new byte[CgroupCapture.FILES.size()][];
+      for (int f = 0; f < contents.length; f++) {
+        int length = view.readCgroupFile(path, CgroupCapture.FILES.get(f), buffer);
+        contents[f] = length < 0 ? null : Arrays.copyOf(buffer, length);
+      }
+      cgroups.put(path, contents);
+    }
+    return new ReplayProcfsSource.RecordedState(
+        index,
+        nanoTime,
+        Arrays.copyOf(pids, count),
+        processes,
+        RECORDED_FILES,
+        cgroups,
+        CgroupCapture.FILES);
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length == 0) {
+      System.err.println("Uso: ProcfsRecorder <archivo> [ventanaMillis] [raizProcfs]");
+      System.exit(2);
+    }
+    Duration window = Duration.ofMillis(args.length > 1 ? Long.parseLong(args[1]) : 350);
+    ProcfsSource source =
+        args.length > 2 ? ProcfsSource.directory(Path.of(args[2])) : ProcfsSource.system();
+    record(source, window, Path.of(args[0]));
+  }
+}
@@ -0,0 +1,46 @@
+package com.pm.service.capture;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Origen de los datos de procfs que lee la captura. Ademas del {@code /proc} del sistema permite
+ * usar un directorio con la misma estructura o reproducir una grabacion hecha con {@link
+ * ProcfsRecorder}, de modo que la captura se pueda medir y depurar con datos fijos.
+ *
+ * <p>Una captura toma la linea base de {@link #current()} y la segunda pasada de {@link
+ * #next(ProcfsView, Duration)}. Las implementaciones deben ser seguras para hilos.
+ */
+public interface ProcfsSource {
+
+  /** Estado sobre el que se toma la linea base. */
+  ProcfsView current();
+
+  /**
+   * Devuelve el estado posterior a {@code previous}. Las fuentes en vivo esperan la ventana; las
+   * grabaciones avanzan al siguiente estado sin esperar.
+   */
+  ProcfsView next(ProcfsView previous, Duration window) throws InterruptedException;
+
+  /** Indica si los datos son los del sistema en ejecucion. */
+  boolean isLive();
+
+  /** CPUs del equipo al que corresponden los datos; el CPU de los procesos se mide sobre ellas. */
+  int hostCpus();
+
+  /** Fuente sobre el {@code /proc} del sistema. */
+  static ProcfsSource system() {
+    return DirectoryProcfsSource.SYSTEM;
+  }
+
+  /** Fuente sobre un directorio con la estructura de procfs ({@code <root>/<pid>/stat}, ...). */
+  static ProcfsSource directory(Path root) {
+    return new DirectoryProcfsSource(root, false);
+  }
+
+  /** Fuente que reproduce una grabacion de {@link ProcfsRecorder}. */
+  static ProcfsSource replay(Path archive) throws IOException {
+    return ReplayProcfsSource.load(archive);
+  }
+}
@@ -0,0 +1,42 @@
+package com.pm.service.capture;
+
+/**
+ * Estado de procfs en un instante: lista de pids y contenido de sus archivos. Los metodos no lanzan
+ * excepciones cuando un proceso desaparece; devuelven un valor de ausencia.
+ */
+public interface ProcfsView {
+
+  /** Marca de tiempo del estado en la escala de {@link System#nanoTime()}. */
+  long nanoTime();
+
+  /** PIDs presentes en el estado. */
+  long[] listPids();
+
+  /** Ids de los hilos del proceso ({@code <pid>/task}), o un arreglo vacio si no estan. */
+  long[] listTasks(long pid);
+
+  /**
+   * Copia {@code <pid>/<file>} en {@code buffer}, truncando si no cabe.
+   *
+   * @return bytes copiados, o -1 si el archivo no existe o no se puede leer
+   */
+  int read(long pid, String file, byte[] buffer);
+
+  /** Uid propietario del directorio del proceso, o -1 si no se puede consultar. */
+  int readUid(long pid);
+
+  /** Nombre del usuario propietario del directorio del proceso, o {@code null}. */
+  String readOwner(long pid);
+
+  /** Destino del enlace {@code exe}, o {@code null} si no esta disponible. */
+  String readExecutable(long pid);
+
+  /**
+   * Copia el archivo {@code file} del cgroup v2 {@code path} (la ruta de {@code <pid>/cgroup}, con
+   * {@code /} inicial) en {@code buffer}, truncando si no cabe.
+   *
+   * @return bytes copiados, o -1 si no hay jerarquia v2, la ruta escapa de ella o es su raiz, o el
+   *     archivo no existe
+   */
+  int readCgroupFile(String path, String file, byte[] buffer);
+}
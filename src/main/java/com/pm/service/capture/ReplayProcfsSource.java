@@ -0,0 +1,346 @@
+package com.pm.service.capture;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reproduce estados de procfs grabados por {@link ProcfsRecorder}. Los estados se cargan completos
+ * en memoria y son inmutables, por lo que la fuente puede leerse desde varios hilos.
+ *
+ * <p>Formato del archivo (comprimido con gzip): cabecera con numero magico, version, CPUs del
+ * equipo grabado y nombres de los archivos grabados por proceso y por cgroup; luego cada estado
+ * con su marca de tiempo; por pid, el uid, el propietario, el ejecutable, el contenido crudo de
+ * cada archivo (-1 si no existia) y la lista de hilos con el contenido de su {@code
+ * task/<tid>/stat}; y al final los cgroups v2 de sus procesos con el contenido de sus archivos.
+ */
+final class ReplayProcfsSource implements ProcfsSource {
+
+  private static final int MAGIC = 0x504d5046;
+  private static final int VERSION = 1;
+  private static final String TASK_PREFIX = "task/";
+  private static final String TASK_STAT_SUFFIX = "/stat";
+
+  private final int hostCpus;
+  private final List<RecordedState> states;
+
+  ReplayProcfsSource(int hostCpus, List<RecordedState> states) {
+    if (states.isEmpty()) {
+      throw new IllegalArgumentException("La grabacion no tiene estados");
+    }
+    this.hostCpus = Math.max(hostCpus, 1);
+    this.states = List.copyOf(states);
+  }
+
+  @Override
+  public ProcfsView current() {
+    return states.get(0);
+  }
+
+  /** Avanza al estado grabado siguiente sin esperar; el ultimo estado se repite. */
+  @Override
+  public ProcfsView next(ProcfsView previous, Duration window) {
+    int index = previous instanceof RecordedState state ? state.index + 1 : 0;
+    return states.get(Math.min(index, states.size() - 1));
+  }
+
+  @Override
+  public boolean isLive() {
+    return false;
+  }
+
+  /** CPUs del equipo donde se grabo, para que el CPU reproducido no dependa del equipo actual. */
+  @Override
+  public int hostCpus() {
+    return hostCpus;
+  }
+
+  int stateCount() {
+    return states.size();
+  }
+
+  static ReplayProcfsSource load(Path archive) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(
+            new BufferedInputStream(new GZIPInputStream(Files.newInputStream(archive))))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("No es una grabacion de procfs: " + archive);
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException("Version de grabacion no soportada: " + version);
+      }
+      int hostCpus = in.readInt();
+      List<String> files = readNames(in);
+      List<String> cgroupFiles = readNames(in);
+      int stateCount = in.readInt();
+      List<RecordedState> states = new ArrayList<>(stateCount);
+      for (int s = 0; s < stateCount; s++) {
+        long nanoTime = in.readLong();
+        int pidCount = in.readInt();
+        long[] pids = new long[pidCount];
+        Map<Long, RecordedProcess> processes = new HashMap<>(pidCount * 2);
+        for (int p = 0; p < pidCount; p++) {
+          pids[p] = in.readLong();
+          int uid = in.readInt();
+          String owner = readNullable(in);
+          String executable = readNullable(in);
+          byte[][] contents = new byte[files.size()][];
+          for (int f = 0; f < contents.length; f++) {
+            contents[f] = readContent(in);
+          }
+          long[] tasks = new long[in.readInt()];
+          byte[][] taskStats = new byte[tasks.length][];
+          for (int t = 0; t < tasks.length; t++) {
+            tasks[t] = in.readLong();
+            taskStats[t] = readContent(in);
+          }
+          processes.put(
+              pids[p], new RecordedProcess(uid, owner, executable, contents, tasks, taskStats));
+        }
+        Map<String, byte[][]> cgroups = new HashMap<>();
+        for (int c = in.readInt(); c > 0; c--) {
+          String path = in.readUTF();
+          byte[][] contents = new byte[cgroupFiles.size()][];
+          for (int f = 0; f < contents.length; f++) {
+            contents[f] = readContent(in);
+          }
+          cgroups.put(path, contents);
+        }
+        states.add(
+            new RecordedState(s, nanoTime, pids, processes, files, cgroups, cgroupFiles));
+      }
+      return new ReplayProcfsSource(hostCpus, states);
+    }
+  }
+
+  static void write(int hostCpus, List<RecordedState> states, List<String> files, Path archive)
+      throws IOException {
+    try (DataOutputStream out =
+        new DataOutputStream(
+            new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(archive))))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(hostCpus);
+      writeNames(out, files);
+      writeNames(out, CgroupCapture.FILES);
+      out.writeInt(states.size());
+      for (RecordedState state : states) {
+        out.writeLong(state.nanoTime);
+        out.writeInt(state.pids.length);
+        for (long pid : state.pids) {
+          RecordedProcess process = state.processes.get(pid);
+          out.writeLong(pid);
+          out.writeInt(process.uid());
+          writeNullable(out, process.owner());
+          writeNullable(out, process.executable());
+          for (String file : files) {
+            writeContent(out, process.files()[state.files.indexOf(file)]);
+          }
+          out.writeInt(process.tasks().length);
+          for (int t = 0; t < process.tasks().length; t++) {
+            out.writeLong(process.tasks()[t]);
+            writeContent(out, process.taskStats()[t]);
+          }
+        }
+        out.writeInt(state.cgroups.size());
+        for (Map.Entry<String, byte[][]> cgroup : state.cgroups.entrySet()) {
+          out.writeUTF(cgroup.getKey());
+          for (String file : CgroupCapture.FILES) {
+            int fileIndex = state.cgroupFiles.indexOf(file);
+            writeContent(out, fileIndex < 0 ? null : cgroup.getValue()[fileIndex]);
+          }
+        }
+      }
+    }
+  }
+
+  private static List<String> readNames(DataInputStream in) throws IOException {
+    List<String> names = new ArrayList<>();
+    for (int i = in.readInt(); i > 0; i--) {
+      names.add(in.readUTF());
+    }
+    return names;
+  }
+
+  private static void writeNames(DataOutputStream out, List<String> names) throws IOException {
+    out.writeInt(names.size());
+    for (String name : names) {
+      out.writeUTF(name);
+    }
+  }
+
+  private static byte[] readContent(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] content = new byte[length];
+    in.readFully(content);
+    return content;
+  }
+
+  private static void writeContent(DataOutputStream out, byte[] content) throws IOException {
+    out.writeInt(content == null ? -1 : content.length);
+    if (content != null) {
+      out.write(content);
+    }
+  }
+
+  private static String readNullable(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void writeNullable(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  /**
+   * Datos grabados de un proceso; {@code files} sigue el orden de los archivos del estado y {@code
+   * taskStats} el de {@code tasks}.
+   */
+  record RecordedProcess(
+      int uid,
+      String owner,
+      String executable,
+      byte[][] files,
+      long[] tasks,
+      byte[][] taskStats) {
+
+    byte[] taskStat(long tid) {
+      for (int t = 0; t < tasks.length; t++) {
+        if (tasks[t] == tid) {
+          return taskStats[t];
+        }
+      }
+      return null;
+    }
+  }
+
+  /** Estado grabado e inmutable. */
+  static final class RecordedState implements ProcfsView {
+
+    private final int index;
+    private final long nanoTime;
+    private final long[] pids;
+    private final Map<Long, RecordedProcess> processes;
+    private final List<String> files;
+    private final Map<String, byte[][]> cgroups;
+    private final List<String> cgroupFiles;
+
+    /**
+     * @param cgroups contenido de los archivos de cada cgroup, alineado con {@code cgroupFiles}
+     */
+    RecordedState(
+        int index,
+        long nanoTime,
+        long[] pids,
+        Map<Long, RecordedProcess> processes,
+        List<String> files,
+        Map<String, byte[][]> cgroups,
+        List<String> cgroupFiles) {
+      this.index = index;
+      this.nanoTime = nanoTime;
+      this.pids = pids;
+      this.processes = processes;
+      this.files = List.copyOf(files);
+      this.cgroups = cgroups;
+      this.cgroupFiles = List.copyOf(cgroupFiles);
+    }
+
+    int processCount() {
+      return pids.length;
+    }
+
+    @Override
+    public long nanoTime() {
+      return nanoTime;
+    }
+
+    @Override
+    public long[] listPids() {
+      return pids.clone();
+    }
+
+    /** Hilos grabados del proceso. */
+    @Override
+    public long[] listTasks(long pid) {
+      RecordedProcess process = processes.get(pid);
+      return process == null ? new long[0] : process.tasks().clone();
+    }
+
+    @Override
+    public int read(long pid, String file, byte[] buffer) {
+      RecordedProcess process = processes.get(pid);
+      if (process == null) {
+        return -1;
+      }
+      byte[] content;
+      if (file.startsWith(TASK_PREFIX) && file.endsWith(TASK_STAT_SUFFIX)) {
+        content = taskStat(process, file);
+      } else {
+        int fileIndex = files.indexOf(file);
+        content = fileIndex < 0 ? null : process.files()[fileIndex];
+      }
+      return content == null ? -1 : copy(content, buffer);
+    }
+
+    private static int copy(byte[] content, byte[] buffer) {
+      int length = Math.min(content.length, buffer.length);
+      System.arraycopy(content, 0, buffer, 0, length);
+      return length;
+    }
+
+    private static byte[] taskStat(RecordedProcess process, String file) {
+      try {
+        return process.taskStat(
+            Long.parseLong(
+                file.substring(TASK_PREFIX.length(), file.length() - TASK_STAT_SUFFIX.length())));
+      } catch (NumberFormatException ex) {
+        return null;
+      }
+    }
+
+    @Override
+    public int readUid(long pid) {
+      RecordedProcess process = processes.get(pid);
+      return process == null ? -1 : process.uid();
+    }
+
+    @Override
+    public String readOwner(long pid) {
+      RecordedProcess process = processes.get(pid);
+      return process == null ? null : process.owner();
+    }
+
+    @Override
+    public String readExecutable(long pid) {
+      RecordedProcess process = processes.get(pid);
+      return process == null ? null : process.executable();
+    }
+
+    @Override
+    public int readCgroupFile(String path, String file, byte[] buffer) {
+      byte[][] contents = cgroups.get(path);
+      int fileIndex = cgroupFiles.indexOf(file);
+      if (contents == null || fileIndex < 0 || contents[fileIndex] == null) {
+        return -1;
+      }
+      return copy(contents[fileIndex], buffer);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.pm.service.capture;
+
+import com.pm.domain.MemoryMetric;
+import com.pm.domain.process.ProcessSnapshot;
+import java.util.function.LongPredicate;
+
+/**
+ * Mide PSS o USS de grupos de procesos con {@code /proc/<pid>/smaps_rollup}, dentro de un
+ * presupuesto de lecturas por captura. Cada lectura obliga al kernel a recorrer las tablas de
+ * paginas del proceso, asi que el costo crece con la memoria mapeada y no con la cantidad de
+ * archivos; el presupuesto acota el peor caso.
+ *
+ * <p>Los miembros sin permiso de lectura, los que fallan y los que quedan fuera del presupuesto
+ * conservan su RSS, que es una cota superior de ambas metricas. No es seguro para hilos.
+ */
+final class SmapsMemoryReader {
+
+  private final LinuxProcfsReader reader;
+  private final MemoryMetric metric;
+  private final int budget;
+  private final LongPredicate readable;
+  private final long[] values = new long[2];
+  private int reads;
+  private int fallbacks;
+  private boolean lastComplete;
+
+  /**
+   * @param budget lecturas de {@code smaps_rollup} permitidas
+   * @param readable decide si vale la pena abrir el archivo de un pid
+   */
+  SmapsMemoryReader(
+      LinuxProcfsReader reader, MemoryMetric metric, int budget, LongPredicate readable) {
+    this.reader = reader;
+    this.metric = metric;
+    this.budget = budget;
+    this.readable = readable;
+  }
+
+  /**
+   * Devuelve la memoria del grupo con la metrica pedida, en bytes.
+   *
+   * @param rssBytes RSS de cada miembro, alineado con {@code pids}
+   */
+  long measure(long[] pids, long[] rssBytes) {
+    long total = 0;
+    boolean known = false;
+    lastComplete = true;
+    for (int i = 0; i < pids.length; i++) {
+      long value = rssBytes[i];
+      if (reads >= budget) {
+        lastComplete = false;
+        fallbacks++;
+      } else if (readable.test(pids[i])) {
+        reads++;
+        if (reader.readSmapsRollup(pids[i], values)) {
+          value = metric == MemoryMetric.USS ? values[1] : values[0];
+        } else {
+          fallbacks++;
+        }
+      } else {
+        fallbacks++;
+      }
+      if (value != ProcessSnapshot.UNKNOWN) {
+        total += value;
+        known = true;
+      }
+    }
+    return known ? total : ProcessSnapshot.UNKNOWN;
+  }
+
+  /**
+   * Indica si la ultima llamada a {@link #measure} alcanzo a leer todos los miembros legibles; si
+   * el presupuesto se agoto a mitad del grupo, parte de su valor es RSS.
+   */
+  boolean isLastComplete() {
+    return lastComplete;
+  }
+
+  boolean isExhausted() {
+    return reads >= budget;
+  }
+
+  /** Lecturas de {@code smaps_rollup} hechas hasta ahora. */
+  int reads() {
+    return reads;
+  }
+
+  /** Miembros que se quedaron con su RSS. */
+  int fallbacks() {
+    return fallbacks;
+  }
+}
@@ -0,0 +1,177 @@
+package com.pm.service.capture;
+
+import com.pm.domain.SelectionCriterion;
+import com.pm.domain.process.ProcessSnapshot;
+import java.util.List;
+
+/**
+ * Selecciona los N procesos con mayor metrica usando un min-heap acotado de indices sobre un
+ * arreglo de puntajes primitivos. Evita ordenar todas las fotografias: el costo es O(P log N) y las
+ * comparaciones no crean objetos.
+ */
+final class TopNSelector {
+
+  private TopNSelector() {}
+
+  /**
+   * Devuelve las posiciones dentro de la lista de los {@code n} procesos con mayor valor segun el
+   * criterio, en orden descendente. Las metricas nulas cuentan como cero y los empates conservan el
+   * orden de la lista original. Con {@link SelectionCriterion#IO} el puntaje es la suma de lectura
+   * y escritura por segundo; con {@link SelectionCriterion#WEIGHTED} es la suma de CPU, memoria y
+   * disco, cada uno dividido por su maximo en la captura, de modo que las tres metricas pesan lo
+   * mismo.
+   */
+  static int[] selectIndices(List<ProcessSnapshot> snapshots, SelectionCriterion criterion, int n) {
+    double[] scores = new double[snapshots.size()];
+    for (int i = 0; i < scores.length; i++) {
+      ProcessSnapshot snapshot = snapshots.get(i);
+      scores[i] =
+          switch (criterion) {
+            case CPU -> score(snapshot.cpuBasisPoints());
+            case MEMORY -> score(snapshot.memBytes());
+            case IO -> ioScore(snapshot);
+            case WEIGHTED -> 0.0; // Necesita los maximos; se calcula despues del recorrido.
+          };
+    }
+    if (criterion == SelectionCriterion.WEIGHTED) {
+      weightedScores(snapshots, scores);
+    }
+    return selectIndices(scores, n);
+  }
+
+  /**
+   * Igual que {@link #selectIndices(List, SelectionCriterion, int)} sobre los grupos del cuadro:
+   * los puntajes se calculan desde las columnas de grupo en el arreglo reutilizable del cuadro, sin
+   * crear una fotografia por grupo.
+   */
+  static int[] selectGroups(CaptureFrame frame, SelectionCriterion criterion, int n) {
+    int count = frame.groupCount();
+    double[] scores = frame.groupScores();
+    double maxCpu = 0;
+    double maxMem = 0;
+    double maxIo = 0;
+    for (int g = 0; g < count; g++) {
+      double cpu = score(frame.groupCpu(g));
+      double mem = score(frame.groupMem(g));
+      double io = score(frame.groupIoRead(g)) + score(frame.groupIoWrite(g));
+      scores[g] =
+          switch (criterion) {
+            case CPU -> cpu;
+            case MEMORY -> mem;
+            case IO -> io;
+            case WEIGHTED -> 0.0; // Necesita los maximos; se calcula despues del recorrido.
+          };
+      maxCpu = Math.max(maxCpu, cpu);
+      maxMem = Math.max(maxMem, mem);
+      maxIo = Math.max(maxIo, io);
+    }
+    if (criterion == SelectionCriterion.WEIGHTED) {
+      for (int g = 0; g < count; g++) {
+        scores[g] =
+            normalized(score(frame.groupCpu(g)), maxCpu)
+                + normalized(score(frame.groupMem(g)), maxMem)
+                + normalized(score(frame.groupIoRead(g)) + score(frame.groupIoWrite(g)), maxIo);
+      }
+    }
+    return selectIndices(scores, count, n);
+  }
+
+  private static void weightedScores(List<ProcessSnapshot> snapshots, double[] scores) {
+    double maxCpu = 0;
+    double maxMem = 0;
+    double maxIo = 0;
+    for (ProcessSnapshot snapshot : snapshots) {
+      maxCpu = Math.max(maxCpu, score(snapshot.cpuBasisPoints()));
+      maxMem = Math.max(maxMem, score(snapshot.memBytes()));
+      maxIo = Math.max(maxIo, ioScore(snapshot));
+    }
+    for (int i = 0; i < scores.length; i++) {
+      ProcessSnapshot snapshot = snapshots.get(i);
+      scores[i] =
+          normalized(score(snapshot.cpuBasisPoints()), maxCpu)
+              + normalized(score(snapshot.memBytes()), maxMem)
+              + normalized(ioScore(snapshot), maxIo);
+    }
+  }
+
+  /** Devuelve los indices de los {@code n} puntajes mayores ordenados de mayor a menor. */
+  static int[] selectIndices(double[] scores, int n) {
+    return selectIndices(scores, scores.length, n);
+  }
+
+  /** Igual que {@link #selectIndices(double[], int)} pero solo con las primeras {@code count}. */
+  static int[] selectIndices(double[] scores, int count, int n) {
+    int capacity = Math.min(Math.max(n, 0), count);
+    int[] heap = new int[capacity];
+    if (capacity == 0) {
+      return heap;
+    }
+    int size = 0;
+    for (int i = 0; i < count; i++) {
+      if (size < capacity) {
+        heap[size] = i;
+        siftUp(heap, size++, scores);
+      } else if (ranksAbove(i, heap[0], scores)) {
+        // La raiz es el peor candidato retenido; se reemplaza por el nuevo.
+        heap[0] = i;
+        siftDown(heap, capacity, scores);
+      }
+    }
+    // Extrae sucesivamente el minimo al final para dejar el arreglo en orden descendente.
+    for (int end = capacity - 1; end > 0; end--) {
+      swap(heap, 0, end);
+      siftDown(heap, end, scores);
+    }
+    return heap;
+  }
+
+  private static boolean ranksAbove(int a, int b, double[] scores) {
+    return scores[a] > scores[b] || (scores[a] == scores[b] && a < b);
+  }
+
+  private static void siftUp(int[] heap, int index, double[] scores) {
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (!ranksAbove(heap[parent], heap[index], scores)) {
+        return;
+      }
+      swap(heap, parent, index);
+      index = parent;
+    }
+  }
+
+  private static void siftDown(int[] heap, int size, double[] scores) {
+    int index = 0;
+    while (true) {
+      int left = 2 * index + 1;
+      if (left >= size) {
+        return;
+      }
+      int right = left + 1;
+      int lowest = right < size && ranksAbove(heap[left], heap[right], scores) ? right : left;
+      if (!ranksAbove(heap[index], heap[lowest], scores)) {
+        return;
+      }
+      swap(heap, index, lowest);
+      index = lowest;
+    }
+  }
+
+  private static void swap(int[] heap, int a, int b) {
+    int tmp = heap[a];
+    heap[a] = heap[b];
+    heap[b] = tmp;
+  }
+
+  private static double score(long value) {
+    return value == ProcessSnapshot.UNKNOWN ? 0.0 : value;
+  }
+
+  private static double ioScore(ProcessSnapshot snapshot) {
+    return score(snapshot.ioReadBytesPerSec()) + score(snapshot.ioWriteBytesPerSec());
+  }
+
+  private static double normalized(double value, double max) {
+    return max > 0 ? value / max : 0.0;
+  }
+}
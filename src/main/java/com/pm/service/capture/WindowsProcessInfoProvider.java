@@ -2,11 +2,10 @@ package com.pm.service.capture;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.domain.process.ProcessSnapshot;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -93,10 +92,10 @@ final class WindowsProcessInfoProvider {
         if (pid <= 0) {
           continue;
         }
-        BigDecimal memMb = parseMemoryMb(row);
+        long memBytes = parseMemoryBytes(row);
         Integer priority = mapPriority(parsePriority(row.get("PriorityClass")));
         boolean system = isSystemProcess(safeText(row.get("Path")));
-        batchResult.put(pid, new ProcessExtraInfo(memMb, priority, system));
+        batchResult.put(pid, new ProcessExtraInfo(null, memBytes, priority, system));
       }
       return batchResult;
     } catch (InterruptedException ex) {
@@ -109,16 +108,16 @@ final class WindowsProcessInfoProvider {
     }
   }
 
-  private BigDecimal parseMemoryMb(JsonNode row) {
+  private long parseMemoryBytes(JsonNode row) {
     if (row == null) {
-      return null;
+      return ProcessSnapshot.UNKNOWN;
     }
     JsonNode memNode = row.get("WorkingSet64");
     if (memNode == null || memNode.isNull()) {
       memNode = row.get("WorkingSet");
     }
     if (memNode == null || memNode.isNull()) {
-      return null;
+      return ProcessSnapshot.UNKNOWN;
     }
     long bytes;
     if (memNode.isNumber()) {
@@ -127,11 +126,10 @@ final class WindowsProcessInfoProvider {
       try {
         bytes = Long.parseLong(memNode.asText().trim());
       } catch (NumberFormatException ex) {
-        return null;
+        return ProcessSnapshot.UNKNOWN;
       }
     }
-    return BigDecimal.valueOf(bytes)
-        .divide(BigDecimal.valueOf(1024 * 1024), 2, RoundingMode.HALF_UP);
+    return bytes < 0 ? ProcessSnapshot.UNKNOWN : bytes;
   }
 
   private String parsePriority(JsonNode node) {
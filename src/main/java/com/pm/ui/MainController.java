@@ -1,13 +1,19 @@
 package com.pm.ui;
 
 import com.pm.context.ApplicationContext;
+import com.pm.domain.AggregationMode;
+import com.pm.domain.CaptureOptions;
+import com.pm.domain.MemoryMetric;
+import com.pm.domain.ProcessAggregation;
 import com.pm.domain.SelectionCriterion;
+import com.pm.domain.ThreadDrillDown;
 import com.pm.domain.ValidationException;
 import com.pm.domain.catalog.CatalogMetadata;
 import com.pm.domain.catalog.CatalogSort;
 import com.pm.domain.process.ProcessFilter;
 import com.pm.domain.process.ProcessRecord;
 import com.pm.domain.process.ProcessSort;
+import com.pm.domain.process.ProcessThread;
 import com.pm.domain.process.ProcessUpdate;
 import com.pm.service.CatalogService;
 import com.pm.service.JsonCatalogService;
@@ -55,8 +61,12 @@ public final class MainController implements AppContextAware {
       DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
   @FXML private TextField txtNombre;
+  @FXML private CheckBox chkHilos;
+  @FXML private CheckBox chkCgroups;
   @FXML private TextArea txtDescripcion;
   @FXML private ComboBox<SelectionCriterion> cboCriterio;
+  @FXML private ComboBox<MemoryMetric> cboMemoria;
+  @FXML private ComboBox<AggregationMode> cboAgrupacion;
   @FXML private Spinner<Integer> spnN;
 
   @FXML private TextField txtBuscar;
@@ -81,6 +91,9 @@ public final class MainController implements AppContextAware {
   @FXML private TableColumn<ProcessRecord, String> colProcesoUsuario;
   @FXML private TableColumn<ProcessRecord, BigDecimal> colProcesoCpu;
   @FXML private TableColumn<ProcessRecord, BigDecimal> colProcesoMem;
+  @FXML private TableColumn<ProcessRecord, BigDecimal> colProcesoIoRead;
+  @FXML private TableColumn<ProcessRecord, BigDecimal> colProcesoIoWrite;
+  @FXML private TableColumn<ProcessRecord, String> colProcesoHilos;
   @FXML private TableColumn<ProcessRecord, Number> colProcesoPrioridad;
   @FXML private TableColumn<ProcessRecord, String> colProcesoExpulsivo;
 
@@ -111,6 +124,8 @@ public final class MainController implements AppContextAware {
   private static final String ORDEN_CPU_DESC = "Mayor CPU";
   private static final String ORDEN_CPU_ASC = "Menor CPU";
   private static final String ORDEN_MEM_DESC = "Mayor memoria";
+  private static final String ORDEN_IO_READ_DESC = "Mayor lectura de disco";
+  private static final String ORDEN_IO_WRITE_DESC = "Mayor escritura de disco";
   private static final String ORDEN_PRIORIDAD_DESC = "Mayor prioridad";
   private static final String ORDEN_PRIORIDAD_ASC = "Menor prioridad";
   private static final String ORDEN_NOMBRE_ASC = "Nombre A-Z";
@@ -119,9 +134,14 @@ public final class MainController implements AppContextAware {
   public void initialize() {
     cboCriterio.setItems(FXCollections.observableArrayList(SelectionCriterion.values()));
     cboCriterio.getSelectionModel().select(SelectionCriterion.CPU);
+    cboMemoria.setItems(FXCollections.observableArrayList(MemoryMetric.values()));
+    cboMemoria.getSelectionModel().select(MemoryMetric.RSS);
+    cboAgrupacion.setItems(FXCollections.observableArrayList(AggregationMode.values()));
+    cboAgrupacion.getSelectionModel().select(AggregationMode.NAME);
     spnN.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 500, 10, 1));
 
-    cboFiltroCriterio.setItems(FXCollections.observableArrayList("Todos", "CPU", "MEM"));
+    cboFiltroCriterio.setItems(
+        FXCollections.observableArrayList("Todos", "CPU", "MEM", "IO", "PONDERADO"));
     cboFiltroCriterio.getSelectionModel().selectFirst();
 
     configureCatalogTable();
@@ -168,6 +188,16 @@ public final class MainController implements AppContextAware {
     colProcesoMem.setCellFactory(column -> createNumericCell(2, " MB"));
     colProcesoCpu.setComparator(MainController::compareBigDecimal);
     colProcesoMem.setComparator(MainController::compareBigDecimal);
+    colProcesoIoRead.setCellValueFactory(
+        cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getIoReadKbs()));
+    colProcesoIoWrite.setCellValueFactory(
+        cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getIoWriteKbs()));
+    colProcesoIoRead.setCellFactory(column -> createNumericCell(2, " KB/s"));
+    colProcesoIoWrite.setCellFactory(column -> createNumericCell(2, " KB/s"));
+    colProcesoIoRead.setComparator(MainController::compareBigDecimal);
+    colProcesoIoWrite.setComparator(MainController::compareBigDecimal);
+    colProcesoHilos.setCellValueFactory(
+        cell -> new ReadOnlyObjectWrapper<>(formatThreads(cell.getValue().getHilos())));
     colProcesoPrioridad.setCellValueFactory(
         cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getPrioridad()));
     colProcesoExpulsivo.setCellValueFactory(
@@ -187,6 +217,8 @@ public final class MainController implements AppContextAware {
             ORDEN_CPU_DESC,
             ORDEN_CPU_ASC,
             ORDEN_MEM_DESC,
+            ORDEN_IO_READ_DESC,
+            ORDEN_IO_WRITE_DESC,
             ORDEN_PRIORIDAD_DESC,
             ORDEN_PRIORIDAD_ASC,
             ORDEN_NOMBRE_ASC));
@@ -250,8 +282,20 @@ public final class MainController implements AppContextAware {
     String descripcion = txtDescripcion.getText();
     int n = spnN.getValue();
     SelectionCriterion criterio = cboCriterio.getValue();
+    boolean hilos = chkHilos.isSelected();
+    boolean cgroups = chkCgroups.isSelected();
+    MemoryMetric memoria = cboMemoria.getValue();
+    ProcessAggregation agrupacion =
+        new ProcessAggregation(cboAgrupacion.getValue(), ProcessAggregation.DEFAULT_TREE_DEPTH);
+    CaptureOptions opciones =
+        CaptureOptions.builder(criterio, n)
+            .setThreads(hilos ? catalogService.getThreadDrillDown() : ThreadDrillDown.disabled())
+            .setMemory(memoria)
+            .setAggregation(agrupacion)
+            .setCgroups(cgroups)
+            .build();
     runAsync(
-        () -> catalogService.createCatalog(nombre, descripcion, n, criterio),
+        () -> catalogService.createCatalog(nombre, descripcion, opciones),
         catalogo -> {
           clearCaptureForm();
           showStatus("Catálogo creado: " + catalogo.getNombre());
@@ -401,6 +445,8 @@ public final class MainController implements AppContextAware {
         switch (cboFiltroCriterio.getValue()) {
           case "CPU" -> Optional.of(SelectionCriterion.CPU);
           case "MEM" -> Optional.of(SelectionCriterion.MEMORY);
+          case "IO" -> Optional.of(SelectionCriterion.IO);
+          case "PONDERADO" -> Optional.of(SelectionCriterion.WEIGHTED);
           default -> Optional.empty();
         };
     runAsync(
@@ -478,6 +524,8 @@ public final class MainController implements AppContextAware {
       case ORDEN_CPU_DESC -> ProcessSort.CPU_DESC;
       case ORDEN_CPU_ASC -> ProcessSort.CPU_ASC;
       case ORDEN_MEM_DESC -> ProcessSort.MEM_DESC;
+      case ORDEN_IO_READ_DESC -> ProcessSort.IO_READ_DESC;
+      case ORDEN_IO_WRITE_DESC -> ProcessSort.IO_WRITE_DESC;
       case ORDEN_PRIORIDAD_DESC -> ProcessSort.PRIORIDAD_DESC;
       case ORDEN_PRIORIDAD_ASC -> ProcessSort.PRIORIDAD_ASC;
       case ORDEN_NOMBRE_ASC -> ProcessSort.NOMBRE_ASC;
@@ -536,6 +584,10 @@ public final class MainController implements AppContextAware {
     txtDescripcion.clear();
     spnN.getValueFactory().setValue(10);
     cboCriterio.getSelectionModel().select(SelectionCriterion.CPU);
+    cboMemoria.getSelectionModel().select(MemoryMetric.RSS);
+    cboAgrupacion.getSelectionModel().select(AggregationMode.NAME);
+    chkHilos.setSelected(false);
+    chkCgroups.setSelected(false);
   }
 
   private void clearCatalogDetails() {
@@ -552,6 +604,23 @@ public final class MainController implements AppContextAware {
     chkProcesoExpulsivo.setSelected(true);
   }
 
+  private static String formatThreads(List<ProcessThread> threads) {
+    if (threads.isEmpty()) {
+      return "-";
+    }
+    StringBuilder text = new StringBuilder();
+    for (ProcessThread thread : threads) {
+      if (!text.isEmpty()) {
+        text.append(", ");
+      }
+      text.append(thread.nombre()).append(" (").append(thread.tid()).append(')');
+      if (thread.cpuPct() != null) {
+        text.append(' ').append(thread.cpuPct().toPlainString()).append('%');
+      }
+    }
+    return text.toString();
+  }
+
   private String formatInstant(Instant instant) {
     if (instant == null) {
       return "-";
@@ -0,0 +1,335 @@
+package com.pm.persistence;
+
+import com.pm.config.AppConfig;
+import com.pm.config.DatabaseManager;
+import com.pm.domain.PageCursor;
+import com.pm.domain.SelectionCriterion;
+import com.pm.domain.catalog.Catalog;
+import com.pm.domain.catalog.CatalogSort;
+import com.pm.domain.process.ProcessRecord;
+import com.pm.domain.process.ProcessSort;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Revisa con {@code EXPLAIN}, contra la base configurada, que las paginas de catalogos y de
+ * procesos se lean en el orden de sus indices. Crea o completa el esquema, guarda un catalogo
+ * sintetico con procesos y otros vacios para la lista, actualiza las estadisticas y borra lo que
+ * creo al terminar. Termina con codigo 1 si alguna pagina que debe leerse en orden usa {@code
+ * filesort}.
+ *
+ * <p>Cada ordenamiento se revisa en la primera pagina y en una con cursor, sin filtros y con cada
+ * filtro de la lista. La pagina por ids del indice ngram y el filtro por pid ordenan a proposito
+ * un conjunto acotado (hasta {@link CatalogRepository#NAME_PREFILTER_LIMIT} filas); sus planes se
+ * informan sin fallar.
+ *
+ * <p>Se compila solo con el perfil {@code plan-check}; la base se toma de {@link AppConfig}, por
+ * ejemplo con {@code APP_DB_URL}, {@code APP_DB_USER} y {@code APP_DB_PASSWORD}: {@code mvn -B
+ * -Pplan-check verify}.
+ */
+public final class ListingPlanCheck {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ListingPlanCheck.class);
+
+  /** Procesos del catalogo sintetico; con pocas filas el optimizador prefiere ordenar en memoria. */
+  private static final int PROCESSES = 20_000;
+
+  /** Catalogos vacios que se agregan para que la lista tenga estadisticas realistas. */
+  private static final int CATALOGS = 2_000;
+
+  private static final int PAGE_SIZE = 50;
+
+  private static final String MARKER = "ListingPlanCheck";
+
+  private ListingPlanCheck() {}
+
+  public static void main(String[] args) {
+    List<String> filesorts = new ArrayList<>();
+    List<String> bounded = new ArrayList<>();
+    try (DatabaseManager databaseManager = new DatabaseManager(new AppConfig())) {
+      DataSource dataSource = databaseManager.getDataSource();
+      new DatabaseInitializer(dataSource).initialize();
+      CatalogRepository repository = new CatalogRepository(dataSource);
+      long catalogId = repository.saveCatalogWithProcesses(syntheticCatalog()).getId();
+      List<Long> emptyCatalogs = new ArrayList<>();
+      try (Connection connection = dataSource.getConnection()) {
+        try {
+          emptyCatalogs.addAll(insertEmptyCatalogs(connection));
+          analyze(connection);
+          checkCatalogPages(connection, filesorts);
+          checkProcessPages(connection, catalogId, filesorts);
+          checkBoundedProcessPages(connection, catalogId, bounded);
+        } finally {
+          deleteCatalogs(connection, emptyCatalogs);
+        }
+      } catch (SQLException ex) {
+        throw new IllegalStateException("Error al revisar los planes de las listas", ex);
+      } finally {
+        repository.deleteCatalog(catalogId);
+      }
+    }
+    if (!bounded.isEmpty()) {
+      LOGGER.info("Paginas acotadas que se ordenan en memoria: {}", bounded);
+    }
+    if (!filesorts.isEmpty()) {
+      LOGGER.error("Paginas que se ordenan en memoria: {}", filesorts);
+      System.exit(1);
+    }
+    LOGGER.info("Las paginas de catalogos y procesos se leen en el orden de sus indices");
+  }
+
+  private static void checkCatalogPages(Connection connection, List<String> filesorts)
+      throws SQLException {
+    List<Filter> filters =
+        List.of(
+            new Filter("", List.of()),
+            new Filter("origen", List.of("origen = ?"), SelectionCriterion.MEMORY.name()),
+            new Filter(
+                "busqueda",
+                List.of("(LOWER(nombre) LIKE ? OR LOWER(descripcion) LIKE ?)"),
+                "%check-1%",
+                "%check-1%"));
+    for (CatalogSort sort : CatalogSort.values()) {
+      for (Filter filter : filters) {
+        for (boolean cursor : new boolean[] {false, true}) {
+          List<String> conditions = new ArrayList<>(filter.conditions());
+          List<Object> params = new ArrayList<>(filter.params());
+          if (cursor) {
+            conditions.add(
+                CatalogRepository.seekCondition(
+                    sort.name(),
+                    sort.column(),
+                    "id_catalog",
+                    sort.descending(),
+                    cursorFor(sort.name(), sort.column()),
+                    params));
+          }
+          String sql = CatalogRepository.catalogPageSql(where(conditions), sort);
+          if (usesFilesort(connection, sql, params)) {
+            filesorts.add("catalogos " + sort + label(filter, cursor));
+          }
+        }
+      }
+    }
+  }
+
+  private static void checkProcessPages(
+      Connection connection, long catalogId, List<String> filesorts) throws SQLException {
+    List<Filter> filters =
+        List.of(
+            new Filter("", List.of()),
+            new Filter("usuario", List.of("usuario_lc = ?"), "user7"),
+            new Filter("expulsivo", List.of("expulsivo = ?"), true),
+            new Filter("nombre", List.of("nombre_lc LIKE ?"), "%oc-1%"),
+            new Filter(
+                "usuario+expulsivo+nombre",
+                List.of("usuario_lc = ?", "expulsivo = ?", "nombre_lc LIKE ?"),
+                "user7",
+                true,
+                "%oc-1%"));
+    for (ProcessSort sort : ProcessSort.values()) {
+      for (Filter filter : filters) {
+        for (boolean cursor : new boolean[] {false, true}) {
+          List<String> conditions = new ArrayList<>();
+          conditions.add("id_catalog = ?");
+          conditions.addAll(filter.conditions());
+          List<Object> params = new ArrayList<>();
+          params.add(catalogId);
+          params.addAll(filter.params());
+          if (cursor) {
+            conditions.add(
+                CatalogRepository.seekCondition(
+                    sort.name(),
+                    sort.column(),
+                    "id_process",
+                    sort.descending(),
+                    cursorFor(sort.name(), sort.column()),
+                    params));
+          }
+          String sql = CatalogRepository.processPageSql(where(conditions), sort);
+          if (usesFilesort(connection, sql, params)) {
+            filesorts.add("procesos " + sort + label(filter, cursor));
+          }
+        }
+      }
+    }
+  }
+
+  /** Paginas que leen por clave un conjunto acotado de filas y lo ordenan en memoria. */
+  private static void checkBoundedProcessPages(
+      Connection connection, long catalogId, List<String> bounded) throws SQLException {
+    List<Long> ids = new ArrayList<>(CatalogRepository.NAME_PREFILTER_LIMIT);
+    try (PreparedStatement ps =
+        connection.prepareStatement(
+            "SELECT id_process FROM process WHERE id_catalog = ? ORDER BY id_process LIMIT ?")) {
+      ps.setLong(1, catalogId);
+      ps.setInt(2, CatalogRepository.NAME_PREFILTER_LIMIT);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          ids.add(rs.getLong(1));
+        }
+      }
+    }
+    String idsCondition =
+        "id_process IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+    for (ProcessSort sort : ProcessSort.values()) {
+      List<Object> params = new ArrayList<>();
+      params.add(catalogId);
+      params.addAll(ids);
+      params.add("%oc-1%");
+      String sql =
+          CatalogRepository.processPageSql(
+              where(List.of("id_catalog = ?", idsCondition, "nombre_lc LIKE ?")), sort);
+      if (usesFilesort(connection, sql, params)) {
+        bounded.add("procesos " + sort + " ids+nombre");
+      }
+      sql = CatalogRepository.processPageSql(where(List.of("id_catalog = ?", "pid = ?")), sort);
+      if (usesFilesort(connection, sql, List.of(catalogId, 1500L))) {
+        bounded.add("procesos " + sort + " pid");
+      }
+    }
+  }
+
+  private static boolean usesFilesort(Connection connection, String sql, List<Object> params)
+      throws SQLException {
+    try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+      int index = 1;
+      for (Object param : params) {
+        ps.setObject(index++, param);
+      }
+      ps.setInt(index++, PAGE_SIZE + 1);
+      ps.setInt(index, 0);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          String extra = rs.getString("Extra");
+          if (extra != null && extra.contains("Using filesort")) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /** Cursor con un valor intermedio de los datos sinteticos para la columna de orden. */
+  private static PageCursor cursorFor(String sortName, String column) {
+    String value =
+        switch (column) {
+          case "fecha_creacion", "created_at" -> Instant.now().toString();
+          case "n", "prioridad" -> "3";
+          case "nombre" -> "proc-2500";
+          default -> "50.00";
+        };
+    return new PageCursor(sortName, value, 1_000);
+  }
+
+  private static String where(List<String> conditions) {
+    return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+  }
+
+  private static String label(Filter filter, boolean cursor) {
+    String name = filter.name().isEmpty() ? "" : "+" + filter.name();
+    return name + (cursor ? "+cursor" : "");
+  }
+
+  private static List<Long> insertEmptyCatalogs(Connection connection) throws SQLException {
+    List<Long> ids = new ArrayList<>(CATALOGS);
+    SplittableRandom random = new SplittableRandom(7);
+    Instant start = Instant.now().minusSeconds(3600L * CATALOGS);
+    try (PreparedStatement ps =
+        connection.prepareStatement(
+            "INSERT INTO catalog(nombre, descripcion, origen, n, fecha_creacion)"
+                + " VALUES (?, ?, ?, ?, ?)",
+            Statement.RETURN_GENERATED_KEYS)) {
+      for (int i = 0; i < CATALOGS; i++) {
+        ps.setString(1, "check-" + i);
+        ps.setString(2, MARKER);
+        ps.setString(3, SelectionCriterion.values()[i % SelectionCriterion.values().length].name());
+        ps.setInt(4, 1 + random.nextInt(50));
+        ps.setObject(5, Timestamp.from(start.plusSeconds(3600L * i)));
+        ps.addBatch();
+      }
+      ps.executeBatch();
+      try (ResultSet keys = ps.getGeneratedKeys()) {
+        while (keys.next()) {
+          ids.add(keys.getLong(1));
+        }
+      }
+    }
+    connection.commit();
+    return ids;
+  }
+
+  private static void deleteCatalogs(Connection connection, List<Long> ids) throws SQLException {
+    if (ids.isEmpty()) {
+      return;
+    }
+    try (PreparedStatement ps =
+        connection.prepareStatement(
+            "DELETE FROM catalog WHERE id_catalog IN ("
+                + String.join(", ", Collections.nCopies(ids.size(), "?"))
+                + ")")) {
+      int index = 1;
+      for (long id : ids) {
+        ps.setLong(index++, id);
+      }
+      ps.executeUpdate();
+    }
+    connection.commit();
+  }
+
+  private static void analyze(Connection connection) throws SQLException {
+    try (Statement st = connection.createStatement()) {
+      st.execute("ANALYZE TABLE catalog, process");
+    }
+    connection.commit();
+  }
+
+  private static Catalog syntheticCatalog() {
+    SplittableRandom random = new SplittableRandom(42);
+    List<ProcessRecord> records = new ArrayList<>(PROCESSES);
+    for (int i = 0; i < PROCESSES; i++) {
+      records.add(
+          ProcessRecord.builder()
+              .setPid(1000L + i)
+              .setNombre("proc-" + random.nextInt(5000))
+              .setUsuario("user" + random.nextInt(20))
+              .setPrioridad(random.nextInt(1, 6))
+              .setExpulsivo(random.nextBoolean())
+              .setCpuPct(BigDecimal.valueOf(random.nextInt(10_000), 2))
+              .setMemMb(BigDecimal.valueOf(random.nextInt(1_000_000), 2))
+              .setIoReadKbs(BigDecimal.valueOf(random.nextInt(1_000_000), 2))
+              .setIoWriteKbs(BigDecimal.valueOf(random.nextInt(1_000_000), 2))
+              .build());
+    }
+    return Catalog.builder()
+        .setNombre("plan-check")
+        .setDescripcion(MARKER)
+        .setOrigen(SelectionCriterion.CPU)
+        .setN(PROCESSES)
+        .setFechaCreacion(Instant.now())
+        .setProcesos(records)
+        .build();
+  }
+
+  /** Filtro de la lista: nombre para el informe, condiciones y sus parametros. */
+  private record Filter(String name, List<String> conditions, List<Object> params) {
+
+    Filter(String name, List<String> conditions, Object... params) {
+      this(name, conditions, List.of(params));
+    }
+  }
+}